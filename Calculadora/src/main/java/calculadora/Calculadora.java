@@ -222,4 +222,103 @@ public class Calculadora{
 		return new Complejo(Math.round(complejo.getReal()),Math.round(complejo.getImaginaria()));
 	}
 	
+	/**
+	 * Suma al acumulador el producto de dos numeros complejos guardados en arreglos intercalados (real, imaginaria)
+	 * @param a arreglo con el primer numero
+	 * @param posA posicion de la parte real del primer numero
+	 * @param b arreglo con el segundo numero
+	 * @param posB posicion de la parte real del segundo numero
+	 * @param acumulador arreglo al que se suma el producto
+	 * @param posAcumulador posicion de la parte real del acumulador
+	 */
+	public static void multiplicacionSuma(double[] a, int posA, double[] b, int posB, double[] acumulador, int posAcumulador) {
+		double ar = a[posA];
+		double ai = a[posA + 1];
+		double br = b[posB];
+		double bi = b[posB + 1];
+		acumulador[posAcumulador] = (ar * br - ai * bi) + acumulador[posAcumulador];
+		acumulador[posAcumulador + 1] = (ar * bi + ai * br) + acumulador[posAcumulador + 1];
+	}
+	
+	/**
+	 * Calcula el producto punto de n numeros complejos guardados en arreglos intercalados (real, imaginaria)
+	 * @param a arreglo con el primer vector
+	 * @param posA posicion de la parte real del primer numero de a
+	 * @param pasoA distancia en el arreglo entre dos numeros consecutivos de a
+	 * @param b arreglo con el segundo vector
+	 * @param posB posicion de la parte real del primer numero de b
+	 * @param pasoB distancia en el arreglo entre dos numeros consecutivos de b
+	 * @param n cantidad de numeros
+	 * @param resultado arreglo donde se escribe el producto punto
+	 * @param posResultado posicion de la parte real del resultado
+	 */
+	public static void productoPunto(double[] a, int posA, int pasoA, double[] b, int posB, int pasoB, int n, double[] resultado, int posResultado) {
+		double real = 0;
+		double imaginaria = 0;
+		for (int j = 0; j < n; j++) {
+			double ar = a[posA];
+			double ai = a[posA + 1];
+			double br = b[posB];
+			double bi = b[posB + 1];
+			real = (ar * br - ai * bi) + real;
+			imaginaria = (ar * bi + ai * br) + imaginaria;
+			posA += pasoA;
+			posB += pasoB;
+		}
+		resultado[posResultado] = real;
+		resultado[posResultado + 1] = imaginaria;
+	}
+	
+	/**
+	 * Calcula el producto punto de n numeros complejos conjugando los del primer vector
+	 * @param a arreglo con el primer vector, que se conjuga
+	 * @param posA posicion de la parte real del primer numero de a
+	 * @param pasoA distancia en el arreglo entre dos numeros consecutivos de a
+	 * @param b arreglo con el segundo vector
+	 * @param posB posicion de la parte real del primer numero de b
+	 * @param pasoB distancia en el arreglo entre dos numeros consecutivos de b
+	 * @param n cantidad de numeros
+	 * @param resultado arreglo donde se escribe el producto punto
+	 * @param posResultado posicion de la parte real del resultado
+	 */
+	public static void productoPuntoConjugado(double[] a, int posA, int pasoA, double[] b, int posB, int pasoB, int n, double[] resultado, int posResultado) {
+		double real = 0;
+		double imaginaria = 0;
+		for (int j = 0; j < n; j++) {
+			double ar = a[posA];
+			double ai = -a[posA + 1];
+			double br = b[posB];
+			double bi = b[posB + 1];
+			real = (ar * br - ai * bi) + real;
+			imaginaria = (ar * bi + ai * br) + imaginaria;
+			posA += pasoA;
+			posB += pasoB;
+		}
+		resultado[posResultado] = real;
+		resultado[posResultado + 1] = imaginaria;
+	}
+	
+	/**
+	 * Suma a y el producto del escalar alfa por x, numero a numero (y = alfa*x + y)
+	 * @param alfaReal la parte real del escalar
+	 * @param alfaImaginaria la parte imaginaria del escalar
+	 * @param x arreglo con el vector x
+	 * @param posX posicion de la parte real del primer numero de x
+	 * @param pasoX distancia en el arreglo entre dos numeros consecutivos de x
+	 * @param y arreglo con el vector y, donde se escribe el resultado
+	 * @param posY posicion de la parte real del primer numero de y
+	 * @param pasoY distancia en el arreglo entre dos numeros consecutivos de y
+	 * @param n cantidad de numeros
+	 */
+	public static void axpy(double alfaReal, double alfaImaginaria, double[] x, int posX, int pasoX, double[] y, int posY, int pasoY, int n) {
+		for (int j = 0; j < n; j++) {
+			double xr = x[posX];
+			double xi = x[posX + 1];
+			y[posY] = (alfaReal * xr - alfaImaginaria * xi) + y[posY];
+			y[posY + 1] = (alfaReal * xi + alfaImaginaria * xr) + y[posY + 1];
+			posX += pasoX;
+			posY += pasoY;
+		}
+	}
+	
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package calculadora;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
 public class CalculadoraCuantica {
+	private static final long MEDICIONES_POR_BLOQUE = 1 << 16;
 	
 	/**
 	 * Calcula la probabilidad de pasar a cualquier estado, dado su estado inicial
@@ -12,13 +16,203 @@ public class CalculadoraCuantica {
 		if (!estadoInicial.isVector()) {
 			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
 		}
-		double[] probabilidades = new double[estadoInicial.getNumeros().length];
-		for (int i = 0; i < estadoInicial.getNumeros().length; i++) {
-			probabilidades[i] = Math.pow(estadoInicial.getNumeros()[i][0].getModulo(),2)/Math.pow(CalculadoraMatrices.normaDeUnVector(estadoInicial),2);		
-		}		
+		return calcularProbabilidad(estadoInicial, new double[estadoInicial.getFilas()]);
+	}
+
+	/**
+	 * Calcula la probabilidad de pasar a cualquier estado y la escribe en un arreglo dado. La norma se
+	 * calcula una sola vez y cada probabilidad se escribe en una pasada sobre las amplitudes, repartida
+	 * entre los hilos del pool de Paralelismo cuando el estado es grande.
+	 * @param estadoInicial Estado inicial del sistema
+	 * @param probabilidades arreglo donde se escribe la probabilidad de cada estado
+	 * @return el mismo arreglo de probabilidades
+	 * @throws CalculadoraException Cuando el estado inicial no es un vector o el arreglo es muy corto
+	 */
+	public static double[] calcularProbabilidad(Matriz estadoInicial, final double[] probabilidades) throws CalculadoraException {
+		if (!estadoInicial.isVector()) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
+		}
+		int filas = estadoInicial.getFilas();
+		if (probabilidades.length < filas) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+		}
+		double norma = CalculadoraMatrices.normaDeUnVector(estadoInicial);
+		final double normaAlCuadrado = Math.pow(norma, 2);
+		final double[] datos = estadoInicial.getDatos();
+		final int paso = 2 * estadoInicial.getColumnas();
+		ForkJoinPool pool = Paralelismo.getPool();
+		if (!Paralelismo.enParalelo(pool, filas)) {
+			pool = null;
+		}
+		Paralelismo.ejecutar(pool, 0, filas, Paralelismo.tamanoParte(pool, filas, 1 << 12), new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				for (int i = desde; i < hasta; i++) {
+					double real = datos[i * paso];
+					double imaginaria = datos[i * paso + 1];
+					probabilidades[i] = Math.pow(Math.sqrt(real * real + imaginaria * imaginaria), 2) / normaAlCuadrado;
+				}
+			}
+		});
+		return probabilidades;
+	}
+
+	/**
+	 * Calcula la distribucion acumulada de un estado: la posicion i tiene la probabilidad de medir un
+	 * estado menor o igual a i. Sirve para muestrear buscando un numero aleatorio en el arreglo.
+	 * @param estadoInicial Estado inicial del sistema
+	 * @return la probabilidad acumulada de cada estado
+	 * @throws CalculadoraException Cuando el estado inicial no es un vector
+	 */
+	public static double[] calcularDistribucionAcumulada(Matriz estadoInicial) throws CalculadoraException {
+		return acumular(calcularProbabilidad(estadoInicial));
+	}
+
+	/**
+	 * Acumula unas probabilidades en su lugar, dejando en cada posicion la suma hasta ella
+	 * @param probabilidades las probabilidades, donde se escribe la distribucion acumulada
+	 * @return el mismo arreglo
+	 */
+	public static double[] acumular(double[] probabilidades) {
+		double suma = 0;
+		for (int i = 0; i < probabilidades.length; i++) {
+			suma += probabilidades[i];
+			probabilidades[i] = suma;
+		}
 		return probabilidades;
 	}
 	
+	/**
+	 * Simula muchas mediciones de un estado en la base computacional
+	 * @param estado el estado, un vector que no tiene que estar normalizado
+	 * @param mediciones cantidad de mediciones
+	 * @param semilla semilla de los numeros aleatorios; la misma semilla da el mismo histograma
+	 * @return cuantas veces salio cada estado
+	 * @throws CalculadoraException cuando el estado no es un vector o es nulo, o las mediciones son negativas
+	 */
+	public static Histograma medir(Matriz estado, long mediciones, long semilla) throws CalculadoraException {
+		return medir(calcularProbabilidad(estado), mediciones, semilla);
+	}
+
+	/**
+	 * Simula muchas mediciones de una distribucion. Construye una tabla de alias una vez y saca cada
+	 * medicion en O(1). Las mediciones se reparten en bloques fijos, cada uno con su propio generador
+	 * separado del de la semilla, asi que el resultado no depende de la cantidad de hilos.
+	 * @param probabilidades la probabilidad de cada estado; no tienen que sumar 1
+	 * @param mediciones cantidad de mediciones
+	 * @param semilla semilla de los numeros aleatorios; la misma semilla da el mismo histograma
+	 * @return cuantas veces salio cada estado
+	 * @throws CalculadoraException cuando alguna probabilidad es negativa, todas son 0 o las mediciones son negativas
+	 */
+	public static Histograma medir(double[] probabilidades, final long mediciones, long semilla) throws CalculadoraException {
+		if (mediciones < 0 || mediciones / MEDICIONES_POR_BLOQUE >= Integer.MAX_VALUE) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		final TablaAlias tabla = new TablaAlias(probabilidades);
+		int bloques = (int) ((mediciones + MEDICIONES_POR_BLOQUE - 1) / MEDICIONES_POR_BLOQUE);
+		final SplittableRandom[] generadores = new SplittableRandom[bloques];
+		SplittableRandom raiz = new SplittableRandom(semilla);
+		for (int b = 0; b < bloques; b++) {
+			generadores[b] = raiz.split();
+		}
+		final long[] cuentas = new long[tabla.getCasillas()];
+		ForkJoinPool pool = Paralelismo.getPool();
+		int minimo = bloques;
+		if (Paralelismo.enParalelo(pool, mediciones)) {
+			// Una parte por hilo, porque cada parte cuenta en su propio arreglo
+			minimo = (bloques + pool.getParallelism() - 1) / pool.getParallelism();
+		} else {
+			pool = null;
+		}
+		Paralelismo.ejecutar(pool, 0, bloques, minimo, new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				long[] parciales = new long[cuentas.length];
+				for (int b = desde; b < hasta; b++) {
+					long cantidad = Math.min(MEDICIONES_POR_BLOQUE, mediciones - (long) b * MEDICIONES_POR_BLOQUE);
+					SplittableRandom aleatorio = generadores[b];
+					for (long m = 0; m < cantidad; m++) {
+						parciales[tabla.muestrear(aleatorio)]++;
+					}
+				}
+				synchronized (cuentas) {
+					for (int j = 0; j < cuentas.length; j++) {
+						cuentas[j] += parciales[j];
+					}
+				}
+			}
+		});
+		int distintos = 0;
+		for (long cuenta : cuentas) {
+			if (cuenta > 0) {
+				distintos++;
+			}
+		}
+		int[] estados = new int[distintos];
+		long[] compactas = new long[distintos];
+		int i = 0;
+		for (int j = 0; j < cuentas.length; j++) {
+			if (cuentas[j] > 0) {
+				estados[i] = tabla.getEstado(j);
+				compactas[i++] = cuentas[j];
+			}
+		}
+		return new Histograma(estados, compactas, mediciones);
+	}
+
+	/**
+	 * Da los k estados mas probables de un estado
+	 * @param estado el estado, un vector que no tiene que estar normalizado
+	 * @param k cantidad de estados
+	 * @return los k estados mas probables con su probabilidad, del mas probable al menos probable
+	 * @throws CalculadoraException cuando el estado no es un vector o k es negativo
+	 */
+	public static EstadosProbables masProbables(Matriz estado, int k) throws CalculadoraException {
+		return masProbables(calcularProbabilidad(estado), k);
+	}
+
+	/**
+	 * Da los k estados mas probables de una distribucion sin ordenarla toda: cada parte del arreglo,
+	 * repartida entre los hilos del pool de Paralelismo, guarda sus k mayores en un monticulo de k
+	 * posiciones y al final se juntan los monticulos. Toma O(n log k) y O(k) memoria por parte.
+	 * @param probabilidades la probabilidad de cada estado
+	 * @param k cantidad de estados; si hay menos estados se dan todos
+	 * @return los k estados mas probables con su probabilidad, del mas probable al menos probable
+	 * @throws CalculadoraException cuando k es negativo
+	 */
+	public static EstadosProbables masProbables(final double[] probabilidades, final int k) throws CalculadoraException {
+		if (k < 0) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		final Monticulo total = new Monticulo(Math.min(k, probabilidades.length));
+		ForkJoinPool pool = Paralelismo.getPool();
+		if (!Paralelismo.enParalelo(pool, probabilidades.length)) {
+			pool = null;
+		}
+		Paralelismo.ejecutar(pool, 0, probabilidades.length, Paralelismo.tamanoParte(pool, probabilidades.length, 1 << 14), new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				Monticulo parcial = new Monticulo(Math.min(k, hasta - desde));
+				for (int i = desde; i < hasta; i++) {
+					parcial.agregar(i, probabilidades[i]);
+				}
+				synchronized (total) {
+					for (int j = 0; j < parcial.cantidad; j++) {
+						total.agregar(parcial.estados[j], parcial.valores[j]);
+					}
+				}
+			}
+		});
+		int[] estados = new int[total.cantidad];
+		double[] valores = new double[total.cantidad];
+		for (int i = estados.length - 1; i >= 0; i--) {
+			estados[i] = total.estados[0];
+			valores[i] = total.valores[0];
+			total.quitarMenor();
+		}
+		return new EstadosProbables(estados, valores);
+	}
+
 	/**
 	 * Dados dos vectores (psi y phi) calcula la probabilidad (amplitud) de llegar de psi a phi
 	 * @param psi el estado inicial
@@ -85,19 +279,44 @@ public class CalculadoraCuantica {
 	 * @param omega el observador
 	 * @param psi el estado inicial 
 	 * @return la varianza
-	 * @throws CalculadoraException cualquier excepcion al calcular el valor esperado
+	 * @throws CalculadoraException cuando el estado inicial no es un vector u omega no es una matriz hermitania
 	 */
 	public static Complejo calcularVarianza(Matriz omega,Matriz psi) throws CalculadoraException {
-		double[] escalarPsi = {(double)1/CalculadoraMatrices.normaDeUnVector(psi),0};
-		Matriz psiNormalizado = CalculadoraMatrices.multiplicacionEscalarMatriz(escalarPsi, psi);
-		Matriz delta = delta(omega,psiNormalizado);
-		return calcular(CalculadoraMatrices.matrizPorMatriz(delta, delta),psi);
+		return calcularValorEsperadoYVarianza(omega, psi)[1];
 	}
 
-	private static Matriz delta(Matriz omega, Matriz psi) throws CalculadoraException {
-		double[] valorEsperado = {calcularValorEsperado(omega,psi).getReal(),calcularValorEsperado(omega,psi).getImaginaria()};
-		double[] menosUno = {-1,0};
-		return CalculadoraMatrices.sumaMatriz(omega, CalculadoraMatrices.multiplicacionEscalarMatriz(menosUno,CalculadoraMatrices.multiplicacionEscalarMatriz(valorEsperado, CalculadoraMatrices.identidad(omega))));
+	/**
+	 * Calcula juntos el valor esperado y la varianza con un solo producto omega*psi, sin formar matrices
+	 * intermedias: el valor esperado es <psi|omega|psi> y la varianza ||omega psi - <omega> psi||^2, con psi
+	 * normalizado, que se calcula con una pasada mas sobre el mismo producto y nunca es negativa. En lugar
+	 * de normalizar psi se divide entre <psi|psi>, asi psi no cambia.
+	 * @param omega el observable
+	 * @param psi el estado inicial 
+	 * @return un arreglo con el valor esperado y la varianza
+	 * @throws CalculadoraException cuando el estado inicial no es un vector u omega no es una matriz hermitania
+	 */
+	public static Complejo[] calcularValorEsperadoYVarianza(Matriz omega,Matriz psi) throws CalculadoraException {
+		if (!psi.isVector()) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
+		}
+		if (!CalculadoraMatrices.esHermitania(omega)) {
+			throw new CalculadoraException("La matriz no es hermitania");
+		}
+		double escala = 1 / CalculadoraMatrices.productoInterno(psi,psi).getReal();
+		Matriz res = CalculadoraMatrices.matrizPorMatriz(omega, psi);
+		Complejo producto = CalculadoraMatrices.productoInterno(res,psi);
+		Complejo valorEsperado = new Complejo(producto.getReal() * escala, producto.getImaginaria() * escala);
+		double media = valorEsperado.getReal();
+		double[] r = res.getDatos();
+		double[] p = psi.getDatos();
+		double suma = 0;
+		for (int i = 0; i < r.length; i += 2) {
+			double real = r[i] - media * p[i];
+			double imaginaria = r[i + 1] - media * p[i + 1];
+			suma += real * real + imaginaria * imaginaria;
+		}
+		double varianza = suma * escala;
+		return new Complejo[] {valorEsperado, new Complejo(varianza, 0)};
 	}
 
 	public static double[] esferaBloch(Matriz ket) throws CalculadoraException {
@@ -107,15 +326,85 @@ public class CalculadoraCuantica {
 		double[] escalarKet = {(double)1/CalculadoraMatrices.normaDeUnVector(ket),0};
 		Matriz ketNormalizado = CalculadoraMatrices.multiplicacionEscalarMatriz(escalarKet, ket);
 		
-		double primeraComponente = ketNormalizado.getNumeros()[0][0].getModulo();
-		double primerExponente = ketNormalizado.getNumeros()[0][0].getFase();
-		double segundoExponente = ketNormalizado.getNumeros()[1][0].getFase();
+		double primeraComponente = ketNormalizado.getNumero(0, 0).getModulo();
+		double primerExponente = ketNormalizado.getNumero(0, 0).getFase();
+		double segundoExponente = ketNormalizado.getNumero(1, 0).getFase();
 		double[] respuesta = new double[2];
 		
 		respuesta[0] = Math.toDegrees(Math.acos(primeraComponente));
 		respuesta[1]= segundoExponente - primerExponente;
 		return respuesta;
 	}
-	
-	
+
+	/**
+	 * Monticulo de minimos de tamano acotado con los mayores valores vistos. El menor es el de menor
+	 * valor y, entre valores iguales, el de mayor estado, asi la seleccion no depende del orden de llegada.
+	 */
+	private static final class Monticulo {
+		private final int[] estados;
+		private final double[] valores;
+		private int cantidad;
+
+		Monticulo(int capacidad) {
+			estados = new int[capacidad];
+			valores = new double[capacidad];
+		}
+
+		/**
+		 * Agrega un estado si esta entre los mayores vistos, sacando al menor cuando el monticulo esta lleno
+		 * @param estado el estado
+		 * @param valor su probabilidad
+		 */
+		void agregar(int estado, double valor) {
+			if (cantidad < estados.length) {
+				int i = cantidad++;
+				while (i > 0 && menor(estado, valor, estados[(i - 1) / 2], valores[(i - 1) / 2])) {
+					estados[i] = estados[(i - 1) / 2];
+					valores[i] = valores[(i - 1) / 2];
+					i = (i - 1) / 2;
+				}
+				estados[i] = estado;
+				valores[i] = valor;
+			} else if (cantidad > 0 && menor(estados[0], valores[0], estado, valor)) {
+				hundir(estado, valor);
+			}
+		}
+
+		/**
+		 * Saca el menor del monticulo
+		 */
+		void quitarMenor() {
+			cantidad--;
+			if (cantidad > 0) {
+				hundir(estados[cantidad], valores[cantidad]);
+			}
+		}
+
+		/**
+		 * Pone un estado en la raiz y lo baja hasta su lugar
+		 * @param estado el estado
+		 * @param valor su probabilidad
+		 */
+		private void hundir(int estado, double valor) {
+			int i = 0;
+			while (2 * i + 1 < cantidad) {
+				int hijo = 2 * i + 1;
+				if (hijo + 1 < cantidad && menor(estados[hijo + 1], valores[hijo + 1], estados[hijo], valores[hijo])) {
+					hijo++;
+				}
+				if (!menor(estados[hijo], valores[hijo], estado, valor)) {
+					break;
+				}
+				estados[i] = estados[hijo];
+				valores[i] = valores[hijo];
+				i = hijo;
+			}
+			estados[i] = estado;
+			valores[i] = valor;
+		}
+
+		private static boolean menor(int estadoA, double valorA, int estadoB, double valorB) {
+			return valorA < valorB || (valorA == valorB && estadoA > estadoB);
+		}
+	}
 }
@@ -1,5 +1,7 @@
 package calculadora;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class CalculadoraDinamica {
 	
 	/**
@@ -8,14 +10,19 @@ public class CalculadoraDinamica {
 	 * @param dinamica la matriz dinamica del sistema 
 	 * @param estadoInicial el estado incial del sistema 
 	 * @param clicks cantidad de estados a avanzar
-	 * @return una Respuesta que contiene la validacion de la matriz, la matriz potencia del sistema y el estado final del sistema 
+	 * @return una Respuesta que contiene la validacion de la matriz, la matriz potencia del sistema y el estado final del sistema.
+	 * Como la potencia se calcula de todas formas, el estado final se obtiene aplicandola una sola vez al estado inicial.
 	 * @throws CalculadoraException cualquier excepcion en los calculos del estado final
 	 */
-	public static Respuesta calcularEstado(int tipoDinamica,Matriz dinamica, Matriz estadoInicial, int clicks) throws CalculadoraException {
+	public static Respuesta calcularEstado(int tipoDinamica,Matriz dinamica, Matriz estadoInicial, long clicks) throws CalculadoraException {
 		if (tipoDinamica < 0 || tipoDinamica>2) {
 			throw new CalculadoraException(CalculadoraException.TIPO_INVALIDO);
 		}
-		return new Respuesta(validarMatriz(dinamica,tipoDinamica),calcularPotencia(dinamica,clicks),calcularEstadoFinal(dinamica,estadoInicial,clicks));
+		if(estadoInicial.getColumnas()!=1) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
+		}
+		Matriz potencia = CalculadoraMatrices.potencia(dinamica, Math.max(0, clicks));
+		return new Respuesta(validarMatriz(dinamica,tipoDinamica),potencia,CalculadoraMatrices.matrizPorVector(potencia, estadoInicial));
 	}
 	
 	/**
@@ -46,14 +53,15 @@ public class CalculadoraDinamica {
 	 */
 	private static boolean validarClasico(Matriz m1) {
 		boolean valida = true;
-		Complejo zero = new Complejo(0,0);
-		Complejo uno = new  Complejo(1.0,0);
+		double[] datos = m1.getDatos();
 		int cantidadUnos ; 
-		for (int i = 0; i < m1.getNumeros()[0].length; i++) {
+		for (int i = 0; i < m1.getColumnas(); i++) {
 			cantidadUnos = 0;
-			for (int j = 0; j < m1.getNumeros().length; j++) {
-				valida = (!m1.getNumeros()[j][i].equals(zero) && !m1.getNumeros()[j][i].equals(uno))?false:valida;
-				cantidadUnos = (m1.getNumeros()[j][i].equals(uno))?cantidadUnos+1:cantidadUnos;
+			for (int j = 0; j < m1.getFilas(); j++) {
+				double real = datos[2 * (j * m1.getColumnas() + i)];
+				double imaginaria = datos[2 * (j * m1.getColumnas() + i) + 1];
+				valida = (imaginaria != 0 || (real != 0 && real != 1))?false:valida;
+				cantidadUnos = (imaginaria == 0 && real == 1)?cantidadUnos+1:cantidadUnos;
 			}
 			valida = (cantidadUnos>1)?false:valida;
 		}
@@ -67,21 +75,25 @@ public class CalculadoraDinamica {
 	 */
 	private static boolean validarProbabilistico(Matriz m1) {
 		boolean valida = true;
-		Complejo suma;
-		Complejo uno = new  Complejo(1.0,0);
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			suma = new Complejo(0,0);
-			for (int j = 0; j < m1.getNumeros()[0].length; j++) {
-				suma = Calculadora.suma(suma, m1.getNumeros()[i][j]);
+		double real;
+		double imaginaria;
+		for (int i = 0; i < m1.getFilas(); i++) {
+			real = 0;
+			imaginaria = 0;
+			for (int j = 0; j < m1.getColumnas(); j++) {
+				real += m1.getReal(i, j);
+				imaginaria += m1.getImaginaria(i, j);
 			}
-			valida = (!suma.equals(uno))?false:valida;
+			valida = (real != 1 || imaginaria != 0)?false:valida;
 		}
-		for (int i = 0; i < m1.getNumeros()[0].length; i++) {
-			suma = new Complejo(0,0);
-			for (int j = 0; j < m1.getNumeros().length; j++) {
-				suma = Calculadora.suma(suma, m1.getNumeros()[j][i]);
+		for (int i = 0; i < m1.getColumnas(); i++) {
+			real = 0;
+			imaginaria = 0;
+			for (int j = 0; j < m1.getFilas(); j++) {
+				real += m1.getReal(j, i);
+				imaginaria += m1.getImaginaria(j, i);
 			}
-			valida = (!suma.equals(uno))?false:valida;
+			valida = (real != 1 || imaginaria != 0)?false:valida;
 		}
 		return valida;
 	}
@@ -97,36 +109,65 @@ public class CalculadoraDinamica {
 	}
 	
 	/**
-	 * Calcula la potencia de una matriz dinamica
-	 * @param dinamica la matriz dinamica del sistema 
-	 * @param potencia exponente al que se multiplica la matriz
-	 * @return una matriz ocn el resultado de la potencia 
-	 * @throws CalculadoraException excepciones en el calculo de la multiplicacion
+	 * Dice si para avanzar varios clicks sale mas barato elevar la matriz a la potencia y aplicarla una vez
+	 * que aplicarla click por click. Elevar cuesta del orden de 2*log2(clicks) productos de n^3 multiplicaciones,
+	 * mientras que cada click cuesta una multiplicacion por cada numero no nulo de la matriz.
+	 * @param m1 matriz dinamica, densa o dispersa; otros operadores se aplican siempre click por click
+	 * @param clicks cantidad de estados a avanzar
+	 * @return si conviene elevar la matriz a la potencia
 	 */
-	private static Matriz calcularPotencia(Matriz dinamica, int potencia) throws CalculadoraException {
-		Matriz potenciaM = dinamica;
-		for (int i = 0; i < potencia; i++) {
-			potenciaM = CalculadoraMatrices.matrizPorMatriz(potenciaM, potenciaM);
+	static boolean convienePotencia(Operador m1, long clicks) {
+		if (clicks <= 1 || m1.getFilas() != m1.getColumnas() || !(m1 instanceof Matriz || m1 instanceof MatrizDispersa)) {
+			return false;
 		}
-		return dinamica;
-	} 
+		double n = m1.getFilas();
+		double porClick = m1 instanceof MatrizDispersa ? ((MatrizDispersa) m1).getNoCeros() : n * n;
+		double productos = 64 - Long.numberOfLeadingZeros(clicks) + Long.bitCount(clicks) - 2;
+		return productos * n * n * n + n * n < (double) clicks * porClick;
+	}
 	
 	/**
 	 * Calcula el estado del sistema a partir de la matriz dinamica, un estado inicial y la cantidad de estados 
-	 * @param m1 matriz dinamica
+	 * @param m1 matriz dinamica, densa o dispersa
+	 * @param estadoInicial estado inicial del sistema
+	 * @param clicks cantidad de estados a avanzar
+	 * @return Una matriz con el estado final del sistema
+	 * @throws CalculadoraException cuando el estado inicial no es un vector
+	 */
+	public static Matriz calcularEstadoFinal(Operador m1, Matriz estadoInicial, long clicks) throws CalculadoraException {
+		return calcularEstadoFinal(m1, estadoInicial, clicks, Paralelismo.getPool());
+	}
+	
+	/**
+	 * Calcula el estado del sistema a partir de la matriz dinamica, un estado inicial y la cantidad de estados,
+	 * repartiendo cada click entre los hilos de un pool. Si la matriz es densa pero casi toda en ceros
+	 * se comprime una sola vez para que cada click cueste en proporcion a los numeros no nulos. Si son
+	 * muchos clicks frente al tamano de la matriz se eleva la matriz a la potencia y se aplica una sola vez.
+	 * @param m1 matriz dinamica, densa o dispersa
 	 * @param estadoInicial estado inicial del sistema
 	 * @param clicks cantidad de estados a avanzar
+	 * @param pool el pool que hace los calculos, o null para hacerlos en un solo hilo
 	 * @return Una matriz con el estado final del sistema
 	 * @throws CalculadoraException cuando el estado inicial no es un vector
 	 */
-	public static Matriz calcularEstadoFinal(Matriz m1, Matriz estadoInicial, int clicks) throws CalculadoraException {
-		if(estadoInicial.getNumeros()[0].length!=1) {
+	public static Matriz calcularEstadoFinal(Operador m1, Matriz estadoInicial, long clicks, ForkJoinPool pool) throws CalculadoraException {
+		if(estadoInicial.getColumnas()!=1) {
 			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
 		}
+		Matriz densa = m1 instanceof Matriz ? (Matriz) m1 : null;
+		if (clicks > 1 && densa != null && MatrizDispersa.convieneComprimir(densa)) {
+			m1 = new MatrizDispersa(densa);
+		}
+		if (convienePotencia(m1, clicks)) {
+			if (densa == null) {
+				densa = ((MatrizDispersa) m1).aDensa();
+			}
+			return CalculadoraMatrices.matrizPorVector(CalculadoraMatrices.potencia(densa, clicks, pool), estadoInicial, pool);
+		}
 		Matriz estado = estadoInicial;
-		for (int i = 0; i < clicks; i++) {
+		for (long i = 0; i < clicks; i++) {
 			try {
-				estado = CalculadoraMatrices.matrizPorVector(m1, estado);
+				estado = CalculadoraMatrices.matrizPorVector(m1, estado, pool);
 			} catch (CalculadoraException e) {
 				e.printStackTrace();
 			}			
@@ -135,18 +176,37 @@ public class CalculadoraDinamica {
 	}
 	
 	/**
-	 * Calcula el estado del sistema a partir de la matriz dinamica, un estado inicial y la cantidad de estados 
+	 * Calcula el estado del sistema guardando solo las posiciones no nulas del estado, como en el sistema
+	 * de canicas que parte de un vector unitario. Cada click solo busca las columnas no nulas de la matriz
+	 * en el estado; si el estado se llena pasa solo a la forma densa.
+	 * @param m1 matriz dinamica dispersa
+	 * @param estadoInicial estado inicial del sistema
+	 * @param clicks cantidad de estados a avanzar
+	 * @return el estado final del sistema
+	 * @throws CalculadoraException cuando las dimensiones no corresponden
+	 */
+	public static VectorDisperso calcularEstadoFinal(MatrizDispersa m1, VectorDisperso estadoInicial, long clicks) throws CalculadoraException {
+		VectorDisperso estado = estadoInicial;
+		for (long i = 0; i < clicks; i++) {
+			estado = estado.multiplicar(m1);
+		}
+		return estado;
+	}
+	
+	/**
+	 * Calcula el estado del sistema a partir de la matriz dinamica, un estado inicial y la cantidad de estados.
+	 * La matriz se compila a su funcion de sucesores, asi el costo no depende de la cantidad de clicks.
 	 * @param m1 matriz dinamica
 	 * @param estadoInicial estado inicial del sistema
 	 * @param clicks cantidad de estados a avanzar
 	 * @return Una matriz con el estado final del sistema
 	 * @throws CalculadoraException cuando el estado inicial no es un vector o que la matriz del sistema sea invalida.
 	 */
-	public static Matriz sistemaDinamicoDeterminista(Matriz m1, Matriz estadoInicial, int clicks) throws CalculadoraException {
+	public static Matriz sistemaDinamicoDeterminista(Matriz m1, Matriz estadoInicial, long clicks) throws CalculadoraException {
 		if(!validarClasico(m1)) {
 			throw new CalculadoraException(CalculadoraException.MATRIZ_INVALIDA);
 		}
-		return calcularEstadoFinal(m1, estadoInicial, clicks);
+		return new SistemaDeterminista(m1).avanzar(estadoInicial, clicks);
 	}
 
 	/**
@@ -159,16 +219,54 @@ public class CalculadoraDinamica {
 	 * @throws CalculadoraException cuando el estado inicial no es un vector o que la matriz del sistema sea invalida.
 	 */
 	public static Matriz sistemaDinamicoconEnsamble(Matriz m1, Matriz m2,Matriz estadoInicial, int clicks) throws CalculadoraException {
-		if (m1.getNumeros().length != m1.getNumeros()[0].length||m2.getNumeros().length != m2.getNumeros()[0].length) {
+		if (m1.getFilas() != m1.getColumnas()||m2.getFilas() != m2.getColumnas()) {
 			throw new CalculadoraException(CalculadoraException.NO_ES_CUADRADA);		
 		}
 		Matriz ensamble = CalculadoraMatrices.productoTensorial(m1, m2);
-		if (estadoInicial.getNumeros().length != ensamble.getNumeros().length) {
+		if (estadoInicial.getFilas() != ensamble.getFilas()) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR+"Estado inicial no corresponde al sistema.");
+		}
+		return calcularEstadoFinal(ensamble, estadoInicial, clicks);
+	}
+	
+	/**
+	 * Calcula el estado del sistema ensamblado a partir de dos matrices dinamicas dispersas, un estado inicial y la cantidad de estados.
+	 * El ensamble se arma y se aplica sin pasar por su forma densa.
+	 * @param m1 primera matriz dinamica
+	 * @param m2 segunda matriz dinamica
+	 * @param estadoInicial estado inicial del sistema
+	 * @param clicks cantidad de estados para avanzar
+	 * @return Una matriz con el estado final del sistema
+	 * @throws CalculadoraException cuando el estado inicial no es un vector o que la matriz del sistema sea invalida.
+	 */
+	public static Matriz sistemaDinamicoconEnsamble(MatrizDispersa m1, MatrizDispersa m2,Matriz estadoInicial, int clicks) throws CalculadoraException {
+		if (m1.getFilas() != m1.getColumnas()||m2.getFilas() != m2.getColumnas()) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_CUADRADA);		
+		}
+		MatrizDispersa ensamble = MatrizDispersa.productoTensorial(m1, m2);
+		if (estadoInicial.getFilas() != ensamble.getFilas()) {
 			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR+"Estado inicial no corresponde al sistema.");
 		}
 		return calcularEstadoFinal(ensamble, estadoInicial, clicks);
 	}
 	
+	/**
+	 * Calcula el estado del sistema ensamblado a partir de dos matrices dinamicas dispersas, los estados iniciales de los sistemas y la cantidad de estados 
+	 * @param m1 primera matriz dinamica
+	 * @param m2 segunda matriz dinamica
+	 * @param estadoInicial1 estado inicial del sistema 1
+	 * @param estadoInicial2 estado inicial del sistema 2
+	 * @param clicks cantidad de estados para avanzar
+	 * @return Una matriz con el estado final del sistema
+	 * @throws CalculadoraException Caundo los estados no corresponden a las matrices y todas las excepciones de calcular los estados 
+	 */
+	public static Matriz sistemaDinamicoconEnsamble(MatrizDispersa m1, MatrizDispersa m2,Matriz estadoInicial1,Matriz estadoInicial2, int clicks) throws CalculadoraException {
+		if(estadoInicial1.getFilas() != m1.getFilas()||estadoInicial2.getFilas() != m2.getFilas()) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR+"Estado inicial no corresponde al sistema.");
+		}
+		return sistemaDinamicoconEnsamble(m1,m2,CalculadoraMatrices.productoTensorial(estadoInicial1, estadoInicial2), clicks);
+	}
+	
 	/**
 	 * Calcula el estado del sistema ensamblado a partir de las matrices dinamicas, los estados iniciales de los sistemas y la cantidad de estados 
 	 * @param m1 primera matriz dinamica
@@ -180,7 +278,7 @@ public class CalculadoraDinamica {
 	 * @throws CalculadoraException Caundo los estados no corresponden a las matrices y todas las excepciones de calcular los estados 
 	 */
 	public static Matriz sistemaDinamicoconEnsamble(Matriz m1, Matriz m2,Matriz estadoInicial1,Matriz estadoInicial2, int clicks) throws CalculadoraException {
-		if(estadoInicial1.getNumeros().length != m1.getNumeros().length||estadoInicial2.getNumeros().length != m2.getNumeros().length) {
+		if(estadoInicial1.getFilas() != m1.getFilas()||estadoInicial2.getFilas() != m2.getFilas()) {
 			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR+"Estado inicial no corresponde al sistema.");
 		}
 		return sistemaDinamicoconEnsamble(m1,m2,CalculadoraMatrices.productoTensorial(estadoInicial1, estadoInicial2), clicks);
@@ -195,16 +293,18 @@ public class CalculadoraDinamica {
 	 * @throws CalculadoraException cualquier excepcion en los calculos del estado final
 	 */
 	public static Respuesta experimentoRendijas(int rendijas, int blancosPared,double[][] probabilidades) throws CalculadoraException {
-		Matriz dinamica = new Matriz(valoresBlancos(quedarseEnBlanco(valoresRendijas(mapACero(new Complejo[rendijas*2 + blancosPared*(rendijas+1)+1][rendijas*2 + blancosPared*(rendijas+1)+1]),rendijas),rendijas),probabilidades,rendijas,blancosPared));
-		return new Respuesta(true,calcularPotencia(dinamica,1),convertirCuanticoaProbabilistico(calcularEstadoFinal(dinamica,estadoInicial(rendijas*2 + blancosPared*(rendijas+1)+1),2)));	
+		Matriz dinamica = valoresBlancos(quedarseEnBlanco(valoresRendijas(new Matriz(rendijas*2 + blancosPared*(rendijas+1)+1,rendijas*2 + blancosPared*(rendijas+1)+1),rendijas),rendijas),probabilidades,rendijas,blancosPared);
+		return new Respuesta(true,CalculadoraMatrices.potencia(dinamica,1),convertirCuanticoaProbabilistico(calcularEstadoFinal(dinamica,estadoInicial(rendijas*2 + blancosPared*(rendijas+1)+1),2)));	
 	}
 	
 	private static Matriz convertirCuanticoaProbabilistico(Matriz estadoFinal) {
-		Complejo[][] probabilidades = new Complejo[estadoFinal.getNumeros().length][1];
-		for (int i = 0; i < estadoFinal.getNumeros().length; i++) {
-			probabilidades[i][0] = new Complejo(Math.pow(estadoFinal.getNumeros()[i][0].getModulo(),2),0);
+		Matriz probabilidades = new Matriz(estadoFinal.getFilas(), 1);
+		for (int i = 0; i < estadoFinal.getFilas(); i++) {
+			double real = estadoFinal.getReal(i, 0);
+			double imaginaria = estadoFinal.getImaginaria(i, 0);
+			probabilidades.setNumero(i, 0, real * real + imaginaria * imaginaria, 0);
 		}
-		return new Matriz(probabilidades);
+		return probabilidades;
 	}
 
 	/**
@@ -213,20 +313,20 @@ public class CalculadoraDinamica {
 	 * @return el estado inicial del sistema
 	 */
 	private static Matriz estadoInicial(int logitud) {
-		Complejo[][] estadoInicial = mapACero(new Complejo[logitud][1]);
-		estadoInicial[0][0] = new Complejo(1,0);
-		return new Matriz(estadoInicial);
+		Matriz estadoInicial = new Matriz(logitud, 1);
+		estadoInicial.setNumero(0, 0, 1, 0);
+		return estadoInicial;
 	}
 	
 	/**
 	 * Asigna los valores de probabilidad de quedarse en el banco.
-	 * @param dinamica el arreglo de la matriz del sistema
+	 * @param dinamica la matriz del sistema
 	 * @param rendijas cantidad de rendijas en el sistema 
-	 * @returnel arreglo con los valores de la probabilidad de quedarse en el banco.
+	 * @return la matriz con los valores de la probabilidad de quedarse en el banco.
 	 */
-	private static Complejo[][] quedarseEnBlanco(Complejo[][] dinamica,int rendijas) {
-		for (int i = rendijas+1; i < dinamica.length; i++) {
-			dinamica[i][i] = new Complejo(1,0);
+	private static Matriz quedarseEnBlanco(Matriz dinamica,int rendijas) {
+		for (int i = rendijas+1; i < dinamica.getFilas(); i++) {
+			dinamica.setNumero(i, i, 1, 0);
 		}
 		return dinamica;
 	}
@@ -234,19 +334,19 @@ public class CalculadoraDinamica {
 	
 	/**
 	 * Asigna los valores de la probabilidad de las rendijas a los blancos
-	 * @param dinamica el arreglo de la matriz del sistema
+	 * @param dinamica la matriz del sistema
 	 * @param probabilidades vector con las probabilidades de llegar a los blancos
 	 * @param rendijas cantidad de rendijas en el sistema 
 	 * @param blancosPared blancos que hay detras de cada pared 
-	 * @return el arreglo con los valores de la probabilidad de las rendijas a los blancos
+	 * @return la matriz con los valores de la probabilidad de las rendijas a los blancos
 	 */
-	private static Complejo[][] valoresBlancos(Complejo[][] dinamica, double[][] probabilidades,int rendijas,int blancosPared) {
+	private static Matriz valoresBlancos(Matriz dinamica, double[][] probabilidades,int rendijas,int blancosPared) {
 		int posicion = rendijas+1;
 		int blancosPorRendija = blancosPared*2 + 1;
 		int probabilidad = 0;
 		for (int i = 0; i < rendijas; i++) {
 			for (int j = 0; j < blancosPorRendija  ; j++) {
-				dinamica[posicion][i+1] = new Complejo(probabilidades[probabilidad][0],probabilidades[probabilidad][1]);
+				dinamica.setNumero(posicion, i+1, probabilidades[probabilidad][0], probabilidades[probabilidad][1]);
 				probabilidad++;
 				posicion++;
 			}			
@@ -258,27 +358,13 @@ public class CalculadoraDinamica {
 	
 	/**
 	 * Asigna los valores de la probabilidad a las rendijas
-	 * @param dinamica el arreglo de la matriz del sistema
+	 * @param dinamica la matriz del sistema
 	 * @param rendijas cantidad de rendijas del sistema 
-	 * @return el arreglo con los valores de la probabilidad a las rendijas
+	 * @return la matriz con los valores de la probabilidad a las rendijas
 	 */
-	private static Complejo[][] valoresRendijas(Complejo[][] dinamica,int rendijas) {
+	private static Matriz valoresRendijas(Matriz dinamica,int rendijas) {
 		for (int i = 0; i < rendijas; i++) {
-			dinamica[i+1][0] = new Complejo((double)1/Math.sqrt(rendijas),0); 			
-		}
-		return dinamica;
-	}
-
-	/**
-	 * Asigna una arrego de complejos el valor 0  
-	 * @param dinamica arreglo de complejos a dar valores
-	 * @return el arreglo con los valores en 0
-	 */
-	private static Complejo[][] mapACero(Complejo[][] dinamica) {
-		for (int i = 0; i < dinamica.length; i++) {
-			for (int j = 0; j < dinamica[0].length; j++) {
-				dinamica[i][j] = new Complejo(0,0);
-			}
+			dinamica.setNumero(i+1, 0, (double)1/Math.sqrt(rendijas), 0); 			
 		}
 		return dinamica;
 	}
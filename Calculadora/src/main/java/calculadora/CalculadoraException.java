@@ -12,6 +12,7 @@ public class CalculadoraException extends Exception {
 	public static final String NO_ES_CUADRADA = "La matriz no es cuadrada.";
 	public static final String MATRIZ_INVALIDA = "La matriz del sistema no es v�lida.";
 	public static final String IMPOSIBLE_CALCULAR = "Dados los datos es imosible relizar la operacion.";
+	public static final String QUBIT_INVALIDO = "El qubit no existe en el sistema o esta repetido.";
 	public static final String TIPO_INVALIDO = "El tipo ingresado no es valido. Recuerde 0 para cl�sico, 1 probabil�stico y 2 para cu�ntico.";
 	
 	public CalculadoraException(String message) {
@@ -1,5 +1,6 @@
 package calculadora;
 
+import java.util.concurrent.ForkJoinPool;
 
 public class CalculadoraMatrices{
 	
@@ -11,19 +12,13 @@ public class CalculadoraMatrices{
 	 * @throws CalculadoraException cuando es imposible sumar los vectores por dimensiones 
 	 */
 	public static Matriz sumaVectores(Matriz m1, Matriz m2) throws CalculadoraException {
-		if(m1.getNumeros().length!=m2.getNumeros().length || m1.getNumeros()[0].length!=m2.getNumeros()[0].length ) {
+		if(m1.getFilas()!=m2.getFilas() || m1.getColumnas()!=m2.getColumnas() ) {
 			throw new CalculadoraException(CalculadoraException.SUMA_MATRICES);
 		}
 		if (!m1.isVector() && !m2.isVector()) {
 			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
 		}
-		Complejo respuesta[][] = new Complejo[m1.getNumeros().length][m1.getNumeros()[0].length];
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			for (int j = 0; j < m1.getNumeros()[0].length; j++) {
-				respuesta[i][j] = Calculadora.suma(m1.getNumeros()[i][j], m2.getNumeros()[i][j]);
-			}
-		}
-		return new Matriz(respuesta);
+		return sumar(m1, m2);
 	}
 	/**
 	 * Da la inversa de un vector
@@ -35,12 +30,7 @@ public class CalculadoraMatrices{
 		if (!m1.isVector()) {
 			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
 		}
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			for (int j = 0; j < m1.getNumeros()[0].length; j++) {
-				m1.getNumeros()[i][j] = Calculadora.multiplicacion(new Complejo(-1,0),m1.getNumeros()[i][j]);
-			}
-		}
-		return m1;
+		return inversaMatriz(m1);
 	}
 	/**
 	 * Multiplica un vector por un escalar
@@ -53,12 +43,7 @@ public class CalculadoraMatrices{
 		if (!m1.isVector()) {
 			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
 		}
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			for (int j = 0; j < m1.getNumeros()[0].length; j++) {
-				m1.getNumeros()[i][j] = Calculadora.multiplicacion(new Complejo(escalar[0],escalar[1]),m1.getNumeros()[i][j]);
-			}
-		}
-		return m1;
+		return multiplicacionEscalarMatriz(escalar, m1);
 	}
 	
 	/**
@@ -69,16 +54,27 @@ public class CalculadoraMatrices{
 	 * @throws CalculadoraException cuando es imposible sumar las martices por as dimensiones 
 	 */
 	public static Matriz sumaMatriz(Matriz m1, Matriz m2) throws CalculadoraException {
-		if(m1.getNumeros().length!=m2.getNumeros().length || m1.getNumeros()[0].length!=m2.getNumeros()[0].length ) {
+		if(m1.getFilas()!=m2.getFilas() || m1.getColumnas()!=m2.getColumnas() ) {
 			throw new CalculadoraException(CalculadoraException.SUMA_MATRICES);
 		}
-		Complejo respuesta[][] = new Complejo[m1.getNumeros().length][m1.getNumeros()[0].length];
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			for (int j = 0; j < m1.getNumeros()[0].length; j++) {
-				respuesta[i][j] = Calculadora.suma(m1.getNumeros()[i][j], m2.getNumeros()[i][j]);
-			}
+		return sumar(m1, m2);
+	}
+	
+	/**
+	 * Suma dos matrices de las mismas dimensiones sobre sus arreglos
+	 * @param m1 matriz a sumar
+	 * @param m2 matriz a sumar
+	 * @return una matriz con el resultado de m1 + m2
+	 */
+	private static Matriz sumar(Matriz m1, Matriz m2) {
+		Matriz respuesta = new Matriz(m1.getFilas(), m1.getColumnas());
+		double[] a = m1.getDatos();
+		double[] b = m2.getDatos();
+		double[] c = respuesta.getDatos();
+		for (int i = 0; i < c.length; i++) {
+			c[i] = a[i] + b[i];
 		}
-		return new Matriz(respuesta);
+		return respuesta;
 	}
 	
 	/**
@@ -87,10 +83,9 @@ public class CalculadoraMatrices{
 	 * @return un matriz con la inversa de m1
 	 */
 	public static Matriz inversaMatriz(Matriz m1){
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			for (int j = 0; j < m1.getNumeros()[0].length; j++) {
-				m1.getNumeros()[i][j] = Calculadora.multiplicacion(new Complejo(-1,0),m1.getNumeros()[i][j]);
-			}
+		double[] a = m1.getDatos();
+		for (int i = 0; i < a.length; i++) {
+			a[i] = -a[i];
 		}
 		return m1;
 	}
@@ -101,10 +96,12 @@ public class CalculadoraMatrices{
 	 * @return una matriz con el resltado del escalar por la matriz
 	 */
 	public static Matriz multiplicacionEscalarMatriz(double[] escalar,Matriz m1){
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			for (int j = 0; j < m1.getNumeros()[0].length; j++) {
-				m1.getNumeros()[i][j] = Calculadora.multiplicacion(new Complejo(escalar[0],escalar[1]),m1.getNumeros()[i][j]);
-			}
+		double[] a = m1.getDatos();
+		for (int i = 0; i < a.length; i += 2) {
+			double real = escalar[0] * a[i] - escalar[1] * a[i+1];
+			double imaginaria = escalar[0] * a[i+1] + escalar[1] * a[i];
+			a[i] = real;
+			a[i+1] = imaginaria;
 		}
 		return m1;
 	}
@@ -115,14 +112,7 @@ public class CalculadoraMatrices{
 	 * @return una matriz con el resultado de transponer m1
 	 */
 	public static Matriz matrizTranspuesta(Matriz m1){
-		Complejo respuesta[][] = new Complejo[m1.getNumeros()[0].length][m1.getNumeros().length]; 
-		for (int i = 0; i < m1.getNumeros()[0].length; i++) {
-			for (int j = 0; j < m1.getNumeros().length; j++) {
-				respuesta[i][j] = m1.getNumeros()[j][i];
-			}
-		}
-		Matriz respuestaM = new Matriz(respuesta);
-		return respuestaM;
+		return transponer(m1, 1);
 	}	
 	
 	/**
@@ -131,13 +121,14 @@ public class CalculadoraMatrices{
 	 * @return una matriz con el resultado de conjugar m1
 	 */
 	public static Matriz matrizConjugada(Matriz m1){
-		Complejo respuesta[][] = new Complejo[m1.getNumeros().length][m1.getNumeros()[0].length]; 
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			for (int j = 0; j < m1.getNumeros()[0].length; j++) {
-				respuesta[i][j] = Calculadora.conjugado(m1.getNumeros()[i][j]);
-			}
+		Matriz respuesta = new Matriz(m1.getFilas(), m1.getColumnas());
+		double[] a = m1.getDatos();
+		double[] c = respuesta.getDatos();
+		for (int i = 0; i < a.length; i += 2) {
+			c[i] = a[i];
+			c[i+1] = -a[i+1];
 		}
-		return new Matriz(respuesta);
+		return respuesta;
 	}	
 	
 	/**
@@ -146,32 +137,61 @@ public class CalculadoraMatrices{
 	 * @return una matriz con el resultado de sacar la daga de m1
 	 */
 	public static Matriz matrizAdjunta(Matriz m1){
-		return matrizTranspuesta(matrizConjugada(m1));
+		return transponer(m1, -1);
+	}
+	
+	/**
+	 * Transpone una matriz multiplicando la parte imaginaria por un signo
+	 * @param m1 la matriz a transponer
+	 * @param signo 1 para transponer, -1 para ademas conjugar
+	 * @return una matriz con el resultado de transponer m1
+	 */
+	private static Matriz transponer(Matriz m1, int signo) {
+		int filas = m1.getFilas();
+		int columnas = m1.getColumnas();
+		Matriz respuesta = new Matriz(columnas, filas);
+		double[] a = m1.getDatos();
+		double[] c = respuesta.getDatos();
+		for (int i = 0; i < filas; i++) {
+			for (int j = 0; j < columnas; j++) {
+				int origen = 2 * (i * columnas + j);
+				int destino = 2 * (j * filas + i);
+				c[destino] = a[origen];
+				c[destino+1] = signo * a[origen+1];
+			}
+		}
+		return respuesta;
 	}
 	
 	/**
 	 * Calcula la accion de una matriz sobre un vector 
-	 * @param m1 la matriz 
+	 * @param m1 la matriz, densa o dispersa
+	 * @param m2 el vector 
+	 * @return Una matriz con el resultado de mutiplicar la matriz por el vector
+	 * @throws CalculadoraException cuando m2 no es un vector o es imposible multiplicar por dimensiones 
+	 */
+	public static Matriz matrizPorVector(Operador m1, Matriz m2) throws CalculadoraException {
+		return matrizPorVector(m1, m2, Paralelismo.getPool());
+	}
+	
+	/**
+	 * Calcula la accion de una matriz sobre un vector repartiendo las filas entre los hilos de un pool
+	 * @param m1 la matriz, densa o dispersa
 	 * @param m2 el vector 
+	 * @param pool el pool que hace el calculo, o null para hacerlo en un solo hilo
 	 * @return Una matriz con el resultado de mutiplicar la matriz por el vector
 	 * @throws CalculadoraException cuando m2 no es un vector o es imposible multiplicar por dimensiones 
 	 */
-	public static Matriz matrizPorVector(Matriz m1, Matriz m2) throws CalculadoraException {
-		if(m1.getNumeros()[0].length != m2.getNumeros().length) {
+	public static Matriz matrizPorVector(Operador m1, Matriz m2, ForkJoinPool pool) throws CalculadoraException {
+		if(m1.getColumnas() != m2.getFilas()) {
 			throw new CalculadoraException(CalculadoraException.SUMA_MATRICES);
 		}
-		if(m2.getNumeros()[0].length != 1) {
+		if(m2.getColumnas() != 1) {
 			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
 		}
-		Complejo[][] respuesta = new Complejo[m1.getNumeros().length][1];
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			Complejo suma = new Complejo(0,0); 
-			for (int j = 0; j < m2.getNumeros().length; j++) {
-				suma = Calculadora.suma(Calculadora.multiplicacion(m1.getNumeros()[i][j], m2.getNumeros()[j][0]),suma);
-			}
-			respuesta[i][0] = suma;
-		}
-		return new Matriz(respuesta);
+		Matriz respuesta = new Matriz(m1.getFilas(), 1);
+		m1.aplicar(m2.getDatos(), respuesta.getDatos(), 1, pool);
+		return respuesta;
 	}
 	
 	/**
@@ -182,7 +202,12 @@ public class CalculadoraMatrices{
 	 * @throws CalculadoraException excepciones de la multiplicacion de matrices.
 	 */
 	public static Complejo productoInterno(Matriz m1, Matriz m2) throws CalculadoraException {
-		return CalculadoraMatrices.matrizPorMatriz(CalculadoraMatrices.matrizAdjunta(m1),m2).getNumeros()[0][0];
+		if(m1.getFilas() != m2.getFilas()) {
+			throw new CalculadoraException(CalculadoraException.SUMA_MATRICES);
+		}
+		double[] resultado = new double[2];
+		Calculadora.productoPuntoConjugado(m1.getDatos(), 0, 2 * m1.getColumnas(), m2.getDatos(), 0, 2 * m2.getColumnas(), m2.getFilas(), resultado, 0);
+		return new Complejo(resultado[0], resultado[1]);
 	}
 	
 	/**
@@ -208,26 +233,30 @@ public class CalculadoraMatrices{
 	
 	/**
 	 * Multiplica dos matrices 
-	 * @param m1 la primera matriz
+	 * @param m1 la primera matriz, densa o dispersa
+	 * @param m2 la segunda matriz
+	 * @return una matriz con el resultado de mutiplicar las matrices
+	 * @throws CalculadoraException cuando es imposible multipicar las matrices por dimensiones 
+	 */
+	public static Matriz matrizPorMatriz(Operador m1, Matriz m2) throws CalculadoraException {
+		return matrizPorMatriz(m1, m2, Paralelismo.getPool());
+	}
+	
+	/**
+	 * Multiplica dos matrices repartiendo las filas del resultado entre los hilos de un pool
+	 * @param m1 la primera matriz, densa o dispersa
 	 * @param m2 la segunda matriz
+	 * @param pool el pool que hace el calculo, o null para hacerlo en un solo hilo
 	 * @return una matriz con el resultado de mutiplicar las matrices
 	 * @throws CalculadoraException cuando es imposible multipicar las matrices por dimensiones 
 	 */
-	public static Matriz matrizPorMatriz(Matriz m1, Matriz m2) throws CalculadoraException {
-		if(m1.getNumeros()[0].length != m2.getNumeros().length) {
+	public static Matriz matrizPorMatriz(Operador m1, Matriz m2, ForkJoinPool pool) throws CalculadoraException {
+		if(m1.getColumnas() != m2.getFilas()) {
 			throw new CalculadoraException(CalculadoraException.SUMA_MATRICES);
 		}
-		Complejo[][] respuesta = new Complejo[m1.getNumeros().length][m2.getNumeros()[0].length];
-		for (int i = 0; i < m1.getNumeros().length; i++) {
-			for(int k = 0; k < m2.getNumeros()[0].length; k++){
-				Complejo suma = new Complejo(0,0);
-				for (int j = 0; j < m2.getNumeros().length; j++) {
-					suma = Calculadora.suma(Calculadora.multiplicacion(m1.getNumeros()[i][j], m2.getNumeros()[j][k]),suma);
-				}
-				respuesta[i][k] = suma;
-			}
-		}
-		return new Matriz(respuesta);
+		Matriz respuesta = new Matriz(m1.getFilas(), m2.getColumnas());
+		m1.aplicar(m2.getDatos(), respuesta.getDatos(), m2.getColumnas(), pool);
+		return respuesta;
 	}
 	
 	/**
@@ -236,7 +265,21 @@ public class CalculadoraMatrices{
 	 * @return si la matriz es hermitania o no 
 	 */
 	public static boolean esHermitania(Matriz m) {
-		return m.equals(CalculadoraMatrices.matrizAdjunta(m));
+		if (m.getFilas() != m.getColumnas()) {
+			return false;
+		}
+		int n = m.getFilas();
+		double[] a = m.getDatos();
+		for (int i = 0; i < n; i++) {
+			for (int j = i; j < n; j++) {
+				int ij = 2 * (i * n + j);
+				int ji = 2 * (j * n + i);
+				if (a[ij] != a[ji] || a[ij+1] != -a[ji+1]) {
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 	
 	/**
@@ -246,20 +289,14 @@ public class CalculadoraMatrices{
 	 * @throws CalculadoraException Cuando la matriz dada no es cuadrada
 	 */
 	public static Matriz identidad(Matriz m) throws CalculadoraException {
-		if(m.getNumeros().length != m.getNumeros()[0].length) {
+		if(m.getFilas() != m.getColumnas()) {
 			throw new CalculadoraException(CalculadoraException.NO_ES_CUADRADA);
 		}
-		Complejo identidad[][] = new Complejo[m.getNumeros().length][m.getNumeros()[0].length];
-		for (int i = 0; i < identidad.length; i++) {
-			for (int j = 0; j < identidad[0].length; j++) {
-				if (i==j) {
-					identidad[i][j] = new Complejo(1,0);
-				}else {
-					identidad[i][j] = new Complejo(0,0);
-				}
-			}
+		Matriz identidad = new Matriz(m.getFilas(), m.getColumnas());
+		for (int i = 0; i < m.getFilas(); i++) {
+			identidad.setNumero(i, i, 1, 0);
 		}
-		return new Matriz(identidad);
+		return identidad;
 	}
 	
 	/**
@@ -268,13 +305,13 @@ public class CalculadoraMatrices{
 	 * @return una matriz con sus valores redondeados
 	 */
 	private static Matriz redondear(Matriz m) {
-		Complejo redondear[][] = new Complejo[m.getNumeros().length][m.getNumeros()[0].length];
-		for (int i = 0; i < redondear.length; i++) {
-			for (int j = 0; j < redondear[0].length; j++) {
-				redondear[i][j] = Calculadora.redondear(m.getNumeros()[i][j]);
-			}
+		Matriz redondear = new Matriz(m.getFilas(), m.getColumnas());
+		double[] a = m.getDatos();
+		double[] c = redondear.getDatos();
+		for (int i = 0; i < a.length; i++) {
+			c[i] = Math.round(a[i]);
 		}
-		return new Matriz(redondear);
+		return redondear;
 	}
 	
 	/**
@@ -294,15 +331,22 @@ public class CalculadoraMatrices{
 	 * @return Una matriz con el resutado de producto tensorial entre as matrices.
 	 */
 	public static Matriz productoTensorial(Matriz m,Matriz m2) {
-		Complejo[][] respuesta = new Complejo[m.getNumeros().length * m2.getNumeros().length][m.getNumeros()[0].length * m2.getNumeros()[0].length];
-		int p = m2.getNumeros().length;
-		int q = m2.getNumeros()[0].length;
-		for (int i = 0; i < respuesta.length; i++) {
-			for (int j = 0; j < respuesta[0].length; j++) {
-				respuesta[i][j] = Calculadora.multiplicacion(m.getNumeros()[i/p][j/q],m2.getNumeros()[i%p][j%q]);
+		int p = m2.getFilas();
+		int q = m2.getColumnas();
+		int columnas = m.getColumnas() * q;
+		Matriz respuesta = new Matriz(m.getFilas() * p, columnas);
+		double[] a = m.getDatos();
+		double[] b = m2.getDatos();
+		double[] c = respuesta.getDatos();
+		for (int i = 0; i < respuesta.getFilas(); i++) {
+			for (int j = 0; j < columnas; j++) {
+				int x = 2 * ((i/p) * m.getColumnas() + j/q);
+				int y = 2 * ((i%p) * q + j%q);
+				c[2 * (i * columnas + j)] = a[x] * b[y] - a[x+1] * b[y+1];
+				c[2 * (i * columnas + j) + 1] = a[x] * b[y+1] + a[x+1] * b[y];
 			}	
 		}
-		return new Matriz(respuesta);
+		return respuesta;
 	}
 	/**
 	 * Da el moduo al cuadrado de una matriz
@@ -310,28 +354,57 @@ public class CalculadoraMatrices{
 	 * @return el moduo al cuadrado de una matriz
 	 */
 	public static Matriz moduloAlCuadrado(Matriz m) {
-		Matriz nueva = new Matriz(m.getNumeros());
-		for (int i = 0; i < m.getNumeros().length; i++) {
-			for (int j = 0; j < m.getNumeros()[0].length; j++) {
-				double modulo = Math.pow(m.getNumeros()[i][j].getReal(),2)+Math.pow(m.getNumeros()[i][j].getImaginaria(),2);
-				nueva.getNumeros()[i][j] = new Complejo(modulo,0);
-			}
+		Matriz nueva = new Matriz(m.getFilas(), m.getColumnas());
+		double[] a = m.getDatos();
+		double[] c = nueva.getDatos();
+		for (int i = 0; i < a.length; i += 2) {
+			c[i] = a[i] * a[i] + a[i+1] * a[i+1];
 		}
 		return nueva;
 	}
 
 	/**
-	 * Calcula la potencia de una matriz
-	 * @param matriz la matriz a mutiplicar
-	 * @param potencia exponente al que se multiplica la matriz
-	 * @return una matriz con el resultado de la potencia
-	 * @throws CalculadoraException excepciones en el calculo de la multiplicacion
+	 * Calcula la potencia de una matriz cuadrada elevando al cuadrado: usa del orden de log2(k) productos
+	 * en lugar de k.
+	 * @param m la matriz
+	 * @param k exponente, mayor o igual a cero
+	 * @return una matriz nueva con m elevada a la k
+	 * @throws CalculadoraException cuando la matriz no es cuadrada o el exponente es negativo
 	 */
-	private static Matriz calcularPotencia(Matriz matriz, int potencia) throws CalculadoraException {
-		Matriz potenciaM = matriz;
-		for (int i = 0; i < potencia; i++) {
-			potenciaM = CalculadoraMatrices.matrizPorMatriz(potenciaM, potenciaM);
+	public static Matriz potencia(Matriz m, long k) throws CalculadoraException {
+		return potencia(m, k, Paralelismo.getPool());
+	}
+
+	/**
+	 * Calcula la potencia de una matriz cuadrada elevando al cuadrado, repartiendo cada producto entre los hilos de un pool
+	 * @param m la matriz
+	 * @param k exponente, mayor o igual a cero
+	 * @param pool el pool que hace los productos, o null para hacerlos en un solo hilo
+	 * @return una matriz nueva con m elevada a la k
+	 * @throws CalculadoraException cuando la matriz no es cuadrada o el exponente es negativo
+	 */
+	public static Matriz potencia(Matriz m, long k, ForkJoinPool pool) throws CalculadoraException {
+		if (m.getFilas() != m.getColumnas()) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_CUADRADA);
+		}
+		if (k < 0) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		if (k == 0) {
+			return identidad(m);
+		}
+		Matriz base = m;
+		Matriz respuesta = null;
+		while (true) {
+			if ((k & 1) != 0) {
+				respuesta = respuesta == null ? base : matrizPorMatriz(respuesta, base, pool);
+			}
+			k >>>= 1;
+			if (k == 0) {
+				break;
+			}
+			base = matrizPorMatriz(base, base, pool);
 		}
-		return matriz;
+		return respuesta == m ? new Matriz(m.getFilas(), m.getColumnas(), m.getDatos().clone()) : respuesta;
 	}
-}
\ No newline at end of file
+}
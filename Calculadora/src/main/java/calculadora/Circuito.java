@@ -0,0 +1,113 @@
+package calculadora;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Circuito cuantico como una secuencia de operaciones sobre un estado inicial de la base computacional.
+ * Las operaciones se agregan en orden y ejecutar() siempre las aplica sobre un VectorEstado. Las
+ * probabilidades de EjecutorCircuitos usan en cambio una TablaEstabilizadores cuando el circuito solo tiene
+ * compuertas de Clifford, que no limita la cantidad de qubits.
+ */
+public class Circuito {
+	private final int qubits;
+	private final int inicial;
+	private final List<Operacion> operaciones = new ArrayList<Operacion>();
+
+	/**
+	 * Crea un circuito vacio que parte de un estado de la base
+	 * @param qubits cantidad de qubits del circuito
+	 * @param inicial el estado de la base de donde parte; el qubit 0 es el bit mas significativo, y con mas
+	 * de 31 qubits los bits del indice corresponden a los ultimos qubits
+	 * @throws CalculadoraException cuando la cantidad de qubits o el estado inicial no son validos
+	 */
+	public Circuito(int qubits, int inicial) throws CalculadoraException {
+		if (qubits < 1) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		if (inicial < 0 || (qubits < 31 && inicial >= 1 << qubits)) {
+			throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+		}
+		this.qubits = qubits;
+		this.inicial = inicial;
+	}
+
+	/**
+	 * Crea un circuito vacio que parte de |0...0>
+	 * @param qubits cantidad de qubits del circuito
+	 * @throws CalculadoraException cuando la cantidad de qubits no es valida
+	 */
+	public Circuito(int qubits) throws CalculadoraException {
+		this(qubits, 0);
+	}
+
+	/**
+	 * Agrega al final la aplicacion de una compuerta
+	 * @param compuerta la compuerta
+	 * @param objetivos los qubits sobre los que actua, el primero es el bit mas significativo de la compuerta
+	 * @return este circuito, para seguir agregando
+	 * @throws CalculadoraException cuando los qubits no corresponden a la compuerta o al circuito
+	 */
+	public Circuito agregar(Compuerta compuerta, int... objetivos) throws CalculadoraException {
+		return agregar(new Operacion(compuerta, objetivos));
+	}
+
+	/**
+	 * Agrega una operacion al final
+	 * @param operacion la operacion
+	 * @return este circuito, para seguir agregando
+	 * @throws CalculadoraException cuando algun qubit de la operacion no existe en el circuito
+	 */
+	public Circuito agregar(Operacion operacion) throws CalculadoraException {
+		for (int q : operacion.objetivos()) {
+			if (q >= qubits) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+		}
+		operaciones.add(operacion);
+		return this;
+	}
+
+	/**
+	 * Da la cantidad de qubits del circuito
+	 * @return la cantidad de qubits
+	 */
+	public int getQubits() {
+		return qubits;
+	}
+
+	/**
+	 * Da el estado de la base de donde parte el circuito
+	 * @return el indice del estado inicial
+	 */
+	public int getInicial() {
+		return inicial;
+	}
+
+	/**
+	 * Da las operaciones del circuito en orden
+	 * @return una vista no modificable de las operaciones
+	 */
+	public List<Operacion> getOperaciones() {
+		return Collections.unmodifiableList(operaciones);
+	}
+
+	/**
+	 * Ejecuta el circuito desde su estado inicial, sin usar ningun cache
+	 * @return el estado final
+	 * @throws CalculadoraException excepciones al aplicar las compuertas
+	 */
+	public VectorEstado ejecutar() throws CalculadoraException {
+		VectorEstado estado = new VectorEstado(qubits, inicial);
+		for (Operacion operacion : operaciones) {
+			operacion.aplicar(estado);
+		}
+		return estado;
+	}
+
+	@Override
+	public String toString() {
+		return qubits + " qubits desde |" + inicial + ">: " + operaciones;
+	}
+}
@@ -5,17 +5,18 @@ public class Complejo {
 	private double imaginaria;
 	private double modulo;
 	private double fase;
+	private boolean moduloCalculado;
+	private boolean faseCalculada;
 	
 	/**
-	 * Crea un numero complejo dadas sus coordenadas rectangulares
+	 * Crea un numero complejo dadas sus coordenadas rectangulares.
+	 * El modulo y la fase se calculan la primera vez que se piden.
 	 * @param real la parte real del numero
 	 * @param imaginaria la parte imaginaria del numero
 	 */
 	public Complejo(double real,double imaginaria) {
 		this.real = real;
 		this.imaginaria = imaginaria;
-		setFase();
-		setModulo();
 	}
 	
 	/**
@@ -29,6 +30,8 @@ public class Complejo {
 			this.fase = fase;
 			this.modulo = modulo;
 		}
+		moduloCalculado = true;
+		faseCalculada = true;
 		setRectangular();
 	}
 
@@ -61,14 +64,18 @@ public class Complejo {
 	 * Calcula y asigna el modulo del numero
 	 */
 	public void setModulo() {
-		this.modulo = Math.sqrt(Math.pow(real, 2) + Math.pow(imaginaria, 2));		
+		this.modulo = Math.sqrt(real * real + imaginaria * imaginaria);
+		moduloCalculado = true;
 	}
 
 	/**
-	 * Da le modulo del numero
+	 * Da le modulo del numero, calculandolo si aun no se ha hecho
 	 * @return el modulo del numero
 	 */
 	public double getModulo() {
+		if (!moduloCalculado) {
+			setModulo();
+		}
 		return modulo;
 	}
 	
@@ -83,13 +90,17 @@ public class Complejo {
 		}else if (real>0 && imaginaria<0) {
 			fase+=360;
 		}
+		faseCalculada = true;
 	}
 	
 	/**
-	 * Da la fase del numero
+	 * Da la fase del numero, calculandola si aun no se ha hecho
 	 * @return la fase del numero
 	 */
 	public double getFase() {
+		if (!faseCalculada) {
+			setFase();
+		}
 		return fase;
 	}
 	
@@ -0,0 +1,146 @@
+package calculadora;
+
+import java.util.Arrays;
+
+/**
+ * Compuerta cuantica de k qubits: una matriz unitaria de 2^k x 2^k que no cambia despues de creada,
+ * por lo que se puede compartir entre hilos sin sincronizacion. Los numeros se guardan en un arreglo
+ * intercalado (real, imaginaria) ordenado por filas que los nucleos de simulacion leen directamente.
+ */
+public class Compuerta {
+	private final String nombre;
+	private final int qubits;
+	private final double[] datos;
+	private int huella;
+
+	/**
+	 * Crea una compuerta copiando los numeros de una matriz
+	 * @param nombre nombre de la compuerta
+	 * @param matriz la matriz de la compuerta, de 2^k x 2^k
+	 * @throws CalculadoraException cuando la matriz no es cuadrada o su tamano no es una potencia de 2
+	 */
+	public Compuerta(String nombre, Matriz matriz) throws CalculadoraException {
+		if (matriz.getFilas() != matriz.getColumnas()) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_CUADRADA);
+		}
+		if (matriz.getFilas() < 2 || Integer.bitCount(matriz.getFilas()) != 1) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		this.nombre = nombre;
+		this.qubits = Integer.numberOfTrailingZeros(matriz.getFilas());
+		this.datos = matriz.getDatos().clone();
+	}
+
+	/**
+	 * Crea una compuerta sobre un arreglo que nadie mas modifica. El arreglo no se copia.
+	 * @param nombre nombre de la compuerta
+	 * @param qubits cantidad de qubits de la compuerta
+	 * @param datos numeros de la matriz en arreglo intercalado, de 2 * 4^qubits posiciones
+	 */
+	Compuerta(String nombre, int qubits, double[] datos) {
+		this.nombre = nombre;
+		this.qubits = qubits;
+		this.datos = datos;
+	}
+
+	/**
+	 * Da el nombre de la compuerta
+	 * @return el nombre
+	 */
+	public String getNombre() {
+		return nombre;
+	}
+
+	/**
+	 * Da la cantidad de qubits sobre los que actua la compuerta
+	 * @return la cantidad de qubits
+	 */
+	public int getQubits() {
+		return qubits;
+	}
+
+	/**
+	 * Da la dimension de la matriz de la compuerta
+	 * @return 2 a la cantidad de qubits
+	 */
+	public int getDimension() {
+		return 1 << qubits;
+	}
+
+	/**
+	 * Da los numeros de la compuerta para los nucleos de simulacion. No es una copia y no se debe modificar.
+	 * @return el arreglo intercalado de la matriz
+	 * @throws CalculadoraException cuando la compuerta no guarda su matriz y es demasiado grande para construirla
+	 */
+	double[] datos() throws CalculadoraException {
+		return datos;
+	}
+
+	/**
+	 * Aplica la compuerta sobre los qubits de un vector de estado. Por defecto usa los nucleos del vector
+	 * con la matriz de la compuerta; las compuertas que no guardan su matriz lo sobreescriben.
+	 * @param estado el vector de estado
+	 * @param mascaras mascaras de los qubits, la primera es el bit mas significativo de la compuerta
+	 * @throws CalculadoraException cuando no se pueden obtener los numeros de la compuerta
+	 */
+	void aplicar(VectorEstado estado, int[] mascaras) throws CalculadoraException {
+		estado.aplicar(datos(), mascaras);
+	}
+
+	/**
+	 * Da un hash de los numeros de la compuerta, calculado una sola vez
+	 * @return el hash de los numeros
+	 */
+	int huella() {
+		int h = huella;
+		if (h == 0) {
+			h = Arrays.hashCode(datos);
+			huella = h;
+		}
+		return h;
+	}
+
+	/**
+	 * Dice si otra compuerta tiene los mismos numeros, sin copiarlos
+	 * @param otra la otra compuerta
+	 * @return si es la misma compuerta o tiene los mismos numeros
+	 */
+	boolean mismosNumeros(Compuerta otra) {
+		return this == otra || (getClass() == otra.getClass() && qubits == otra.qubits && Arrays.equals(datos, otra.datos));
+	}
+
+	/**
+	 * Copia la compuerta en una matriz
+	 * @return una matriz nueva con los numeros de la compuerta
+	 * @throws CalculadoraException cuando la compuerta es demasiado grande para construir su matriz
+	 */
+	public Matriz aMatriz() throws CalculadoraException {
+		return copiar(datos());
+	}
+
+	/**
+	 * Copia los numeros en una matriz de la dimension de la compuerta
+	 * @param numeros el arreglo intercalado
+	 * @return la matriz nueva
+	 */
+	private Matriz copiar(double[] numeros) {
+		Matriz matriz = new Matriz(getDimension(), getDimension());
+		System.arraycopy(numeros, 0, matriz.getDatos(), 0, numeros.length);
+		return matriz;
+	}
+
+	@Override
+	public int hashCode() {
+		return huella();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Compuerta && mismosNumeros((Compuerta) obj);
+	}
+
+	@Override
+	public String toString() {
+		return nombre + "\n" + copiar(datos).toString();
+	}
+}
@@ -0,0 +1,187 @@
+package calculadora;
+
+/**
+ * Biblioteca de compuertas cuanticas de uso comun. Todas se crean una sola vez al cargar la clase y
+ * son inmutables, por lo que varias simulaciones las pueden usar al mismo tiempo sin bloqueos.
+ * En las compuertas de dos qubits el primer qubit es el bit mas significativo (el control).
+ */
+public final class Compuertas {
+
+	private static final double RAIZ = (double)1/Math.sqrt(2);
+
+	/**
+	 * Identidad de un qubit
+	 */
+	public static final Compuerta I = crear("I", 1,
+			1, 0, 0, 0,
+			0, 0, 1, 0);
+
+	/**
+	 * Hadamard
+	 */
+	public static final Compuerta H = crear("H", 1,
+			RAIZ, 0, RAIZ, 0,
+			RAIZ, 0, -RAIZ, 0);
+
+	/**
+	 * Pauli X (negacion)
+	 */
+	public static final Compuerta X = crear("X", 1,
+			0, 0, 1, 0,
+			1, 0, 0, 0);
+
+	/**
+	 * Pauli Y
+	 */
+	public static final Compuerta Y = crear("Y", 1,
+			0, 0, 0, -1,
+			0, 1, 0, 0);
+
+	/**
+	 * Pauli Z
+	 */
+	public static final Compuerta Z = crear("Z", 1,
+			1, 0, 0, 0,
+			0, 0, -1, 0);
+
+	/**
+	 * Fase S = diag(1, i)
+	 */
+	public static final Compuerta S = crear("S", 1,
+			1, 0, 0, 0,
+			0, 0, 0, 1);
+
+	/**
+	 * Fase T = diag(1, e^(i*pi/4))
+	 */
+	public static final Compuerta T = crear("T", 1,
+			1, 0, 0, 0,
+			0, 0, RAIZ, RAIZ);
+
+	/**
+	 * X controlada: niega el segundo qubit cuando el primero es 1
+	 */
+	public static final Compuerta CNOT = crear("CNOT", 2,
+			1, 0, 0, 0, 0, 0, 0, 0,
+			0, 0, 1, 0, 0, 0, 0, 0,
+			0, 0, 0, 0, 0, 0, 1, 0,
+			0, 0, 0, 0, 1, 0, 0, 0);
+
+	/**
+	 * Z controlada
+	 */
+	public static final Compuerta CZ = crear("CZ", 2,
+			1, 0, 0, 0, 0, 0, 0, 0,
+			0, 0, 1, 0, 0, 0, 0, 0,
+			0, 0, 0, 0, 1, 0, 0, 0,
+			0, 0, 0, 0, 0, 0, -1, 0);
+
+	/**
+	 * Intercambio de dos qubits
+	 */
+	public static final Compuerta SWAP = crear("SWAP", 2,
+			1, 0, 0, 0, 0, 0, 0, 0,
+			0, 0, 0, 0, 1, 0, 0, 0,
+			0, 0, 1, 0, 0, 0, 0, 0,
+			0, 0, 0, 0, 0, 0, 1, 0);
+
+	/**
+	 * Oraculo de Deutsch para f(x) = 0: |x,y> -> |x,y>
+	 */
+	public static final Compuerta ORACULO_CERO = crear("U0", 2,
+			1, 0, 0, 0, 0, 0, 0, 0,
+			0, 0, 1, 0, 0, 0, 0, 0,
+			0, 0, 0, 0, 1, 0, 0, 0,
+			0, 0, 0, 0, 0, 0, 1, 0);
+
+	/**
+	 * Oraculo de Deutsch para f(x) = 1: |x,y> -> |x,not y>
+	 */
+	public static final Compuerta ORACULO_UNO = crear("U1", 2,
+			0, 0, 1, 0, 0, 0, 0, 0,
+			1, 0, 0, 0, 0, 0, 0, 0,
+			0, 0, 0, 0, 0, 0, 1, 0,
+			0, 0, 0, 0, 1, 0, 0, 0);
+
+	/**
+	 * Oraculo de Deutsch para f(x) = x: |x,y> -> |x,y xor x>
+	 */
+	public static final Compuerta ORACULO_IDENTIDAD = crear("Ui", 2,
+			1, 0, 0, 0, 0, 0, 0, 0,
+			0, 0, 1, 0, 0, 0, 0, 0,
+			0, 0, 0, 0, 0, 0, 1, 0,
+			0, 0, 0, 0, 1, 0, 0, 0);
+
+	/**
+	 * Oraculo de Deutsch para f(x) = not x: |x,y> -> |x,y xor not x>
+	 */
+	public static final Compuerta ORACULO_NEGACION = crear("Uc", 2,
+			0, 0, 1, 0, 0, 0, 0, 0,
+			1, 0, 0, 0, 0, 0, 0, 0,
+			0, 0, 0, 0, 1, 0, 0, 0,
+			0, 0, 0, 0, 0, 0, 1, 0);
+
+	private Compuertas() {
+	}
+
+	/**
+	 * Crea la compuerta de fase diag(1, e^(i*angulo))
+	 * @param angulo el angulo de la fase en radianes
+	 * @return la compuerta de fase
+	 */
+	public static Compuerta fase(double angulo) {
+		return crear("P(" + angulo + ")", 1,
+				1, 0, 0, 0,
+				0, 0, Math.cos(angulo), Math.sin(angulo));
+	}
+
+	/**
+	 * Crea la version controlada de una compuerta de un qubit: el primer qubit es el control
+	 * @param u la compuerta de un qubit
+	 * @return la compuerta de dos qubits que aplica u al segundo qubit cuando el primero es 1
+	 * @throws CalculadoraException cuando la compuerta no es de un qubit
+	 */
+	public static Compuerta controlada(Compuerta u) throws CalculadoraException {
+		if (u.getQubits() != 1) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		double[] g = u.datos();
+		double[] datos = new double[32];
+		datos[0] = 1;
+		datos[10] = 1;
+		datos[20] = g[0]; datos[21] = g[1]; datos[22] = g[2]; datos[23] = g[3];
+		datos[28] = g[4]; datos[29] = g[5]; datos[30] = g[6]; datos[31] = g[7];
+		return new Compuerta("C" + u.getNombre(), 2, datos);
+	}
+
+	/**
+	 * Crea la transformada cuantica de Fourier, que se aplica con una FFT sin construir su matriz
+	 * @param qubits cantidad de qubits sobre los que actua
+	 * @return la transformada
+	 * @throws CalculadoraException cuando la cantidad de qubits no es valida
+	 */
+	public static TransformadaFourier fourier(int qubits) throws CalculadoraException {
+		return new TransformadaFourier(qubits, false);
+	}
+
+	/**
+	 * Crea la transformada cuantica de Fourier inversa
+	 * @param qubits cantidad de qubits sobre los que actua
+	 * @return la transformada inversa
+	 * @throws CalculadoraException cuando la cantidad de qubits no es valida
+	 */
+	public static TransformadaFourier fourierInversa(int qubits) throws CalculadoraException {
+		return new TransformadaFourier(qubits, true);
+	}
+
+	/**
+	 * Crea una compuerta a partir de sus numeros
+	 * @param nombre nombre de la compuerta
+	 * @param qubits cantidad de qubits
+	 * @param datos partes reales e imaginarias intercaladas, fila por fila
+	 * @return la compuerta
+	 */
+	private static Compuerta crear(String nombre, int qubits, double... datos) {
+		return new Compuerta(nombre, qubits, datos);
+	}
+}
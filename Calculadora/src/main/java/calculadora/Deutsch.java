@@ -2,85 +2,49 @@ package calculadora;
 
 public class Deutsch {
 	
-	static Matriz cero,uno,u0,u1,ui,uc,hadamart;
-
 	/**
-	 * Crea las matrices necasarias para la simulaci�n
+	 * Ejecutor compartido: las cuatro simulaciones comparten |01> y H en ambos qubits antes del oraculo
 	 */
-	private static void crearMatrices() {
-		double[][] u0d = {{1,0},{0,0},{0,0},{0,0},
-						 {0,0},{1,0},{0,0},{0,0},
-						 {0,0},{0,0},{1,0},{0,0},
-						 {0,0},{0,0},{0,0},{1,0}};
-		
-		double[][] u1d = {{0,0},{1,0},{0,0},{0,0},
-				 		 {1,0},{0,0},{0,0},{0,0},
-				 		 {0,0},{0,0},{0,0},{1,0},
-				 		 {0,0},{0,0},{1,0},{0,0}};
-		
-		double[][] uid = {{1,0},{0,0},{0,0},{0,0},
-						 {0,0},{1,0},{0,0},{0,0},
-						 {0,0},{0,0},{0,0},{1,0},
-						 {0,0},{0,0},{1,0},{0,0}};
-		
-		double[][] ucd = {{0,0},{1,0},{0,0},{0,0},
-						 {1,0},{0,0},{0,0},{0,0},
-						 {0,0},{0,0},{1,0},{0,0},
-						 {0,0},{0,0},{0,0},{1,0}};
-		double raiz = (double)1/Math.sqrt(2);
-		
-		double[][] had = {{raiz,0},{raiz,0},
-						 {raiz,0},{raiz*-1,0}};
-		
-		double[][] cerod = {{1,0},{0,0}};
-		double[][] unod = {{0,0},{1,0}};
-		
-		try {
-			u0 = new Matriz(4,4,u0d);
-			u1 = new Matriz(4,4,u1d);
-			ui = new Matriz(4,4,uid);
-			uc = new Matriz(4,4,ucd);
-			hadamart = new Matriz(2,2,had);
-			cero = new Matriz(2,1,cerod);
-			uno = new Matriz(2,1,unod);
-		} catch (CalculadoraException e) {
-			e.printStackTrace();
-		}
-	}
+	private static final EjecutorCircuitos EJECUTOR = new EjecutorCircuitos(1L << 20);
 	
 	public static Matriz simulacionU0() throws CalculadoraException {
-		crearMatrices();
-		Matriz phi0 = CalculadoraMatrices.productoTensorial(cero, uno);
-		Matriz phi1 = CalculadoraMatrices.matrizPorMatriz(CalculadoraMatrices.productoTensorial(hadamart, hadamart), phi0);
-		Matriz phi2 = CalculadoraMatrices.matrizPorMatriz(u0, phi1);
-		Matriz phi3 = CalculadoraMatrices.matrizPorMatriz(CalculadoraMatrices.productoTensorial(hadamart, CalculadoraMatrices.identidad(hadamart)), phi2);
-		return CalculadoraMatrices.moduloAlCuadrado(phi3);
+		return simular(Compuertas.ORACULO_CERO);
 	}
 	
 	public static Matriz simulacionU1() throws CalculadoraException {
-		crearMatrices();
-		Matriz phi0 = CalculadoraMatrices.productoTensorial(cero, uno);
-		Matriz phi1 = CalculadoraMatrices.matrizPorMatriz(CalculadoraMatrices.productoTensorial(hadamart, hadamart), phi0);
-		Matriz phi2 = CalculadoraMatrices.matrizPorMatriz(u1, phi1);
-		Matriz phi3 = CalculadoraMatrices.matrizPorMatriz(CalculadoraMatrices.productoTensorial(hadamart, CalculadoraMatrices.identidad(hadamart)), phi2);
-		return CalculadoraMatrices.moduloAlCuadrado(phi3);
+		return simular(Compuertas.ORACULO_UNO);
 	}
 	
 	public static Matriz simulacionUi() throws CalculadoraException {
-		crearMatrices();
-		Matriz phi0 = CalculadoraMatrices.productoTensorial(cero, uno);
-		Matriz phi1 = CalculadoraMatrices.matrizPorMatriz(CalculadoraMatrices.productoTensorial(hadamart, hadamart), phi0);
-		Matriz phi2 = CalculadoraMatrices.matrizPorMatriz(ui, phi1);
-		Matriz phi3 = CalculadoraMatrices.matrizPorMatriz(CalculadoraMatrices.productoTensorial(hadamart, CalculadoraMatrices.identidad(hadamart)), phi2);
-		return CalculadoraMatrices.moduloAlCuadrado(phi3);
+		return simular(Compuertas.ORACULO_IDENTIDAD);
 	}
 	
 	public static Matriz simulacionUc() throws CalculadoraException {
-		crearMatrices();
-		Matriz phi0 = CalculadoraMatrices.productoTensorial(cero, uno);
-		Matriz phi1 = CalculadoraMatrices.matrizPorMatriz(CalculadoraMatrices.productoTensorial(hadamart, hadamart), phi0);
-		Matriz phi2 = CalculadoraMatrices.matrizPorMatriz(uc, phi1);
-		Matriz phi3 = CalculadoraMatrices.matrizPorMatriz(CalculadoraMatrices.productoTensorial(hadamart, CalculadoraMatrices.identidad(hadamart)), phi2);
-		return CalculadoraMatrices.moduloAlCuadrado(phi3);
+		return simular(Compuertas.ORACULO_NEGACION);
+	}
+	
+	/**
+	 * Simula el algoritmo de Deutsch con un oraculo sobre el vector de estado, compuerta por compuerta.
+	 * El estado antes del oraculo se toma del cache del ejecutor cuando ya se calculo.
+	 * @param oraculo la compuerta de dos qubits del oraculo
+	 * @return las probabilidades de medir cada estado al final del algoritmo
+	 * @throws CalculadoraException excepciones al aplicar las compuertas
+	 */
+	private static Matriz simular(Compuerta oraculo) throws CalculadoraException {
+		return EJECUTOR.ejecutar(circuito(oraculo)).getProbabilidades();
+	}
+	
+	/**
+	 * Construye el circuito del algoritmo de Deutsch para un oraculo
+	 * @param oraculo la compuerta de dos qubits del oraculo
+	 * @return el circuito que parte de |01>
+	 * @throws CalculadoraException excepciones al agregar las compuertas
+	 */
+	static Circuito circuito(Compuerta oraculo) throws CalculadoraException {
+		return new Circuito(2, 1)
+				.agregar(Compuertas.H, 0)
+				.agregar(Compuertas.H, 1)
+				.agregar(oraculo, 0, 1)
+				.agregar(Compuertas.H, 0);
 	}
-}
\ No newline at end of file
+}
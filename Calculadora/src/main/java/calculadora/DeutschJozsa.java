@@ -1,54 +1,171 @@
 package calculadora;
 
+import java.util.function.IntPredicate;
+
 public class DeutschJozsa {
-    private static Matriz prueba;
-    private static Matriz hadamart;
-    private static Matriz uno;
-    private static Matriz cero;
+    /**
+     * Oraculo de prueba de tres qubits: intercambia |100> y |101>
+     */
+    private static final Compuerta PRUEBA = new Compuerta("Prueba", 3, new double[] {
+            1,0, 0,0, 0,0, 0,0, 0,0, 0,0, 0,0, 0,0,
+            0,0, 1,0, 0,0, 0,0, 0,0, 0,0, 0,0, 0,0,
+            0,0, 0,0, 1,0, 0,0, 0,0, 0,0, 0,0, 0,0,
+            0,0, 0,0, 0,0, 1,0, 0,0, 0,0, 0,0, 0,0,
+            0,0, 0,0, 0,0, 0,0, 0,0, 1,0, 0,0, 0,0,
+            0,0, 0,0, 0,0, 0,0, 1,0, 0,0, 0,0, 0,0,
+            0,0, 0,0, 0,0, 0,0, 0,0, 0,0, 1,0, 0,0,
+            0,0, 0,0, 0,0, 0,0, 0,0, 0,0, 0,0, 1,0});
+
+    public static Matriz simulacionU0() throws CalculadoraException {
+        VectorEstado estado = new VectorEstado(3, 2);
+        for (int q = 0; q < 3; q++) {
+            estado.aplicar(Compuertas.H, q);
+        }
+        estado.aplicar(PRUEBA, 0, 1, 2);
+        estado.aplicar(Compuertas.H, 0);
+        estado.aplicar(Compuertas.H, 1);
+        return estado.getProbabilidades();
+    }
 
     /**
-     * Crea las matrices necasarias para la simulaci�n
+     * Simula el algoritmo de Deutsch-Jozsa para una funcion de n bits. El oraculo se aplica como un cambio
+     * de fase (-1)^f(x) sobre el vector de estado, equivalente al oraculo con el qubit auxiliar en |->.
+     * @param n cantidad de bits de entrada de la funcion
+     * @param oraculo la funcion f, que recibe el indice x de 0 a 2^n - 1
+     * @return el estado final de los n qubits de entrada
+     * @throws CalculadoraException cuando la cantidad de bits no es valida
      */
-    private static void crearMatrices() {
-        double[][] u0d = {{1,0},{0,0},{0,0},{0,0},{0,0},{0,0},{0,0},{0,0},
-                {0,0},{1,0},{0,0},{0,0},{0,0},{0,0},{0,0},{0,0},
-                {0,0},{0,0},{1,0},{0,0},{0,0},{0,0},{0,0},{0,0},
-                {0,0},{0,0},{0,0},{1,0},{0,0},{0,0},{0,0},{0,0},
-                {0,0},{0,0},{0,0},{0,0},{0,0},{1,0},{0,0},{0,0},
-                {0,0},{0,0},{0,0},{0,0},{1,0},{0,0},{0,0},{0,0},
-                {0,0},{0,0},{0,0},{0,0},{0,0},{0,0},{1,0},{0,0},
-                {0,0},{0,0},{0,0},{0,0},{0,0},{0,0},{0,0},{1,0}};
+    public static VectorEstado simular(int n, IntPredicate oraculo) throws CalculadoraException {
+        VectorEstado estado = new VectorEstado(n);
+        for (int q = 0; q < n; q++) {
+            estado.aplicar(Compuertas.H, q);
+        }
+        estado.aplicarFase(oraculo);
+        for (int q = 0; q < n; q++) {
+            estado.aplicar(Compuertas.H, q);
+        }
+        return estado;
+    }
 
-        double raiz = (double)1/Math.sqrt(2);
+    /**
+     * Simula el algoritmo de Deutsch-Jozsa para una funcion dada por su tabla de verdad
+     * @param n cantidad de bits de entrada de la funcion
+     * @param tabla la tabla de verdad empaquetada: f(x) es el bit x % 64 de tabla[x / 64]
+     * @return el estado final de los n qubits de entrada
+     * @throws CalculadoraException cuando la cantidad de bits no es valida o la tabla es muy corta
+     */
+    public static VectorEstado simular(int n, long[] tabla) throws CalculadoraException {
+        validarTabla(n, tabla);
+        return simular(n, comoPredicado(tabla));
+    }
 
-        double[][] had = {{raiz,0},{raiz,0},
-                {raiz,0},{raiz*-1,0}};
+    /**
+     * Decide si una funcion de n bits, que se promete constante o balanceada, es constante. Solo se necesita
+     * la amplitud final de |0...0>, que despues de H, el oraculo de fase y H es (1/2^n) * suma de (-1)^f(x);
+     * se calcula directamente en O(2^n) evaluaciones de la funcion, sin guardar el vector de estado.
+     * @param n cantidad de bits de entrada de la funcion
+     * @param oraculo la funcion f, que recibe el indice x de 0 a 2^n - 1
+     * @return si la probabilidad de medir |0...0> es 1, es decir si la funcion es constante
+     * @throws CalculadoraException cuando la cantidad de bits no es valida
+     */
+    public static boolean esConstante(int n, IntPredicate oraculo) throws CalculadoraException {
+        validarBits(n);
+        int dimension = 1 << n;
+        int unos = 0;
+        for (int x = 0; x < dimension; x++) {
+            if (oraculo.test(x)) {
+                unos++;
+            }
+        }
+        return unos == 0 || unos == dimension;
+    }
 
-        double[][] cerod = {{1,0},{0,0}};
-        double[][] unod = {{0,0},{1,0}};
+    /**
+     * Decide si una funcion dada por su tabla de verdad, que se promete constante o balanceada, es constante.
+     * Cuenta los unos de la tabla de a 64 bits.
+     * @param n cantidad de bits de entrada de la funcion
+     * @param tabla la tabla de verdad empaquetada: f(x) es el bit x % 64 de tabla[x / 64]
+     * @return si la funcion es constante
+     * @throws CalculadoraException cuando la cantidad de bits no es valida o la tabla es muy corta
+     */
+    public static boolean esConstante(int n, long[] tabla) throws CalculadoraException {
+        validarTabla(n, tabla);
+        long dimension = 1L << n;
+        long unos = 0;
+        if (n < 6) {
+            unos = Long.bitCount(tabla[0] & ((1L << dimension) - 1));
+        } else {
+            for (int i = 0; i < dimension >>> 6; i++) {
+                unos += Long.bitCount(tabla[i]);
+            }
+        }
+        return unos == 0 || unos == dimension;
+    }
 
-        try {
-            prueba = new Matriz(8,8,u0d);
-            hadamart = new Matriz(2,2,had);
-            cero = new Matriz(2,1,cerod);
-            uno = new Matriz(2,1,unod);
-        } catch (CalculadoraException e) {
-            e.printStackTrace();
+    /**
+     * Construye el circuito de Deutsch-Jozsa para una funcion afin f(x) = a.x xor b, cuyo oraculo es un CNOT
+     * de cada bit de entrada con a_i = 1 hacia el qubit auxiliar y una X si b es 1. Solo usa compuertas de
+     * Clifford, por lo que se puede simular con la tabla de estabilizadores para cientos de bits.
+     * @param a los coeficientes de la funcion, uno por bit de entrada
+     * @param b el termino independiente
+     * @return el circuito de n+1 qubits, con el auxiliar como ultimo qubit
+     * @throws CalculadoraException excepciones al construir el circuito
+     */
+    public static Circuito circuitoAfin(boolean[] a, boolean b) throws CalculadoraException {
+        int n = a.length;
+        Circuito circuito = new Circuito(n + 1, 1);
+        for (int q = 0; q <= n; q++) {
+            circuito.agregar(Compuertas.H, q);
+        }
+        for (int q = 0; q < n; q++) {
+            if (a[q]) {
+                circuito.agregar(Compuertas.CNOT, q, n);
+            }
         }
+        if (b) {
+            circuito.agregar(Compuertas.X, n);
+        }
+        for (int q = 0; q < n; q++) {
+            circuito.agregar(Compuertas.H, q);
+        }
+        return circuito;
     }
 
+    /**
+     * Convierte una tabla de verdad empaquetada en una funcion
+     * @param tabla la tabla de verdad
+     * @return la funcion que lee el bit de cada indice
+     */
+    private static IntPredicate comoPredicado(final long[] tabla) {
+        return new IntPredicate() {
+            @Override
+            public boolean test(int x) {
+                return (tabla[x >>> 6] >>> x & 1) != 0;
+            }
+        };
+    }
 
-    public static Matriz simulacionU0() throws CalculadoraException {
-        crearMatrices();
-        Matriz phi0 = CalculadoraMatrices.productoTensorial(cero, uno);
-        phi0 = CalculadoraMatrices.productoTensorial(phi0, cero);
-        Matriz HH = CalculadoraMatrices.productoTensorial(hadamart, hadamart);
-        Matriz HHH = CalculadoraMatrices.productoTensorial(HH, hadamart);
-        Matriz phi1 = CalculadoraMatrices.matrizPorMatriz(HHH, phi0);
-        Matriz HHI = CalculadoraMatrices.productoTensorial(HH, CalculadoraMatrices.identidad(hadamart));
-        Matriz phi2 = CalculadoraMatrices.matrizPorMatriz(prueba, phi1);
-        Matriz phi3 = CalculadoraMatrices.matrizPorMatriz(HHI, phi2);
-        return CalculadoraMatrices.moduloAlCuadrado(phi3);
+    /**
+     * Verifica la cantidad de bits de entrada de una funcion
+     * @param n cantidad de bits
+     * @throws CalculadoraException cuando no se puede simular con esa cantidad de qubits
+     */
+    private static void validarBits(int n) throws CalculadoraException {
+        if (n < 1 || n > VectorEstado.MAXIMO_QUBITS) {
+            throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+        }
     }
 
+    /**
+     * Verifica que una tabla de verdad tenga un bit por cada entrada de la funcion
+     * @param n cantidad de bits de entrada de la funcion
+     * @param tabla la tabla de verdad empaquetada
+     * @throws CalculadoraException cuando la cantidad de bits no es valida o la tabla es muy corta
+     */
+    private static void validarTabla(int n, long[] tabla) throws CalculadoraException {
+        validarBits(n);
+        if (tabla.length < ((1L << n) + 63) >>> 6) {
+            throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+        }
+    }
 }
@@ -0,0 +1,261 @@
+package calculadora;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ejecuta circuitos guardando algunos estados intermedios en un cache LRU cuya llave es el prefijo de
+ * operaciones que los produjo. Un circuito que comparte sus primeras operaciones con otro ya ejecutado
+ * retoma desde el prefijo guardado mas largo en lugar de recalcularlo. El cache se acota por la memoria
+ * de las amplitudes guardadas y cada ejecucion guarda pocos estados: unos puntos de control repartidos
+ * a lo largo del circuito y el estado final. Se puede usar desde varios hilos: solo el acceso al cache
+ * es sincronizado, las compuertas se aplican fuera del candado.
+ */
+public class EjecutorCircuitos {
+
+	/**
+	 * Cantidad de puntos de control que guarda cada ejecucion, ademas del estado final
+	 */
+	public static final int PUNTOS_CONTROL = 4;
+
+	private final Map<Prefijo, VectorEstado> cache;
+	private final long bytesMaximos;
+	private long bytes;
+	private long aciertos;
+	private long operacionesAhorradas;
+
+	/**
+	 * Crea un ejecutor con un cache de tamano acotado
+	 * @param bytesMaximos memoria maxima de las amplitudes guardadas; al llenarse se descartan los
+	 * estados usados hace mas tiempo, y un estado que no cabe solo no se guarda
+	 */
+	public EjecutorCircuitos(long bytesMaximos) {
+		this.cache = new LinkedHashMap<Prefijo, VectorEstado>(16, 0.75f, true);
+		this.bytesMaximos = bytesMaximos;
+	}
+
+	/**
+	 * Ejecuta un circuito retomando desde el prefijo guardado mas largo. Guarda una copia del estado en
+	 * PUNTOS_CONTROL puntos repartidos entre las operaciones calculadas y otra del estado final.
+	 * @param circuito el circuito
+	 * @return el estado final, que el llamador puede modificar
+	 * @throws CalculadoraException excepciones al aplicar las compuertas
+	 */
+	public VectorEstado ejecutar(Circuito circuito) throws CalculadoraException {
+		List<Operacion> lista = circuito.getOperaciones();
+		Operacion[] operaciones = lista.toArray(new Operacion[lista.size()]);
+		int[] hashes = new int[operaciones.length + 1];
+		hashes[0] = 31 * circuito.getQubits() + circuito.getInicial();
+		for (int k = 0; k < operaciones.length; k++) {
+			hashes[k + 1] = 31 * hashes[k] + operaciones[k].hashCode();
+		}
+		VectorEstado estado = null;
+		int desde = 0;
+		synchronized (cache) {
+			for (int k = operaciones.length; k > 0 && estado == null; k--) {
+				VectorEstado guardado = cache.get(new Prefijo(circuito.getQubits(), circuito.getInicial(), operaciones, k, hashes[k]));
+				if (guardado != null) {
+					estado = new VectorEstado(guardado);
+					desde = k;
+					aciertos++;
+					operacionesAhorradas += k;
+				}
+			}
+		}
+		if (estado == null) {
+			estado = new VectorEstado(circuito.getQubits(), circuito.getInicial());
+		}
+		boolean cabe = tamano(estado) <= bytesMaximos;
+		int paso = Math.max(1, (operaciones.length - desde + PUNTOS_CONTROL) / (PUNTOS_CONTROL + 1));
+		for (int k = desde; k < operaciones.length; k++) {
+			operaciones[k].aplicar(estado);
+			if (cabe && (k + 1 == operaciones.length || (k + 1 - desde) % paso == 0)) {
+				guardar(new Prefijo(circuito.getQubits(), circuito.getInicial(), operaciones, k + 1, hashes[k + 1]), new VectorEstado(estado));
+			}
+		}
+		return estado;
+	}
+
+	/**
+	 * Guarda un estado y descarta los usados hace mas tiempo hasta que el cache vuelve a caber
+	 * @param prefijo la llave
+	 * @param estado la copia que se guarda
+	 */
+	private void guardar(Prefijo prefijo, VectorEstado estado) {
+		synchronized (cache) {
+			VectorEstado anterior = cache.put(prefijo, estado);
+			bytes += tamano(estado) - (anterior == null ? 0 : tamano(anterior));
+			Iterator<VectorEstado> mayores = cache.values().iterator();
+			while (bytes > bytesMaximos && mayores.hasNext()) {
+				bytes -= tamano(mayores.next());
+				mayores.remove();
+			}
+		}
+	}
+
+	/**
+	 * Da la memoria de las amplitudes de un estado
+	 * @param estado el estado
+	 * @return 16 bytes por amplitud
+	 */
+	private static long tamano(VectorEstado estado) {
+		return 16L * estado.getDimension();
+	}
+
+	/**
+	 * Calcula las probabilidades de medir cada estado de la base al final de un circuito. Si el circuito
+	 * solo tiene compuertas de Clifford usa la tabla de estabilizadores; si no, el vector de estado.
+	 * @param circuito el circuito
+	 * @return un vector columna con las probabilidades, como CalculadoraMatrices.moduloAlCuadrado
+	 * @throws CalculadoraException excepciones al aplicar las compuertas o si hay demasiados qubits
+	 */
+	public Matriz probabilidades(Circuito circuito) throws CalculadoraException {
+		VectorEstado.validarMatriz(circuito.getQubits());
+		if (TablaEstabilizadores.esClifford(circuito)) {
+			return TablaEstabilizadores.ejecutar(circuito).getProbabilidades();
+		}
+		return ejecutar(circuito).getProbabilidades();
+	}
+
+	/**
+	 * Calcula la probabilidad de obtener ciertos valores al medir algunos qubits al final de un circuito.
+	 * Si el circuito solo tiene compuertas de Clifford usa la tabla de estabilizadores, que admite cientos de qubits.
+	 * Si no, y tiene mas qubits de los que caben en un VectorEstado, usa un estado de producto de matrices
+	 * con el enlace maximo por defecto, que es exacto mientras el entrelazamiento sea bajo. Si el enlace
+	 * tuvo que truncarse la probabilidad seria aproximada y se lanza una excepcion; para aceptar una
+	 * aproximacion se usa EstadoProductoMatrices directamente y se revisa getErrorTruncamiento().
+	 * @param circuito el circuito
+	 * @param medidos los qubits que se miden
+	 * @param valores el valor esperado de cada qubit
+	 * @return la probabilidad de obtener esos valores
+	 * @throws CalculadoraException excepciones al aplicar las compuertas, cuando los qubits no son validos o
+	 * cuando el estado de producto de matrices tuvo que truncarse
+	 */
+	public double probabilidad(Circuito circuito, int[] medidos, boolean[] valores) throws CalculadoraException {
+		if (TablaEstabilizadores.esClifford(circuito)) {
+			return TablaEstabilizadores.ejecutar(circuito).probabilidad(medidos, valores);
+		}
+		if (circuito.getQubits() > VectorEstado.MAXIMO_QUBITS) {
+			EstadoProductoMatrices mps = EstadoProductoMatrices.ejecutar(circuito, EstadoProductoMatrices.ENLACE_MAXIMO);
+			if (mps.getErrorTruncamiento() > 0) {
+				throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+			}
+			return mps.probabilidad(medidos, valores);
+		}
+		if (medidos.length != valores.length) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+		}
+		VectorEstado estado = ejecutar(circuito);
+		int mascara = 0;
+		int esperado = 0;
+		for (int i = 0; i < medidos.length; i++) {
+			if (medidos[i] < 0 || medidos[i] >= circuito.getQubits()) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+			int bit = 1 << (circuito.getQubits() - 1 - medidos[i]);
+			mascara |= bit;
+			esperado |= valores[i] ? bit : 0;
+		}
+		double[] probabilidades = estado.probabilidades();
+		double probabilidad = 0;
+		for (int i = 0; i < probabilidades.length; i++) {
+			if ((i & mascara) == esperado) {
+				probabilidad += probabilidades[i];
+			}
+		}
+		return probabilidad;
+	}
+
+	/**
+	 * Da la cantidad de ejecuciones que retomaron desde un estado guardado
+	 * @return la cantidad de aciertos del cache
+	 */
+	public long getAciertos() {
+		synchronized (cache) {
+			return aciertos;
+		}
+	}
+
+	/**
+	 * Da la cantidad de operaciones que no se recalcularon gracias al cache
+	 * @return la cantidad de operaciones ahorradas
+	 */
+	public long getOperacionesAhorradas() {
+		synchronized (cache) {
+			return operacionesAhorradas;
+		}
+	}
+
+	/**
+	 * Da la cantidad de estados guardados
+	 * @return el tamano del cache
+	 */
+	public int getTamano() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Da la memoria de las amplitudes guardadas
+	 * @return la cantidad de bytes
+	 */
+	public long getBytes() {
+		synchronized (cache) {
+			return bytes;
+		}
+	}
+
+	/**
+	 * Descarta todos los estados guardados
+	 */
+	public void limpiar() {
+		synchronized (cache) {
+			cache.clear();
+			bytes = 0;
+		}
+	}
+
+	/**
+	 * Llave del cache: las primeras operaciones de un circuito junto con su estado inicial. Comparte el
+	 * arreglo de operaciones del circuito y trae su hash ya calculado, asi crear llaves no copia nada.
+	 */
+	private static final class Prefijo {
+		private final int qubits;
+		private final int inicial;
+		private final Operacion[] operaciones;
+		private final int longitud;
+		private final int hash;
+
+		Prefijo(int qubits, int inicial, Operacion[] operaciones, int longitud, int hash) {
+			this.qubits = qubits;
+			this.inicial = inicial;
+			this.operaciones = operaciones;
+			this.longitud = longitud;
+			this.hash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Prefijo))
+				return false;
+			Prefijo other = (Prefijo) obj;
+			if (hash != other.hash || longitud != other.longitud || qubits != other.qubits || inicial != other.inicial)
+				return false;
+			for (int i = 0; i < longitud; i++) {
+				if (!operaciones[i].equals(other.operaciones[i]))
+					return false;
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,624 @@
+package calculadora;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Estado de un sistema de qubits como producto de matrices (MPS): cada qubit q guarda un tensor de
+ * enlace(q) x 2 x enlace(q+1) numeros complejos en un arreglo intercalado, y la amplitud de un estado de
+ * la base es el producto de las matrices elegidas por sus bits. Con poco entrelazamiento los enlaces son
+ * pequenos y la memoria es O(n * enlace^2) en lugar de 2^n, asi se simulan circuitos poco profundos de
+ * cientos de qubits. Las compuertas de dos qubits se aplican sobre los dos tensores vecinos y se
+ * separan de nuevo con una descomposicion en valores singulares de Jacobi, descartando los valores
+ * singulares que pasen del enlace maximo; el peso descartado se acumula en el error de truncamiento.
+ * El estado se mantiene en forma canonica alrededor de un centro, asi los valores singulares son los
+ * coeficientes de Schmidt y el truncamiento es el optimo para cada corte.
+ */
+public class EstadoProductoMatrices {
+
+	/**
+	 * Enlace maximo por defecto
+	 */
+	public static final int ENLACE_MAXIMO = 64;
+
+	/**
+	 * Valor singular relativo debajo del cual se descarta aunque no se pase del enlace maximo
+	 */
+	public static final double TOLERANCIA = 1e-12;
+
+	private static final int MAXIMO_BARRIDOS = 60;
+
+	private final int qubits;
+	private final int maximoEnlace;
+	private final double[][] tensores;
+	private final int[] enlaces;
+	private int centro;
+	private double errorTruncamiento;
+
+	/**
+	 * Crea el estado de la base computacional con el indice dado
+	 * @param qubits cantidad de qubits del sistema
+	 * @param inicial el estado de la base; el qubit 0 es el bit mas significativo, y con mas de 31 qubits
+	 * los bits del indice corresponden a los ultimos qubits
+	 * @param maximoEnlace cantidad maxima de valores singulares que se conservan en cada corte
+	 * @throws CalculadoraException cuando la cantidad de qubits, el indice o el enlace no son validos
+	 */
+	public EstadoProductoMatrices(int qubits, int inicial, int maximoEnlace) throws CalculadoraException {
+		if (qubits < 1 || maximoEnlace < 1) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		if (inicial < 0 || (qubits < 31 && inicial >= 1 << qubits)) {
+			throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+		}
+		this.qubits = qubits;
+		this.maximoEnlace = maximoEnlace;
+		this.tensores = new double[qubits][];
+		this.enlaces = new int[qubits + 1];
+		Arrays.fill(enlaces, 1);
+		for (int q = 0; q < qubits; q++) {
+			int bit = qubits - 1 - q;
+			tensores[q] = new double[4];
+			tensores[q][bit < 31 && (inicial >>> bit & 1) != 0 ? 2 : 0] = 1;
+		}
+	}
+
+	/**
+	 * Crea el estado |0...0>
+	 * @param qubits cantidad de qubits del sistema
+	 * @param maximoEnlace cantidad maxima de valores singulares que se conservan en cada corte
+	 * @throws CalculadoraException cuando la cantidad de qubits o el enlace no son validos
+	 */
+	public EstadoProductoMatrices(int qubits, int maximoEnlace) throws CalculadoraException {
+		this(qubits, 0, maximoEnlace);
+	}
+
+	/**
+	 * Ejecuta un circuito sobre un estado de producto de matrices
+	 * @param circuito el circuito, con compuertas de uno o dos qubits
+	 * @param maximoEnlace cantidad maxima de valores singulares que se conservan en cada corte
+	 * @return el estado final
+	 * @throws CalculadoraException cuando alguna compuerta actua sobre mas de dos qubits
+	 */
+	public static EstadoProductoMatrices ejecutar(Circuito circuito, int maximoEnlace) throws CalculadoraException {
+		EstadoProductoMatrices estado = new EstadoProductoMatrices(circuito.getQubits(), circuito.getInicial(), maximoEnlace);
+		for (Operacion operacion : circuito.getOperaciones()) {
+			estado.aplicar(operacion.getCompuerta(), operacion.objetivos());
+		}
+		return estado;
+	}
+
+	/**
+	 * Da la cantidad de qubits
+	 * @return la cantidad de qubits
+	 */
+	public int getQubits() {
+		return qubits;
+	}
+
+	/**
+	 * Da el enlace maximo
+	 * @return la cantidad maxima de valores singulares por corte
+	 */
+	public int getMaximoEnlace() {
+		return maximoEnlace;
+	}
+
+	/**
+	 * Da el tamano del enlace entre un qubit y el siguiente
+	 * @param q el qubit, de 0 a n-2
+	 * @return el tamano del enlace
+	 */
+	public int getEnlace(int q) {
+		return enlaces[q + 1];
+	}
+
+	/**
+	 * Da la suma de los pesos (valores singulares al cuadrado, relativos) descartados al truncar.
+	 * Es cero si la simulacion fue exacta.
+	 * @return el error de truncamiento acumulado
+	 */
+	public double getErrorTruncamiento() {
+		return errorTruncamiento;
+	}
+
+	/**
+	 * Aplica una compuerta de uno o dos qubits. Si los qubits de una compuerta de dos no son vecinos,
+	 * se acercan con intercambios y luego se devuelven a su lugar.
+	 * @param compuerta la compuerta
+	 * @param objetivos los qubits sobre los que actua, el primero es el bit mas significativo de la compuerta
+	 * @throws CalculadoraException cuando los qubits no corresponden o la compuerta es de mas de dos qubits
+	 */
+	public void aplicar(Compuerta compuerta, int... objetivos) throws CalculadoraException {
+		if (objetivos.length != compuerta.getQubits()) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		for (int i = 0; i < objetivos.length; i++) {
+			if (objetivos[i] < 0 || objetivos[i] >= qubits || (i > 0 && objetivos[i] == objetivos[0])) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+		}
+		if (objetivos.length == 1) {
+			aplicarUno(compuerta.datos(), objetivos[0]);
+		} else if (objetivos.length == 2) {
+			int a = objetivos[0];
+			int b = objetivos[1];
+			if (a < b) {
+				for (int j = b - 1; j > a; j--) {
+					aplicarVecinos(Compuertas.SWAP.datos(), j, false);
+				}
+				aplicarVecinos(compuerta.datos(), a, false);
+				for (int j = a + 1; j < b; j++) {
+					aplicarVecinos(Compuertas.SWAP.datos(), j, false);
+				}
+			} else {
+				for (int j = b; j < a - 1; j++) {
+					aplicarVecinos(Compuertas.SWAP.datos(), j, false);
+				}
+				aplicarVecinos(compuerta.datos(), a - 1, true);
+				for (int j = a - 2; j >= b; j--) {
+					aplicarVecinos(Compuertas.SWAP.datos(), j, false);
+				}
+			}
+		} else {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+	}
+
+	/**
+	 * Aplica una compuerta de un qubit sobre su tensor; no cambia la forma canonica
+	 * @param g la compuerta de 2x2 en arreglo intercalado
+	 * @param q el qubit
+	 */
+	private void aplicarUno(double[] g, int q) {
+		double[] t = tensores[q];
+		int izquierda = enlaces[q];
+		int derecha = enlaces[q + 1];
+		for (int l = 0; l < izquierda; l++) {
+			for (int r = 0; r < derecha; r++) {
+				int p0 = 2 * (l * 2 * derecha + r);
+				int p1 = p0 + 2 * derecha;
+				double ar = t[p0], ai = t[p0 + 1];
+				double br = t[p1], bi = t[p1 + 1];
+				t[p0] = g[0] * ar - g[1] * ai + g[2] * br - g[3] * bi;
+				t[p0 + 1] = g[0] * ai + g[1] * ar + g[2] * bi + g[3] * br;
+				t[p1] = g[4] * ar - g[5] * ai + g[6] * br - g[7] * bi;
+				t[p1 + 1] = g[4] * ai + g[5] * ar + g[6] * bi + g[7] * br;
+			}
+		}
+	}
+
+	/**
+	 * Aplica una compuerta de dos qubits sobre los tensores de q y q+1: los contrae, aplica la compuerta
+	 * y los separa con la descomposicion en valores singulares truncada. El centro queda en q+1.
+	 * @param g la compuerta de 4x4 en arreglo intercalado
+	 * @param q el primer qubit
+	 * @param invertida si el bit mas significativo de la compuerta corresponde al qubit q+1
+	 */
+	private void aplicarVecinos(double[] g, int q, boolean invertida) {
+		moverCentro(q);
+		int izquierda = enlaces[q];
+		int medio = enlaces[q + 1];
+		int derecha = enlaces[q + 2];
+		double[] a = tensores[q];
+		double[] b = tensores[q + 1];
+		// theta[l][s1][s2][r] = sum_m a[l][s1][m] b[m][s2][r]
+		double[] theta = new double[2 * izquierda * 4 * derecha];
+		for (int ls = 0; ls < 2 * izquierda; ls++) {
+			for (int m = 0; m < medio; m++) {
+				double xr = a[2 * (ls * medio + m)], xi = a[2 * (ls * medio + m) + 1];
+				if (xr == 0 && xi == 0) {
+					continue;
+				}
+				for (int sr = 0; sr < 2 * derecha; sr++) {
+					double yr = b[2 * (m * 2 * derecha + sr)], yi = b[2 * (m * 2 * derecha + sr) + 1];
+					int p = 2 * (ls * 2 * derecha + sr);
+					theta[p] += xr * yr - xi * yi;
+					theta[p + 1] += xr * yi + xi * yr;
+				}
+			}
+		}
+		double[] vr = new double[4];
+		double[] vi = new double[4];
+		for (int l = 0; l < izquierda; l++) {
+			for (int r = 0; r < derecha; r++) {
+				for (int s = 0; s < 4; s++) {
+					int p = 2 * (((l * 2 + (s >> 1)) * 2 + (s & 1)) * derecha + r);
+					vr[s] = theta[p];
+					vi[s] = theta[p + 1];
+				}
+				for (int t = 0; t < 4; t++) {
+					int fila = invertida ? ((t & 1) << 1 | t >> 1) : t;
+					double sumaR = 0, sumaI = 0;
+					for (int s = 0; s < 4; s++) {
+						int columna = invertida ? ((s & 1) << 1 | s >> 1) : s;
+						double gr = g[2 * (fila * 4 + columna)], gi = g[2 * (fila * 4 + columna) + 1];
+						sumaR += gr * vr[s] - gi * vi[s];
+						sumaI += gr * vi[s] + gi * vr[s];
+					}
+					int p = 2 * (((l * 2 + (t >> 1)) * 2 + (t & 1)) * derecha + r);
+					theta[p] = sumaR;
+					theta[p + 1] = sumaI;
+				}
+			}
+		}
+		Descomposicion d = descomponer(theta, 2 * izquierda, 2 * derecha);
+		double total = 0;
+		for (int j = 0; j < d.rango; j++) {
+			total += d.sigma[j] * d.sigma[j];
+		}
+		// Los valores singulares bajo la tolerancia son ruido del redondeo; solo el limite del enlace cuenta como error
+		int utiles = d.rango;
+		while (utiles > 1 && d.sigma[utiles - 1] <= TOLERANCIA * d.sigma[0]) {
+			utiles--;
+		}
+		int conservados = Math.max(1, Math.min(utiles, maximoEnlace));
+		double guardado = 0;
+		for (int j = 0; j < conservados; j++) {
+			guardado += d.sigma[j] * d.sigma[j];
+		}
+		if (conservados < utiles) {
+			double descartado = 0;
+			for (int j = conservados; j < utiles; j++) {
+				descartado += d.sigma[j] * d.sigma[j];
+			}
+			errorTruncamiento += descartado / total;
+		}
+		double escala = guardado > 0 ? Math.sqrt(total / guardado) : 1;
+		tensores[q] = columnas(d.u, 2 * izquierda, d.rango, conservados);
+		double[] nuevo = new double[2 * conservados * 2 * derecha];
+		for (int j = 0; j < conservados; j++) {
+			double s = d.sigma[j] * escala;
+			for (int c = 0; c < 2 * derecha; c++) {
+				int p = 2 * (c * d.rango + j);
+				nuevo[2 * (j * 2 * derecha + c)] = s * d.v[p];
+				nuevo[2 * (j * 2 * derecha + c) + 1] = -s * d.v[p + 1];
+			}
+		}
+		tensores[q + 1] = nuevo;
+		enlaces[q + 1] = conservados;
+		centro = q + 1;
+	}
+
+	/**
+	 * Mueve el centro de la forma canonica hasta un qubit, separando cada tensor con la descomposicion
+	 * en valores singulares sin truncar y pasando los valores singulares al vecino
+	 * @param destino el qubit
+	 */
+	private void moverCentro(int destino) {
+		while (centro < destino) {
+			int q = centro;
+			int filas = 2 * enlaces[q];
+			int medio = enlaces[q + 1];
+			int columnas = 2 * enlaces[q + 2];
+			Descomposicion d = descomponer(tensores[q], filas, medio);
+			int k = rangoNumerico(d);
+			tensores[q] = columnas(d.u, filas, d.rango, k);
+			// siguiente = (sigma V^H) * siguiente
+			double[] siguiente = tensores[q + 1];
+			double[] nuevo = new double[2 * k * columnas];
+			for (int j = 0; j < k; j++) {
+				for (int m = 0; m < medio; m++) {
+					double xr = d.sigma[j] * d.v[2 * (m * d.rango + j)];
+					double xi = -d.sigma[j] * d.v[2 * (m * d.rango + j) + 1];
+					for (int c = 0; c < columnas; c++) {
+						double yr = siguiente[2 * (m * columnas + c)], yi = siguiente[2 * (m * columnas + c) + 1];
+						nuevo[2 * (j * columnas + c)] += xr * yr - xi * yi;
+						nuevo[2 * (j * columnas + c) + 1] += xr * yi + xi * yr;
+					}
+				}
+			}
+			tensores[q + 1] = nuevo;
+			enlaces[q + 1] = k;
+			centro++;
+		}
+		while (centro > destino) {
+			int q = centro;
+			int filasAnterior = 2 * enlaces[q - 1];
+			int medio = enlaces[q];
+			int columnas = 2 * enlaces[q + 1];
+			Descomposicion d = descomponer(tensores[q], medio, columnas);
+			int k = rangoNumerico(d);
+			double[] nuevo = new double[2 * k * columnas];
+			for (int j = 0; j < k; j++) {
+				for (int c = 0; c < columnas; c++) {
+					nuevo[2 * (j * columnas + c)] = d.v[2 * (c * d.rango + j)];
+					nuevo[2 * (j * columnas + c) + 1] = -d.v[2 * (c * d.rango + j) + 1];
+				}
+			}
+			tensores[q] = nuevo;
+			// anterior = anterior * (U sigma)
+			double[] anterior = tensores[q - 1];
+			double[] producto = new double[2 * filasAnterior * k];
+			for (int f = 0; f < filasAnterior; f++) {
+				for (int m = 0; m < medio; m++) {
+					double xr = anterior[2 * (f * medio + m)], xi = anterior[2 * (f * medio + m) + 1];
+					for (int j = 0; j < k; j++) {
+						double yr = d.u[2 * (m * d.rango + j)] * d.sigma[j], yi = d.u[2 * (m * d.rango + j) + 1] * d.sigma[j];
+						producto[2 * (f * k + j)] += xr * yr - xi * yi;
+						producto[2 * (f * k + j) + 1] += xr * yi + xi * yr;
+					}
+				}
+			}
+			tensores[q - 1] = producto;
+			enlaces[q] = k;
+			centro--;
+		}
+	}
+
+	/**
+	 * Cuenta los valores singulares que no son cero numericamente
+	 * @param d la descomposicion
+	 * @return la cantidad, al menos 1
+	 */
+	private static int rangoNumerico(Descomposicion d) {
+		int k = d.rango;
+		while (k > 1 && d.sigma[k - 1] <= TOLERANCIA * d.sigma[0]) {
+			k--;
+		}
+		return k;
+	}
+
+	/**
+	 * Copia las primeras columnas de una matriz
+	 * @param m la matriz en arreglo intercalado
+	 * @param filas cantidad de filas
+	 * @param columnas cantidad de columnas
+	 * @param k cantidad de columnas a copiar
+	 * @return la matriz de filas x k
+	 */
+	private static double[] columnas(double[] m, int filas, int columnas, int k) {
+		double[] copia = new double[2 * filas * k];
+		for (int f = 0; f < filas; f++) {
+			System.arraycopy(m, 2 * f * columnas, copia, 2 * f * k, 2 * k);
+		}
+		return copia;
+	}
+
+	/**
+	 * Descompone una matriz compleja M = U S V^H con el metodo de Jacobi de un lado: rota pares de
+	 * columnas hasta que todas son ortogonales, acumulando las rotaciones en V. Las normas de las columnas
+	 * son los valores singulares, que se devuelven en orden descendente.
+	 * @param m la matriz en arreglo intercalado
+	 * @param filas cantidad de filas
+	 * @param columnas cantidad de columnas
+	 * @return la descomposicion, con U de filas x k, V de columnas x k y k = min(filas, columnas)
+	 */
+	static Descomposicion descomponer(double[] m, int filas, int columnas) {
+		double[][] a = new double[columnas][2 * filas];
+		double[][] v = new double[columnas][2 * columnas];
+		for (int j = 0; j < columnas; j++) {
+			for (int i = 0; i < filas; i++) {
+				a[j][2 * i] = m[2 * (i * columnas + j)];
+				a[j][2 * i + 1] = m[2 * (i * columnas + j) + 1];
+			}
+			v[j][2 * j] = 1;
+		}
+		boolean rotado = true;
+		for (int barrido = 0; barrido < MAXIMO_BARRIDOS && rotado; barrido++) {
+			rotado = false;
+			for (int p = 0; p < columnas - 1; p++) {
+				for (int q = p + 1; q < columnas; q++) {
+					double alfa = 0, beta = 0, gr = 0, gi = 0;
+					double[] ap = a[p], aq = a[q];
+					for (int i = 0; i < 2 * filas; i += 2) {
+						alfa += ap[i] * ap[i] + ap[i + 1] * ap[i + 1];
+						beta += aq[i] * aq[i] + aq[i + 1] * aq[i + 1];
+						gr += ap[i] * aq[i] + ap[i + 1] * aq[i + 1];
+						gi += ap[i] * aq[i + 1] - ap[i + 1] * aq[i];
+					}
+					double gamma = Math.hypot(gr, gi);
+					if (gamma == 0 || gamma <= 1e-15 * Math.sqrt(alfa * beta)) {
+						continue;
+					}
+					rotado = true;
+					double zeta = (beta - alfa) / (2 * gamma);
+					double t = Math.signum(zeta) / (Math.abs(zeta) + Math.sqrt(1 + zeta * zeta));
+					if (zeta == 0) {
+						t = 1;
+					}
+					double c = 1 / Math.sqrt(1 + t * t);
+					double s = c * t;
+					// fase e^{i phi} = gamma / |gamma|: p' = c p - s e^{-i phi} q, q' = s e^{i phi} p + c q
+					double er = gr / gamma, ei = gi / gamma;
+					rotar(ap, aq, c, s, er, ei);
+					rotar(v[p], v[q], c, s, er, ei);
+				}
+			}
+		}
+		double[] normas = new double[columnas];
+		Integer[] orden = new Integer[columnas];
+		for (int j = 0; j < columnas; j++) {
+			double suma = 0;
+			for (int i = 0; i < 2 * filas; i++) {
+				suma += a[j][i] * a[j][i];
+			}
+			normas[j] = Math.sqrt(suma);
+			orden[j] = j;
+		}
+		final double[] claves = normas;
+		Arrays.sort(orden, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer x, Integer y) {
+				return Double.compare(claves[y], claves[x]);
+			}
+		});
+		int rango = Math.min(filas, columnas);
+		Descomposicion d = new Descomposicion(rango, new double[rango], new double[2 * filas * rango], new double[2 * columnas * rango]);
+		for (int k = 0; k < rango; k++) {
+			int j = orden[k];
+			d.sigma[k] = normas[j];
+			for (int i = 0; i < filas; i++) {
+				if (normas[j] > 0) {
+					d.u[2 * (i * rango + k)] = a[j][2 * i] / normas[j];
+					d.u[2 * (i * rango + k) + 1] = a[j][2 * i + 1] / normas[j];
+				}
+			}
+			for (int i = 0; i < columnas; i++) {
+				d.v[2 * (i * rango + k)] = v[j][2 * i];
+				d.v[2 * (i * rango + k) + 1] = v[j][2 * i + 1];
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Aplica la rotacion de Jacobi compleja a un par de columnas
+	 * @param p la primera columna
+	 * @param q la segunda columna
+	 * @param c el coseno
+	 * @param s el seno
+	 * @param er parte real de la fase
+	 * @param ei parte imaginaria de la fase
+	 */
+	private static void rotar(double[] p, double[] q, double c, double s, double er, double ei) {
+		for (int i = 0; i < p.length; i += 2) {
+			double pr = p[i], pi = p[i + 1];
+			double qr = q[i], qi = q[i + 1];
+			p[i] = c * pr - s * (er * qr + ei * qi);
+			p[i + 1] = c * pi - s * (er * qi - ei * qr);
+			q[i] = s * (er * pr - ei * pi) + c * qr;
+			q[i + 1] = s * (er * pi + ei * pr) + c * qi;
+		}
+	}
+
+	/**
+	 * Calcula la probabilidad de obtener ciertos valores al medir algunos qubits, contrayendo la cadena
+	 * con su conjugada de izquierda a derecha en O(n * enlace^3)
+	 * @param medidos los qubits que se miden
+	 * @param valores el valor esperado de cada qubit
+	 * @return la probabilidad de obtener esos valores
+	 * @throws CalculadoraException cuando los arreglos no corresponden o algun qubit no existe
+	 */
+	public double probabilidad(int[] medidos, boolean[] valores) throws CalculadoraException {
+		if (medidos.length != valores.length) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+		}
+		int[] libres = new int[qubits];
+		Arrays.fill(libres, -1);
+		int[] fijos = libres.clone();
+		for (int i = 0; i < medidos.length; i++) {
+			if (medidos[i] < 0 || medidos[i] >= qubits) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+			int valor = valores[i] ? 1 : 0;
+			if (fijos[medidos[i]] >= 0 && fijos[medidos[i]] != valor) {
+				return 0;
+			}
+			fijos[medidos[i]] = valor;
+		}
+		return marginal(fijos) / marginal(libres);
+	}
+
+	/**
+	 * Contrae la cadena con su conjugada sumando sobre los qubits libres
+	 * @param fijos el valor de cada qubit, o -1 si es libre
+	 * @return la suma de las probabilidades de los estados compatibles, sin normalizar
+	 */
+	private double marginal(int[] fijos) {
+		double[] e = {1, 0};
+		for (int q = 0; q < qubits; q++) {
+			int izquierda = enlaces[q];
+			int derecha = enlaces[q + 1];
+			double[] t = tensores[q];
+			double[] siguiente = new double[2 * derecha * derecha];
+			for (int s = 0; s < 2; s++) {
+				if (fijos[q] >= 0 && fijos[q] != s) {
+					continue;
+				}
+				// w[m'][r] = sum_m e[m][m'] t[m][s][r]
+				double[] w = new double[2 * izquierda * derecha];
+				for (int m = 0; m < izquierda; m++) {
+					for (int mp = 0; mp < izquierda; mp++) {
+						double er = e[2 * (m * izquierda + mp)], ei = e[2 * (m * izquierda + mp) + 1];
+						if (er == 0 && ei == 0) {
+							continue;
+						}
+						for (int r = 0; r < derecha; r++) {
+							double tr = t[2 * ((m * 2 + s) * derecha + r)], ti = t[2 * ((m * 2 + s) * derecha + r) + 1];
+							w[2 * (mp * derecha + r)] += er * tr - ei * ti;
+							w[2 * (mp * derecha + r) + 1] += er * ti + ei * tr;
+						}
+					}
+				}
+				// siguiente[r][r'] += sum_m' w[m'][r] conj(t[m'][s][r'])
+				for (int mp = 0; mp < izquierda; mp++) {
+					for (int r = 0; r < derecha; r++) {
+						double wr = w[2 * (mp * derecha + r)], wi = w[2 * (mp * derecha + r) + 1];
+						for (int rp = 0; rp < derecha; rp++) {
+							double tr = t[2 * ((mp * 2 + s) * derecha + rp)], ti = -t[2 * ((mp * 2 + s) * derecha + rp) + 1];
+							siguiente[2 * (r * derecha + rp)] += wr * tr - wi * ti;
+							siguiente[2 * (r * derecha + rp) + 1] += wr * ti + wi * tr;
+						}
+					}
+				}
+			}
+			e = siguiente;
+		}
+		return e[0];
+	}
+
+	/**
+	 * Da las probabilidades de medir cada estado de la base, como CalculadoraMatrices.moduloAlCuadrado
+	 * del vector de estado. Contrae la cadena completa, asi que solo sirve para pocos qubits.
+	 * @return un vector columna de 2^n x 1 con las probabilidades
+	 * @throws CalculadoraException cuando hay demasiados qubits para un vector de 2^n numeros
+	 */
+	public Matriz getProbabilidades() throws CalculadoraException {
+		if (qubits >= VectorEstado.MAXIMO_QUBITS) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		// amplitudes[indice][r] con los qubits contraidos hasta ahora
+		double[] amplitudes = {1, 0};
+		int estados = 1;
+		for (int q = 0; q < qubits; q++) {
+			int izquierda = enlaces[q];
+			int derecha = enlaces[q + 1];
+			double[] t = tensores[q];
+			double[] siguiente = new double[2 * estados * 2 * derecha];
+			for (int indice = 0; indice < estados; indice++) {
+				for (int m = 0; m < izquierda; m++) {
+					double xr = amplitudes[2 * (indice * izquierda + m)], xi = amplitudes[2 * (indice * izquierda + m) + 1];
+					if (xr == 0 && xi == 0) {
+						continue;
+					}
+					for (int sr = 0; sr < 2 * derecha; sr++) {
+						double yr = t[2 * (m * 2 * derecha + sr)], yi = t[2 * (m * 2 * derecha + sr) + 1];
+						int p = 2 * (indice * 2 * derecha + sr);
+						siguiente[p] += xr * yr - xi * yi;
+						siguiente[p + 1] += xr * yi + xi * yr;
+					}
+				}
+			}
+			amplitudes = siguiente;
+			estados *= 2;
+		}
+		Matriz probabilidades = new Matriz(estados, 1);
+		double[] datos = probabilidades.getDatos();
+		for (int i = 0; i < estados; i++) {
+			datos[2 * i] = amplitudes[2 * i] * amplitudes[2 * i] + amplitudes[2 * i + 1] * amplitudes[2 * i + 1];
+		}
+		return probabilidades;
+	}
+
+	@Override
+	public String toString() {
+		return qubits + " qubits, enlaces " + Arrays.toString(Arrays.copyOfRange(enlaces, 1, qubits));
+	}
+
+	/**
+	 * Resultado de la descomposicion en valores singulares
+	 */
+	static final class Descomposicion {
+		final int rango;
+		final double[] sigma;
+		final double[] u;
+		final double[] v;
+
+		Descomposicion(int rango, double[] sigma, double[] u, double[] v) {
+			this.rango = rango;
+			this.sigma = sigma;
+			this.u = u;
+			this.v = v;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package calculadora;
+
+/**
+ * Los estados de la base mas probables de una distribucion, de mayor a menor probabilidad; entre
+ * estados igual de probables va primero el menor. Es inmutable.
+ */
+public final class EstadosProbables {
+	private final int[] estados;
+	private final double[] probabilidades;
+
+	/**
+	 * Crea la seleccion
+	 * @param estados los estados, del mas probable al menos probable
+	 * @param probabilidades la probabilidad de cada estado
+	 */
+	EstadosProbables(int[] estados, double[] probabilidades) {
+		this.estados = estados;
+		this.probabilidades = probabilidades;
+	}
+
+	/**
+	 * Da la cantidad de estados seleccionados
+	 * @return la cantidad de estados
+	 */
+	public int getCantidad() {
+		return estados.length;
+	}
+
+	/**
+	 * Da un estado de la seleccion
+	 * @param i la posicion, 0 para el mas probable
+	 * @return el estado de la base
+	 */
+	public int getEstado(int i) {
+		return estados[i];
+	}
+
+	/**
+	 * Da la probabilidad de un estado de la seleccion
+	 * @param i la posicion, 0 para el mas probable
+	 * @return la probabilidad del estado
+	 */
+	public double getProbabilidad(int i) {
+		return probabilidades[i];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder texto = new StringBuilder("[");
+		for (int i = 0; i < estados.length; i++) {
+			if (i > 0) {
+				texto.append(", ");
+			}
+			texto.append(estados[i]).append('=').append(probabilidades[i]);
+		}
+		return texto.append(']').toString();
+	}
+}
@@ -0,0 +1,98 @@
+package calculadora;
+
+import java.util.Arrays;
+
+/**
+ * Resultado de medir un estado muchas veces: solo guarda los estados que salieron, en orden, con la
+ * cantidad de veces que salio cada uno. Es inmutable.
+ */
+public final class Histograma {
+	private final int[] estados;
+	private final long[] cuentas;
+	private final long mediciones;
+
+	/**
+	 * Crea el histograma
+	 * @param estados los estados medidos, en orden creciente
+	 * @param cuentas cuantas veces salio cada estado
+	 * @param mediciones el total de mediciones
+	 */
+	Histograma(int[] estados, long[] cuentas, long mediciones) {
+		this.estados = estados;
+		this.cuentas = cuentas;
+		this.mediciones = mediciones;
+	}
+
+	/**
+	 * Da el total de mediciones
+	 * @return la cantidad de mediciones
+	 */
+	public long getMediciones() {
+		return mediciones;
+	}
+
+	/**
+	 * Da la cantidad de estados distintos que salieron
+	 * @return la cantidad de entradas del histograma
+	 */
+	public int getCantidad() {
+		return estados.length;
+	}
+
+	/**
+	 * Da el estado de una entrada del histograma
+	 * @param i la entrada, entre 0 y getCantidad() - 1
+	 * @return el estado de la base
+	 */
+	public int getEstado(int i) {
+		return estados[i];
+	}
+
+	/**
+	 * Da cuantas veces salio el estado de una entrada del histograma
+	 * @param i la entrada, entre 0 y getCantidad() - 1
+	 * @return la cantidad de veces
+	 */
+	public long getCuenta(int i) {
+		return cuentas[i];
+	}
+
+	/**
+	 * Da cuantas veces salio un estado
+	 * @param estado el estado de la base
+	 * @return la cantidad de veces, 0 si no salio
+	 */
+	public long cuenta(int estado) {
+		int i = Arrays.binarySearch(estados, estado);
+		return i < 0 ? 0 : cuentas[i];
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(estados) + Arrays.hashCode(cuentas);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Histograma)) {
+			return false;
+		}
+		Histograma otro = (Histograma) obj;
+		return mediciones == otro.mediciones && Arrays.equals(estados, otro.estados) && Arrays.equals(cuentas, otro.cuentas);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder texto = new StringBuilder("{");
+		for (int i = 0; i < estados.length; i++) {
+			if (i > 0) {
+				texto.append(", ");
+			}
+			texto.append(estados[i]).append('=').append(cuentas[i]);
+		}
+		return texto.append('}').toString();
+	}
+}
@@ -1,96 +1,215 @@
 package calculadora;
-import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
 import calculadora.Complejo;
 
-public class Matriz {
-	private Complejo[][] numeros;
-	
+public class Matriz implements Operador {
+	private int filas;
+	private int columnas;
+	private double[] datos;
+
 	/**
 	 * Crea la matriz partiendo del numero de filas, columnas y un arreglo de los numeros complejos.
 	 * @param filas de la matriz
 	 * @param columnas de la matriz
 	 * @param numeros de la matriz
-	 * @throws CalculadoraException cuando la cantidad de numeros no llena la matriz 
+	 * @throws CalculadoraException cuando la cantidad de numeros no llena la matriz
 	 */
 	public Matriz(int filas, int columnas,Complejo[] numeros) throws CalculadoraException{
 		if(numeros.length < filas*columnas) {
 			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
 		}
-		this.numeros = new Complejo[filas][columnas];
+		this.filas = filas;
+		this.columnas = columnas;
+		this.datos = new double[2 * filas * columnas];
 		addNumeros(numeros);
 	}
-	
+
 	/**
 	 * Crea una matriz dado un arreglo de numeros complejos
 	 * @param numeros complejos de la matriz
 	 */
 	public Matriz(Complejo[][] numeros){
-		this.numeros = numeros;
+		this.filas = numeros.length;
+		this.columnas = numeros.length == 0 ? 0 : numeros[0].length;
+		this.datos = new double[2 * filas * columnas];
+		int posicion = 0;
+		for (int i  = 0; i < filas;i++) {
+			for (int j  = 0; j < columnas;j++) {
+				datos[posicion++] = numeros[i][j].getReal();
+				datos[posicion++] = numeros[i][j].getImaginaria();
+			}
+		}
 	}
-	
+
 	/**
 	 * Crea una matriz partiendo del numero de filas, columnas y un arreglo de los numeros en coordenadas.
 	 * @param filas de la matriz
 	 * @param columnas de la matriz
 	 * @param numeros de la matriz
-	 * @throws CalculadoraException cuando la cantidad de numeros no llena la matriz 
+	 * @throws CalculadoraException cuando la cantidad de numeros no llena la matriz
 	 */
 	public Matriz(int filas, int columnas,double[][] numeros) throws CalculadoraException{
 		if(numeros.length < filas*columnas) {
 			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
 		}
-		this.numeros = new Complejo[filas][columnas];
-		addNumeros(crearComplejos(numeros));
+		this.filas = filas;
+		this.columnas = columnas;
+		this.datos = new double[2 * filas * columnas];
+		for (int i  = 0; i < filas*columnas;i++) {
+			datos[2*i] = numeros[i][0];
+			datos[2*i+1] = numeros[i][1];
+		}
 	}
 
 	/**
-	 * A�ade los numeros a la matriz
-	 * @param numeros numeros para a�adir
+	 * Crea una matriz de ceros con las dimensiones dadas
+	 * @param filas de la matriz
+	 * @param columnas de la matriz
 	 */
-	private void addNumeros(Complejo[] numeros) {
-		int contador = 0;
-		for (int i  = 0; i < this.numeros.length;i++) {
-			for (int j  = 0; j < this.numeros[0].length;j++) {
-				this.numeros[i][j] = numeros[contador];
-				contador++;
-			}
+	public Matriz(int filas, int columnas) {
+		this.filas = filas;
+		this.columnas = columnas;
+		this.datos = new double[2 * filas * columnas];
+	}
+
+	/**
+	 * Crea una matriz sobre un arreglo intercalado (real, imaginaria) ordenado por filas. El arreglo no se copia.
+	 * @param filas de la matriz
+	 * @param columnas de la matriz
+	 * @param datos las partes reales e imaginarias de los numeros, fila por fila
+	 * @throws CalculadoraException cuando la cantidad de datos no corresponde a la matriz
+	 */
+	public Matriz(int filas, int columnas, double[] datos) throws CalculadoraException{
+		if(datos.length != 2 * filas * columnas) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
 		}
+		this.filas = filas;
+		this.columnas = columnas;
+		this.datos = datos;
 	}
-	
+
 	/**
-	 * Crea un arreglo de complejos dados sus partes reales e imaginarias 
-	 * @param numeros las partes reales e imaginarias de los numeros
-	 * @return el arrego de los numeros complejos .
+	 * A�ade los numeros a la matriz
+	 * @param numeros numeros para a�adir
 	 */
-	private Complejo[] crearComplejos(double[][] numeros) {
-		Complejo[] complejos = new Complejo[numeros.length];
-		for (int i  = 0; i < numeros.length;i++) {
-			complejos[i] = new Complejo(numeros[i][0],numeros[i][1]);
+	private void addNumeros(Complejo[] numeros) {
+		for (int i  = 0; i < filas*columnas;i++) {
+			datos[2*i] = numeros[i].getReal();
+			datos[2*i+1] = numeros[i].getImaginaria();
 		}
-		return complejos;
 	}
-	
+
 	/**
-	 * Da los numeros de la matriz 
+	 * Da los numeros de la matriz. Crea una copia en objetos Complejo, por lo que es lenta y
+	 * los cambios sobre el arreglo no se reflejan en la matriz.
 	 * @return un arreglo de los numero que tiene la matriz
 	 */
 	public Complejo[][] getNumeros(){
+		Complejo[][] numeros = new Complejo[filas][columnas];
+		for (int i  = 0; i < filas;i++) {
+			for (int j  = 0; j < columnas;j++) {
+				numeros[i][j] = getNumero(i, j);
+			}
+		}
 		return numeros;
 	}
-	
+
+	/**
+	 * Da el numero de una posicion de la matriz
+	 * @param fila la fila del numero
+	 * @param columna la columna del numero
+	 * @return el numero complejo en esa posicion
+	 */
+	public Complejo getNumero(int fila, int columna) {
+		int posicion = 2 * (fila * columnas + columna);
+		return new Complejo(datos[posicion], datos[posicion + 1]);
+	}
+
 	/**
-	 * Dice si la matriz es un vector 
+	 * Da la parte real del numero de una posicion de la matriz
+	 * @param fila la fila del numero
+	 * @param columna la columna del numero
+	 * @return la parte real del numero
+	 */
+	public double getReal(int fila, int columna) {
+		return datos[2 * (fila * columnas + columna)];
+	}
+
+	/**
+	 * Da la parte imaginaria del numero de una posicion de la matriz
+	 * @param fila la fila del numero
+	 * @param columna la columna del numero
+	 * @return la parte imaginaria del numero
+	 */
+	public double getImaginaria(int fila, int columna) {
+		return datos[2 * (fila * columnas + columna) + 1];
+	}
+
+	/**
+	 * Asigna el numero de una posicion de la matriz
+	 * @param fila la fila del numero
+	 * @param columna la columna del numero
+	 * @param real la parte real del numero
+	 * @param imaginaria la parte imaginaria del numero
+	 */
+	public void setNumero(int fila, int columna, double real, double imaginaria) {
+		int posicion = 2 * (fila * columnas + columna);
+		datos[posicion] = real;
+		datos[posicion + 1] = imaginaria;
+	}
+
+	/**
+	 * Da el arreglo intercalado (real, imaginaria) de la matriz, ordenado por filas. No es una copia.
+	 * @return los datos de la matriz
+	 */
+	public double[] getDatos() {
+		return datos;
+	}
+
+	/**
+	 * Da el numero de filas de la matriz
+	 * @return el numero de filas
+	 */
+	public int getFilas() {
+		return filas;
+	}
+
+	/**
+	 * Da el numero de columnas de la matriz
+	 * @return el numero de columnas
+	 */
+	public int getColumnas() {
+		return columnas;
+	}
+
+	@Override
+	public void aplicar(double[] b, double[] c, int columnas, ForkJoinPool pool) {
+		if (columnas == 1) {
+			ProductoMatricial.multiplicarVector(datos, b, c, filas, this.columnas, pool);
+		} else {
+			ProductoMatricial.multiplicar(datos, b, c, filas, this.columnas, columnas, pool);
+		}
+	}
+
+	/**
+	 * Dice si la matriz es un vector
 	 * @return si la matriz es un vector
 	 */
 	public boolean isVector() {
-		return numeros.length == 1 || numeros[0].length == 1;
+		return filas == 1 || columnas == 1;
 	}
-	
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.deepHashCode(numeros);
+		result = prime * result + filas;
+		result = prime * result + columnas;
+		for (int i = 0; i < datos.length; i++) {
+			long temp = Double.doubleToLongBits(datos[i] == 0 ? 0.0 : datos[i]);
+			result = prime * result + (int) (temp ^ (temp >>> 32));
+		}
 		return result;
 	}
 	@Override
@@ -102,20 +221,24 @@ public class Matriz {
 		if (getClass() != obj.getClass())
 			return false;
 		Matriz other = (Matriz) obj;
-		if (!Arrays.deepEquals(numeros, other.numeros))
+		if (filas != other.filas || columnas != other.columnas)
 			return false;
+		for (int i = 0; i < datos.length; i++) {
+			if (datos[i] != other.datos[i])
+				return false;
+		}
 		return true;
 	}
 
 	@Override
 	public String toString() {
-		String s  = "";
-		for (int i  = 0; i < this.numeros.length;i++) {
-			for (int j  = 0; j < this.numeros[0].length;j++) {
-				s += this.numeros[i][j].toString() + " ";
+		StringBuilder s  = new StringBuilder();
+		for (int i  = 0; i < filas;i++) {
+			for (int j  = 0; j < columnas;j++) {
+				s.append(getNumero(i, j).toString()).append(" ");
 			}
-			s += "\n";
+			s.append("\n");
 		}
-		return s;
+		return s.toString();
 	}
-}
\ No newline at end of file
+}
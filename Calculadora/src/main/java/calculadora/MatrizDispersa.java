@@ -0,0 +1,357 @@
+package calculadora;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Matriz compleja dispersa en formato CSR (filas comprimidas): solo guarda los numeros distintos de cero,
+ * fila por fila, con la columna de cada uno. Aplicarla cuesta en proporcion a la cantidad de numeros no nulos.
+ */
+public class MatrizDispersa implements Operador {
+
+	/**
+	 * Fraccion maxima de numeros no nulos para que valga la pena comprimir una matriz densa
+	 */
+	public static final double DENSIDAD_MAXIMA = 0.25;
+
+	private int filas;
+	private int columnas;
+	private int[] inicioFilas;
+	private int[] indiceColumnas;
+	private double[] valores;
+	private volatile MatrizDispersa porColumnas;
+
+	/**
+	 * Crea una matriz dispersa a partir de sus arreglos CSR. Los arreglos no se copian.
+	 * @param filas de la matriz
+	 * @param columnas de la matriz
+	 * @param inicioFilas posicion del primer numero de cada fila, con filas+1 posiciones
+	 * @param indiceColumnas columna de cada numero, en orden creciente dentro de cada fila
+	 * @param valores partes reales e imaginarias intercaladas de cada numero, ninguno igual a cero
+	 * @throws CalculadoraException cuando los arreglos no corresponden entre si, las filas no empiezan en
+	 * orden, alguna columna no existe o se repite, o se guarda un cero
+	 */
+	public MatrizDispersa(int filas, int columnas, int[] inicioFilas, int[] indiceColumnas, double[] valores) throws CalculadoraException {
+		if (filas < 0 || columnas < 0 || inicioFilas.length != filas + 1 || inicioFilas[0] != 0
+				|| inicioFilas[filas] != indiceColumnas.length || valores.length != 2 * indiceColumnas.length) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+		}
+		for (int i = 0; i < filas; i++) {
+			if (inicioFilas[i] > inicioFilas[i + 1]) {
+				throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+			}
+		}
+		for (int i = 0; i < filas; i++) {
+			for (int k = inicioFilas[i]; k < inicioFilas[i + 1]; k++) {
+				int j = indiceColumnas[k];
+				if (j < 0 || j >= columnas || (k > inicioFilas[i] && j <= indiceColumnas[k - 1])
+						|| (valores[2 * k] == 0 && valores[2 * k + 1] == 0)) {
+					throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+				}
+			}
+		}
+		this.filas = filas;
+		this.columnas = columnas;
+		this.inicioFilas = inicioFilas;
+		this.indiceColumnas = indiceColumnas;
+		this.valores = valores;
+	}
+
+	private MatrizDispersa() {
+	}
+
+	/**
+	 * Crea una matriz dispersa con los numeros distintos de cero de una matriz densa
+	 * @param m la matriz densa
+	 */
+	public MatrizDispersa(Matriz m) {
+		double[] datos = m.getDatos();
+		int noCeros = contarNoCeros(m);
+		this.filas = m.getFilas();
+		this.columnas = m.getColumnas();
+		this.inicioFilas = new int[filas + 1];
+		this.indiceColumnas = new int[noCeros];
+		this.valores = new double[2 * noCeros];
+		int k = 0;
+		for (int i = 0; i < filas; i++) {
+			inicioFilas[i] = k;
+			for (int j = 0; j < columnas; j++) {
+				int posicion = 2 * (i * columnas + j);
+				if (datos[posicion] != 0 || datos[posicion + 1] != 0) {
+					indiceColumnas[k] = j;
+					valores[2 * k] = datos[posicion];
+					valores[2 * k + 1] = datos[posicion + 1];
+					k++;
+				}
+			}
+		}
+		inicioFilas[filas] = k;
+	}
+
+	/**
+	 * Cuenta los numeros distintos de cero de una matriz densa
+	 * @param m la matriz
+	 * @return la cantidad de numeros no nulos
+	 */
+	public static int contarNoCeros(Matriz m) {
+		double[] datos = m.getDatos();
+		int noCeros = 0;
+		for (int i = 0; i < datos.length; i += 2) {
+			if (datos[i] != 0 || datos[i + 1] != 0) {
+				noCeros++;
+			}
+		}
+		return noCeros;
+	}
+
+	/**
+	 * Dice si una matriz densa tiene suficientes ceros para que valga la pena comprimirla
+	 * @param m la matriz
+	 * @return si la fraccion de numeros no nulos es a lo sumo DENSIDAD_MAXIMA
+	 */
+	public static boolean convieneComprimir(Matriz m) {
+		return contarNoCeros(m) <= DENSIDAD_MAXIMA * m.getFilas() * m.getColumnas();
+	}
+
+	@Override
+	public int getFilas() {
+		return filas;
+	}
+
+	@Override
+	public int getColumnas() {
+		return columnas;
+	}
+
+	/**
+	 * Da la cantidad de numeros distintos de cero guardados
+	 * @return la cantidad de numeros no nulos
+	 */
+	public int getNoCeros() {
+		return indiceColumnas.length;
+	}
+
+	/**
+	 * Da la posicion del primer numero de cada fila sin copiarla. No se debe modificar.
+	 * @return el arreglo de inicio de filas, con filas+1 posiciones
+	 */
+	int[] inicioFilas() {
+		return inicioFilas;
+	}
+
+	/**
+	 * Da la columna de cada numero guardado sin copiarla. No se debe modificar.
+	 * @return el arreglo de columnas
+	 */
+	int[] indiceColumnas() {
+		return indiceColumnas;
+	}
+
+	/**
+	 * Da los numeros guardados sin copiarlos. No se deben modificar.
+	 * @return partes reales e imaginarias intercaladas
+	 */
+	double[] valores() {
+		return valores;
+	}
+
+	/**
+	 * Da la matriz traspuesta en formato CSR, que es esta matriz en formato CSC (columnas comprimidas):
+	 * la fila j de la traspuesta tiene los numeros de la columna j con su fila. Se construye una sola
+	 * vez en O(noCeros + columnas), sin conjugar.
+	 * @return la traspuesta, que no se debe modificar
+	 */
+	MatrizDispersa porColumnas() {
+		MatrizDispersa traspuesta = porColumnas;
+		if (traspuesta == null) {
+			int noCeros = indiceColumnas.length;
+			int[] inicio = new int[columnas + 1];
+			for (int k = 0; k < noCeros; k++) {
+				inicio[indiceColumnas[k] + 1]++;
+			}
+			for (int j = 0; j < columnas; j++) {
+				inicio[j + 1] += inicio[j];
+			}
+			int[] siguiente = Arrays.copyOf(inicio, columnas);
+			int[] filasT = new int[noCeros];
+			double[] valoresT = new double[2 * noCeros];
+			for (int i = 0; i < filas; i++) {
+				for (int k = inicioFilas[i]; k < inicioFilas[i + 1]; k++) {
+					int destino = siguiente[indiceColumnas[k]]++;
+					filasT[destino] = i;
+					valoresT[2 * destino] = valores[2 * k];
+					valoresT[2 * destino + 1] = valores[2 * k + 1];
+				}
+			}
+			traspuesta = new MatrizDispersa();
+			traspuesta.filas = columnas;
+			traspuesta.columnas = filas;
+			traspuesta.inicioFilas = inicio;
+			traspuesta.indiceColumnas = filasT;
+			traspuesta.valores = valoresT;
+			porColumnas = traspuesta;
+		}
+		return traspuesta;
+	}
+
+	/**
+	 * Calcula c = A*b recorriendo solo los numeros no nulos de cada fila. Con varias columnas
+	 * cada numero no nulo suma su multiplo de una fila de b a la fila de c.
+	 */
+	@Override
+	public void aplicar(final double[] b, final double[] c, final int columnas, ForkJoinPool pool) {
+		if (!Paralelismo.enParalelo(pool, (long) getNoCeros() * columnas)) {
+			pool = null;
+		}
+		Paralelismo.ejecutar(pool, 0, filas, Paralelismo.tamanoParte(pool, filas, 1), new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				for (int i = desde; i < hasta; i++) {
+					if (columnas == 1) {
+						productoFila(i, b, c);
+					} else {
+						for (int k = inicioFilas[i]; k < inicioFilas[i + 1]; k++) {
+							Calculadora.axpy(valores[2 * k], valores[2 * k + 1], b, 2 * indiceColumnas[k] * columnas, 2, c, 2 * i * columnas, 2, columnas);
+						}
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Calcula una fila del producto de la matriz por un vector
+	 * @param i la fila
+	 * @param x el vector
+	 * @param y el vector resultado
+	 */
+	private void productoFila(int i, double[] x, double[] y) {
+		double real = 0;
+		double imaginaria = 0;
+		for (int k = inicioFilas[i]; k < inicioFilas[i + 1]; k++) {
+			double ar = valores[2 * k];
+			double ai = valores[2 * k + 1];
+			double br = x[2 * indiceColumnas[k]];
+			double bi = x[2 * indiceColumnas[k] + 1];
+			real = (ar * br - ai * bi) + real;
+			imaginaria = (ar * bi + ai * br) + imaginaria;
+		}
+		y[2 * i] = real;
+		y[2 * i + 1] = imaginaria;
+	}
+
+	/**
+	 * Calcula el producto tensorial de dos matrices dispersas sin pasar por la forma densa
+	 * @param m la primera matriz
+	 * @param m2 la segunda matriz
+	 * @return Una matriz dispersa con el resutado de producto tensorial entre las matrices.
+	 */
+	public static MatrizDispersa productoTensorial(MatrizDispersa m, MatrizDispersa m2) {
+		int filas = m.filas * m2.filas;
+		int noCeros = m.getNoCeros() * m2.getNoCeros();
+		int[] inicio = new int[filas + 1];
+		int[] indices = new int[noCeros];
+		double[] valores = new double[2 * noCeros];
+		int k = 0;
+		for (int i = 0; i < m.filas; i++) {
+			for (int i2 = 0; i2 < m2.filas; i2++) {
+				inicio[i * m2.filas + i2] = k;
+				for (int a = m.inicioFilas[i]; a < m.inicioFilas[i + 1]; a++) {
+					double ar = m.valores[2 * a];
+					double ai = m.valores[2 * a + 1];
+					for (int b = m2.inicioFilas[i2]; b < m2.inicioFilas[i2 + 1]; b++) {
+						double br = m2.valores[2 * b];
+						double bi = m2.valores[2 * b + 1];
+						indices[k] = m.indiceColumnas[a] * m2.columnas + m2.indiceColumnas[b];
+						valores[2 * k] = ar * br - ai * bi;
+						valores[2 * k + 1] = ar * bi + ai * br;
+						k++;
+					}
+				}
+			}
+		}
+		inicio[filas] = k;
+		MatrizDispersa respuesta = new MatrizDispersa();
+		respuesta.filas = filas;
+		respuesta.columnas = m.columnas * m2.columnas;
+		respuesta.inicioFilas = inicio;
+		respuesta.indiceColumnas = indices;
+		respuesta.valores = valores;
+		return respuesta;
+	}
+
+	/**
+	 * Convierte la matriz a su forma densa
+	 * @return una matriz densa con los mismos numeros
+	 */
+	public Matriz aDensa() {
+		Matriz densa = new Matriz(filas, columnas);
+		for (int i = 0; i < filas; i++) {
+			for (int k = inicioFilas[i]; k < inicioFilas[i + 1]; k++) {
+				densa.setNumero(i, indiceColumnas[k], valores[2 * k], valores[2 * k + 1]);
+			}
+		}
+		return densa;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + filas;
+		result = prime * result + columnas;
+		for (int i = 0; i < inicioFilas.length; i++) {
+			result = prime * result + inicioFilas[i];
+		}
+		for (int k = 0; k < indiceColumnas.length; k++) {
+			result = prime * result + indiceColumnas[k];
+		}
+		for (int i = 0; i < valores.length; i++) {
+			long temp = Double.doubleToLongBits(valores[i] == 0 ? 0.0 : valores[i]);
+			result = prime * result + (int) (temp ^ (temp >>> 32));
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		MatrizDispersa other = (MatrizDispersa) obj;
+		if (filas != other.filas || columnas != other.columnas || indiceColumnas.length != other.indiceColumnas.length)
+			return false;
+		for (int i = 0; i < inicioFilas.length; i++) {
+			if (inicioFilas[i] != other.inicioFilas[i])
+				return false;
+		}
+		for (int k = 0; k < indiceColumnas.length; k++) {
+			if (indiceColumnas[k] != other.indiceColumnas[k])
+				return false;
+		}
+		for (int i = 0; i < valores.length; i++) {
+			if (valores[i] != other.valores[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Escribe solo los numeros guardados, uno por linea, con su fila y su columna
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		s.append(filas).append(" x ").append(columnas).append("\n");
+		for (int i = 0; i < filas; i++) {
+			for (int k = inicioFilas[i]; k < inicioFilas[i + 1]; k++) {
+				s.append("(").append(i).append(", ").append(indiceColumnas[k]).append(") ");
+				s.append(new Complejo(valores[2 * k], valores[2 * k + 1]).toString()).append("\n");
+			}
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,92 @@
+package calculadora;
+
+import java.util.Arrays;
+
+/**
+ * Aplicacion de una compuerta sobre unos qubits dentro de un circuito. Es inmutable.
+ * Dos operaciones son iguales si actuan sobre los mismos qubits con compuertas de los mismos numeros.
+ */
+public final class Operacion {
+	private final Compuerta compuerta;
+	private final int[] objetivos;
+
+	/**
+	 * Crea la operacion
+	 * @param compuerta la compuerta
+	 * @param objetivos los qubits sobre los que actua, el primero es el bit mas significativo de la compuerta
+	 * @throws CalculadoraException cuando la cantidad de qubits no corresponde a la compuerta o alguno esta repetido
+	 */
+	public Operacion(Compuerta compuerta, int... objetivos) throws CalculadoraException {
+		if (objetivos.length != compuerta.getQubits()) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		for (int i = 0; i < objetivos.length; i++) {
+			if (objetivos[i] < 0) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+			for (int j = 0; j < i; j++) {
+				if (objetivos[i] == objetivos[j]) {
+					throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+				}
+			}
+		}
+		this.compuerta = compuerta;
+		this.objetivos = objetivos.clone();
+	}
+
+	/**
+	 * Da la compuerta de la operacion
+	 * @return la compuerta
+	 */
+	public Compuerta getCompuerta() {
+		return compuerta;
+	}
+
+	/**
+	 * Da los qubits sobre los que actua la operacion
+	 * @return una copia de los qubits
+	 */
+	public int[] getObjetivos() {
+		return objetivos.clone();
+	}
+
+	/**
+	 * Da los qubits sobre los que actua la operacion sin copiarlos. No se deben modificar.
+	 * @return los qubits
+	 */
+	int[] objetivos() {
+		return objetivos;
+	}
+
+	/**
+	 * Aplica la operacion sobre un vector de estado
+	 * @param estado el vector de estado
+	 * @throws CalculadoraException cuando algun qubit no existe en el estado
+	 */
+	public void aplicar(VectorEstado estado) throws CalculadoraException {
+		estado.aplicar(compuerta, objetivos);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(objetivos) + compuerta.huella();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Operacion other = (Operacion) obj;
+		return Arrays.equals(objetivos, other.objetivos)
+				&& compuerta.mismosNumeros(other.compuerta);
+	}
+
+	@Override
+	public String toString() {
+		return compuerta.getNombre() + Arrays.toString(objetivos);
+	}
+}
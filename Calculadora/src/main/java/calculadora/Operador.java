@@ -0,0 +1,31 @@
+package calculadora;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Un operador lineal complejo que se puede aplicar sobre matrices densas, sin importar como guarde sus numeros.
+ * Los arreglos son intercalados (real, imaginaria) y ordenados por filas, como los de Matriz.
+ */
+public interface Operador {
+
+	/**
+	 * Da el numero de filas del operador
+	 * @return el numero de filas
+	 */
+	int getFilas();
+
+	/**
+	 * Da el numero de columnas del operador
+	 * @return el numero de columnas
+	 */
+	int getColumnas();
+
+	/**
+	 * Calcula c = A*b
+	 * @param b los datos de una matriz de getColumnas() filas
+	 * @param c los datos de la matriz resultado, de getFilas() filas, en ceros
+	 * @param columnas el numero de columnas de b y de c
+	 * @param pool el pool para repartir el calculo, o null para hacerlo en este hilo
+	 */
+	void aplicar(double[] b, double[] c, int columnas, ForkJoinPool pool);
+}
@@ -0,0 +1,190 @@
+package calculadora;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Producto tensorial (de Kronecker) de varias matrices que no se construye: guarda los factores y
+ * los aplica uno por uno sobre el vector visto como un tensor. Con n factores de 2x2 ocupa O(n) en
+ * lugar de O(4^n) y aplicarlo cuesta O(n*2^n) en lugar de O(4^n).
+ */
+public class OperadorKronecker implements Operador {
+	private final Matriz[] factores;
+	private final int filas;
+	private final int columnas;
+
+	/**
+	 * Crea el producto tensorial de las matrices, en el orden dado. Las matrices no se copian.
+	 * @param factores las matrices, al menos una
+	 * @throws CalculadoraException cuando no hay factores
+	 */
+	public OperadorKronecker(Matriz... factores) throws CalculadoraException {
+		if (factores.length == 0) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+		}
+		this.factores = factores.clone();
+		long filas = 1;
+		long columnas = 1;
+		for (Matriz m : factores) {
+			filas *= m.getFilas();
+			columnas *= m.getColumnas();
+			if (filas > Integer.MAX_VALUE / 2 || columnas > Integer.MAX_VALUE / 2) {
+				throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+			}
+		}
+		this.filas = (int) filas;
+		this.columnas = (int) columnas;
+	}
+
+	/**
+	 * Crea el producto tensorial de una matriz consigo misma
+	 * @param m la matriz
+	 * @param veces cantidad de factores, al menos uno
+	 * @return el operador m (x) m (x) ... (x) m
+	 * @throws CalculadoraException cuando veces es menor que uno
+	 */
+	public static OperadorKronecker repetir(Matriz m, int veces) throws CalculadoraException {
+		Matriz[] factores = new Matriz[Math.max(0, veces)];
+		for (int i = 0; i < factores.length; i++) {
+			factores[i] = m;
+		}
+		return new OperadorKronecker(factores);
+	}
+
+	@Override
+	public int getFilas() {
+		return filas;
+	}
+
+	@Override
+	public int getColumnas() {
+		return columnas;
+	}
+
+	/**
+	 * Da los factores del producto
+	 * @return una copia del arreglo de factores
+	 */
+	public Matriz[] getFactores() {
+		return factores.clone();
+	}
+
+	/**
+	 * Calcula c = (F1 (x) F2 (x) ... (x) Fk)*b. Las filas de b se ven como un tensor con un indice por factor
+	 * y las columnas de b como un ultimo indice; cada factor se aplica sobre su indice dejando los demas fijos.
+	 */
+	@Override
+	public void aplicar(double[] b, double[] c, int columnas, ForkJoinPool pool) {
+		int[] derechas = new int[factores.length];
+		int derecha = columnas;
+		for (int j = factores.length - 1; j >= 0; j--) {
+			derechas[j] = derecha;
+			derecha *= factores[j].getColumnas();
+		}
+		int maximo = 0;
+		int izquierda = 1;
+		for (int j = 0; j < factores.length - 1; j++) {
+			izquierda *= factores[j].getFilas();
+			maximo = Math.max(maximo, 2 * izquierda * derechas[j]);
+		}
+		double[][] auxiliares = new double[2][];
+		double[] entrada = b;
+		izquierda = 1;
+		for (int j = 0; j < factores.length; j++) {
+			double[] salida = c;
+			if (j < factores.length - 1) {
+				if (auxiliares[j % 2] == null) {
+					auxiliares[j % 2] = new double[maximo];
+				}
+				salida = auxiliares[j % 2];
+			}
+			aplicarFactor(factores[j], entrada, salida, izquierda, derechas[j], pool);
+			entrada = salida;
+			izquierda *= factores[j].getFilas();
+		}
+	}
+
+	/**
+	 * Aplica un factor sobre su indice: salida[l][r][d] = suma de F[r][k]*entrada[l][k][d]
+	 * @param factor la matriz del factor
+	 * @param entrada el tensor de entrada, de izquierda x columnas del factor x derecha
+	 * @param salida el tensor de salida, de izquierda x filas del factor x derecha
+	 * @param izquierda producto de las dimensiones antes del indice
+	 * @param derecha producto de las dimensiones despues del indice
+	 * @param pool el pool para repartir el calculo, o null para hacerlo en este hilo
+	 */
+	private static void aplicarFactor(Matriz factor, final double[] entrada, final double[] salida, int izquierda, final int derecha, ForkJoinPool pool) {
+		final double[] f = factor.getDatos();
+		final int filasF = factor.getFilas();
+		final int columnasF = factor.getColumnas();
+		int fibras = izquierda * derecha;
+		if (!Paralelismo.enParalelo(pool, (long) fibras * filasF * columnasF)) {
+			pool = null;
+		}
+		Paralelismo.ejecutar(pool, 0, fibras, Paralelismo.tamanoParte(pool, fibras, 1), new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				for (int fibra = desde; fibra < hasta; fibra++) {
+					int l = fibra / derecha;
+					int d = fibra % derecha;
+					int origen = 2 * (l * columnasF * derecha + d);
+					int destino = 2 * (l * filasF * derecha + d);
+					for (int r = 0; r < filasF; r++) {
+						Calculadora.productoPunto(f, 2 * r * columnasF, 2, entrada, origen, 2 * derecha, columnasF, salida, destino + 2 * r * derecha);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Construye la matriz densa del producto tensorial
+	 * @return una matriz densa con el producto de los factores
+	 */
+	public Matriz aDensa() {
+		Matriz densa = factores[0];
+		for (int j = 1; j < factores.length; j++) {
+			densa = CalculadoraMatrices.productoTensorial(densa, factores[j]);
+		}
+		if (densa == factores[0]) {
+			densa = new Matriz(densa.getFilas(), densa.getColumnas());
+			System.arraycopy(factores[0].getDatos(), 0, densa.getDatos(), 0, densa.getDatos().length);
+		}
+		return densa;
+	}
+
+	/**
+	 * Dos productos son iguales cuando tienen los mismos factores en el mismo orden
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(factores);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		OperadorKronecker other = (OperadorKronecker) obj;
+		return Arrays.equals(factores, other.factores);
+	}
+
+	/**
+	 * Escribe los factores separados por (x), sin construir el producto
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (int j = 0; j < factores.length; j++) {
+			if (j > 0) {
+				s.append("(x)\n");
+			}
+			s.append(factores[j].toString());
+		}
+		return s.toString();
+	}
+}
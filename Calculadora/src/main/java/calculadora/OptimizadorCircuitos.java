@@ -0,0 +1,227 @@
+package calculadora;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compila un circuito en otro equivalente con menos pasadas sobre el vector de estado. Recorre las
+ * operaciones en orden y junta cada una con el ultimo bloque de sus qubits, o con el ultimo bloque del
+ * circuito, mientras el bloque no pase de un maximo de qubits: las compuertas seguidas de un qubit se
+ * multiplican en una sola de 2x2 y las de un qubit junto a una de dos (como H(x)I despues del oraculo
+ * de Deutsch) se funden en una de 4x4.
+ * Los bloques que resultan ser la identidad, como H seguida de H, se eliminan.
+ */
+public final class OptimizadorCircuitos {
+
+	/**
+	 * Cantidad de qubits por defecto de los bloques fundidos
+	 */
+	public static final int MAXIMO_QUBITS = 2;
+
+	/**
+	 * Cantidad maxima de qubits que se puede pedir para un bloque; su matriz densa es de 2^k x 2^k
+	 */
+	public static final int MAXIMO_QUBITS_BLOQUE = 4;
+
+	/**
+	 * Diferencia maxima con la identidad para descartar un bloque
+	 */
+	public static final double TOLERANCIA = 1e-12;
+
+	private OptimizadorCircuitos() {
+	}
+
+	/**
+	 * Optimiza un circuito fundiendo compuertas en bloques de hasta dos qubits
+	 * @param circuito el circuito
+	 * @return un circuito nuevo equivalente
+	 * @throws CalculadoraException excepciones al construir las compuertas fundidas
+	 */
+	public static Circuito optimizar(Circuito circuito) throws CalculadoraException {
+		return optimizar(circuito, MAXIMO_QUBITS);
+	}
+
+	/**
+	 * Optimiza un circuito fundiendo compuertas en bloques de hasta cierta cantidad de qubits
+	 * @param circuito el circuito
+	 * @param maximoQubits cantidad maxima de qubits de un bloque fundido, entre 1 y MAXIMO_QUBITS_BLOQUE
+	 * @return un circuito nuevo equivalente
+	 * @throws CalculadoraException cuando el maximo de qubits no es valido, o excepciones al construir las
+	 * compuertas fundidas
+	 */
+	public static Circuito optimizar(Circuito circuito, int maximoQubits) throws CalculadoraException {
+		if (maximoQubits < 1 || maximoQubits > MAXIMO_QUBITS_BLOQUE) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		List<Bloque> bloques = new ArrayList<Bloque>();
+		int[] ultimo = new int[circuito.getQubits()];
+		Arrays.fill(ultimo, -1);
+		for (Operacion operacion : circuito.getOperaciones()) {
+			int[] objetivos = operacion.objetivos();
+			int candidato = -1;
+			for (int q : objetivos) {
+				candidato = Math.max(candidato, ultimo[q]);
+			}
+			// Despues del ultimo bloque de sus qubits ningun bloque los toca: la operacion se puede
+			// adelantar hasta ese bloque o hasta cualquiera posterior
+			int destino = -1;
+			if (candidato >= 0 && union(bloques.get(candidato).objetivos, objetivos).length <= maximoQubits) {
+				destino = candidato;
+			} else if (bloques.size() - 1 > candidato && union(bloques.get(bloques.size() - 1).objetivos, objetivos).length <= maximoQubits) {
+				destino = bloques.size() - 1;
+			}
+			if (destino >= 0) {
+				bloques.get(destino).agregar(operacion);
+			} else {
+				bloques.add(new Bloque(operacion));
+				destino = bloques.size() - 1;
+			}
+			for (int q : objetivos) {
+				ultimo[q] = destino;
+			}
+		}
+		Circuito optimizado = new Circuito(circuito.getQubits(), circuito.getInicial());
+		for (Bloque bloque : bloques) {
+			if (bloque.operaciones.size() == 1) {
+				optimizado.agregar(bloque.operaciones.get(0));
+			} else if (!esIdentidad(bloque.matriz)) {
+				optimizado.agregar(new Compuerta(bloque.nombre(), bloque.objetivos.length, bloque.matriz.getDatos()), bloque.objetivos);
+			}
+		}
+		return optimizado;
+	}
+
+	/**
+	 * Une los qubits de un bloque con los de una operacion, conservando el orden del bloque
+	 * @param actuales los qubits del bloque
+	 * @param nuevos los qubits de la operacion
+	 * @return los qubits de ambos sin repetir
+	 */
+	private static int[] union(int[] actuales, int[] nuevos) {
+		int[] union = Arrays.copyOf(actuales, actuales.length + nuevos.length);
+		int tamano = actuales.length;
+		for (int q : nuevos) {
+			boolean esta = false;
+			for (int i = 0; i < actuales.length; i++) {
+				esta |= actuales[i] == q;
+			}
+			if (!esta) {
+				union[tamano++] = q;
+			}
+		}
+		return Arrays.copyOf(union, tamano);
+	}
+
+	/**
+	 * Extiende la matriz de una compuerta a un conjunto mayor de qubits, con la identidad en los demas
+	 * @param compuerta la matriz de la compuerta
+	 * @param objetivos los qubits de la compuerta
+	 * @param espacio los qubits del bloque, que incluyen a los de la compuerta
+	 * @return la matriz de la compuerta sobre los qubits del bloque
+	 */
+	private static Matriz extender(double[] compuerta, int[] objetivos, int[] espacio) {
+		int k = espacio.length;
+		int dimension = 1 << k;
+		int dimensionCompuerta = 1 << objetivos.length;
+		int[] bits = new int[objetivos.length];
+		int mascara = 0;
+		for (int i = 0; i < objetivos.length; i++) {
+			for (int j = 0; j < k; j++) {
+				if (espacio[j] == objetivos[i]) {
+					bits[i] = 1 << (k - 1 - j);
+				}
+			}
+			mascara |= bits[i];
+		}
+		Matriz extendida = new Matriz(dimension, dimension);
+		for (int r = 0; r < dimension; r++) {
+			for (int c = 0; c < dimension; c++) {
+				if ((r & ~mascara) == (c & ~mascara)) {
+					int posicion = 2 * (indice(r, bits) * dimensionCompuerta + indice(c, bits));
+					extendida.setNumero(r, c, compuerta[posicion], compuerta[posicion + 1]);
+				}
+			}
+		}
+		return extendida;
+	}
+
+	/**
+	 * Lee el indice de la compuerta a partir de los bits de sus qubits en el indice del bloque
+	 * @param indice indice en el bloque
+	 * @param bits la mascara de cada qubit de la compuerta, del mas significativo al menos
+	 * @return el indice en la compuerta
+	 */
+	private static int indice(int indice, int[] bits) {
+		int respuesta = 0;
+		for (int b : bits) {
+			respuesta = (respuesta << 1) | ((indice & b) != 0 ? 1 : 0);
+		}
+		return respuesta;
+	}
+
+	/**
+	 * Dice si una matriz es la identidad dentro de la tolerancia
+	 * @param m la matriz
+	 * @return si se puede descartar
+	 */
+	private static boolean esIdentidad(Matriz m) {
+		double[] datos = m.getDatos();
+		for (int i = 0; i < m.getFilas(); i++) {
+			for (int j = 0; j < m.getColumnas(); j++) {
+				int posicion = 2 * (i * m.getColumnas() + j);
+				if (Math.abs(datos[posicion] - (i == j ? 1 : 0)) > TOLERANCIA || Math.abs(datos[posicion + 1]) > TOLERANCIA) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Grupo de operaciones seguidas que se aplican como una sola compuerta
+	 */
+	private static final class Bloque {
+		private int[] objetivos;
+		// se construye al agregar la segunda operacion; un bloque de una sola operacion la conserva
+		private Matriz matriz;
+		private final List<Operacion> operaciones = new ArrayList<Operacion>();
+
+		Bloque(Operacion operacion) {
+			this.objetivos = operacion.objetivos();
+			this.operaciones.add(operacion);
+		}
+
+		/**
+		 * Agrega una operacion despues de las del bloque
+		 * @param operacion la operacion
+		 * @throws CalculadoraException excepciones de la multiplicacion de matrices
+		 */
+		void agregar(Operacion operacion) throws CalculadoraException {
+			int[] espacio = union(objetivos, operacion.objetivos());
+			if (matriz == null) {
+				matriz = operaciones.get(0).getCompuerta().aMatriz();
+			}
+			Matriz anterior = espacio.length == objetivos.length ? matriz : extender(matriz.getDatos(), objetivos, espacio);
+			Matriz nueva = extender(operacion.getCompuerta().datos(), operacion.objetivos(), espacio);
+			matriz = CalculadoraMatrices.matrizPorMatriz(nueva, anterior, null);
+			objetivos = espacio;
+			operaciones.add(operacion);
+		}
+
+		/**
+		 * Da el nombre de la compuerta fundida
+		 * @return los nombres de las compuertas en el orden en que se aplican
+		 */
+		String nombre() {
+			StringBuilder nombre = new StringBuilder();
+			for (Operacion operacion : operaciones) {
+				if (nombre.length() > 0) {
+					nombre.append("*");
+				}
+				nombre.append(operacion.toString());
+			}
+			return nombre.toString();
+		}
+	}
+}
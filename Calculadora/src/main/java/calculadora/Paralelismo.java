@@ -0,0 +1,121 @@
+package calculadora;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Configuracion de la ejecucion en paralelo de las operaciones de la calculadora.
+ * Las operaciones reparten rangos de filas entre los hilos del pool; cada fila se calcula
+ * siempre igual, por lo que el resultado no depende de la cantidad de hilos.
+ */
+public class Paralelismo {
+	private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+	private static volatile long umbral = 1L << 18;
+
+	/**
+	 * Un calculo que se puede hacer por partes sobre un rango de indices
+	 */
+	interface Rango {
+		/**
+		 * Hace el calculo de los indices [desde, hasta)
+		 * @param desde primer indice
+		 * @param hasta indice siguiente al ultimo
+		 */
+		void calcular(int desde, int hasta);
+	}
+
+	/**
+	 * Da el pool usado por defecto en las operaciones en paralelo
+	 * @return el pool, o null si las operaciones se hacen en un solo hilo
+	 */
+	public static ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Cambia el pool usado por defecto en las operaciones en paralelo
+	 * @param pool el nuevo pool, o null para hacer todas las operaciones en un solo hilo
+	 */
+	public static void setPool(ForkJoinPool pool) {
+		Paralelismo.pool = pool;
+	}
+
+	/**
+	 * Da la cantidad minima de multiplicaciones complejas de una operacion para hacerla en paralelo
+	 * @return el umbral
+	 */
+	public static long getUmbral() {
+		return umbral;
+	}
+
+	/**
+	 * Cambia la cantidad minima de multiplicaciones complejas de una operacion para hacerla en paralelo
+	 * @param umbral el nuevo umbral
+	 */
+	public static void setUmbral(long umbral) {
+		Paralelismo.umbral = umbral;
+	}
+
+	/**
+	 * Dice si una operacion debe hacerse en paralelo
+	 * @param pool el pool con el que se haria
+	 * @param trabajo cantidad de multiplicaciones complejas de la operacion
+	 * @return si vale la pena repartir la operacion
+	 */
+	static boolean enParalelo(ForkJoinPool pool, long trabajo) {
+		return pool != null && pool.getParallelism() > 1 && trabajo >= umbral;
+	}
+
+	/**
+	 * Hace un calculo sobre el rango [desde, hasta) repartiendolo en partes de al menos minimo indices
+	 * @param pool el pool que hace el calculo, o null para hacerlo en este hilo
+	 * @param desde primer indice
+	 * @param hasta indice siguiente al ultimo
+	 * @param minimo tamano minimo de cada parte
+	 * @param rango el calculo
+	 */
+	static void ejecutar(ForkJoinPool pool, int desde, int hasta, int minimo, Rango rango) {
+		if (pool == null || hasta - desde <= minimo) {
+			rango.calcular(desde, hasta);
+		} else {
+			pool.invoke(new Tarea(desde, hasta, Math.max(1, minimo), rango));
+		}
+	}
+
+	/**
+	 * Da el tamano de cada parte para repartir un rango entre los hilos de un pool
+	 * @param pool el pool
+	 * @param tamano tamano del rango
+	 * @param minimo tamano minimo de cada parte
+	 * @return el tamano de cada parte
+	 */
+	static int tamanoParte(ForkJoinPool pool, int tamano, int minimo) {
+		int partes = pool == null ? 1 : 4 * pool.getParallelism();
+		return Math.max(minimo, (tamano + partes - 1) / partes);
+	}
+
+	private static class Tarea extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int desde;
+		private final int hasta;
+		private final int minimo;
+		private final Rango rango;
+
+		Tarea(int desde, int hasta, int minimo, Rango rango) {
+			this.desde = desde;
+			this.hasta = hasta;
+			this.minimo = minimo;
+			this.rango = rango;
+		}
+
+		@Override
+		protected void compute() {
+			if (hasta - desde <= minimo) {
+				rango.calcular(desde, hasta);
+			} else {
+				int mitad = (desde + hasta) >>> 1;
+				invokeAll(new Tarea(desde, mitad, minimo, rango), new Tarea(mitad, hasta, minimo, rango));
+			}
+		}
+	}
+}
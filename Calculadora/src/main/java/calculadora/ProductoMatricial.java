@@ -0,0 +1,250 @@
+package calculadora;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Multiplicacion de matrices complejas sobre arreglos intercalados (real, imaginaria) ordenados por filas.
+ * Para matrices grandes usa bloques que caben en cache, paneles empaquetados de la segunda matriz
+ * y un nucleo que acumula bloques de 2x2 resultados en registros. Los terminos de cada resultado
+ * se suman siempre en el mismo orden, por lo que ambos caminos dan exactamente el mismo valor.
+ * Las filas del resultado se pueden repartir entre los hilos de un pool sin cambiar el resultado.
+ */
+final class ProductoMatricial {
+
+	/**
+	 * Dimension minima de las matrices para usar la multiplicacion por bloques
+	 */
+	static final int UMBRAL_BLOQUES = 64;
+
+	/**
+	 * Cantidad de terminos (k) de cada bloque
+	 */
+	private static final int BLOQUE_K = 128;
+
+	/**
+	 * Cantidad de columnas (j) de cada panel empaquetado
+	 */
+	private static final int BLOQUE_J = 256;
+
+	private ProductoMatricial() {
+	}
+
+	/**
+	 * Calcula c = a*b escogiendo el camino segun el tamano
+	 * @param a la primera matriz, de m filas y n columnas
+	 * @param b la segunda matriz, de n filas y p columnas
+	 * @param c la matriz resultado, de m filas y p columnas, en ceros
+	 * @param m filas de a
+	 * @param n columnas de a y filas de b
+	 * @param p columnas de b
+	 * @param pool el pool para repartir las filas, o null para hacerlo en este hilo
+	 */
+	static void multiplicar(final double[] a, final double[] b, final double[] c, int m, final int n, final int p, ForkJoinPool pool) {
+		final boolean bloques = m >= UMBRAL_BLOQUES && n >= UMBRAL_BLOQUES && p >= UMBRAL_BLOQUES;
+		if (!Paralelismo.enParalelo(pool, (long) m * n * p)) {
+			pool = null;
+		}
+		int minimo = Paralelismo.tamanoParte(pool, m, bloques ? UMBRAL_BLOQUES : 1);
+		Paralelismo.ejecutar(pool, 0, m, minimo, new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				if (bloques) {
+					multiplicarBloques(a, b, c, desde, hasta, n, p);
+				} else {
+					multiplicarDirecto(a, b, c, desde, hasta, n, p);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Calcula y = a*x para un vector x
+	 * @param a la matriz, de m filas y n columnas
+	 * @param x el vector, de n filas
+	 * @param y el vector resultado, de m filas
+	 * @param m filas de a
+	 * @param n columnas de a
+	 * @param pool el pool para repartir las filas, o null para hacerlo en este hilo
+	 */
+	static void multiplicarVector(final double[] a, final double[] x, final double[] y, int m, final int n, ForkJoinPool pool) {
+		if (!Paralelismo.enParalelo(pool, (long) m * n)) {
+			pool = null;
+		}
+		Paralelismo.ejecutar(pool, 0, m, Paralelismo.tamanoParte(pool, m, 1), new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				for (int i = desde; i < hasta; i++) {
+					Calculadora.productoPunto(a, 2 * i * n, 2, x, 0, 2, n, y, 2 * i);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Calcula las filas [desde, hasta) de c = a*b recorriendo las filas de b
+	 * @param a la primera matriz
+	 * @param b la segunda matriz
+	 * @param c la matriz resultado, en ceros
+	 * @param desde primera fila a calcular
+	 * @param hasta fila siguiente a la ultima a calcular
+	 * @param n columnas de a y filas de b
+	 * @param p columnas de b
+	 */
+	static void multiplicarDirecto(double[] a, double[] b, double[] c, int desde, int hasta, int n, int p) {
+		for (int i = desde; i < hasta; i++) {
+			for (int j = 0; j < n; j++) {
+				Calculadora.axpy(a[2 * (i * n + j)], a[2 * (i * n + j) + 1], b, 2 * j * p, 2, c, 2 * i * p, 2, p);
+			}
+		}
+	}
+
+	/**
+	 * Calcula las filas [desde, hasta) de c = a*b por bloques
+	 * @param a la primera matriz
+	 * @param b la segunda matriz
+	 * @param c la matriz resultado, en ceros
+	 * @param desde primera fila a calcular
+	 * @param hasta fila siguiente a la ultima a calcular
+	 * @param n columnas de a y filas de b
+	 * @param p columnas de b
+	 */
+	static void multiplicarBloques(double[] a, double[] b, double[] c, int desde, int hasta, int n, int p) {
+		double[] panel = new double[4 * BLOQUE_K * ((BLOQUE_J + 1) / 2)];
+		for (int jj = 0; jj < p; jj += BLOQUE_J) {
+			int bj = Math.min(BLOQUE_J, p - jj);
+			for (int kk = 0; kk < n; kk += BLOQUE_K) {
+				int bk = Math.min(BLOQUE_K, n - kk);
+				empaquetar(b, panel, kk, bk, jj, bj, p);
+				int i = desde;
+				for (; i + 1 < hasta; i += 2) {
+					for (int j = 0; j < bj; j += 2) {
+						nucleoDosFilas(a, panel, c, i, kk, bk, jj + j, Math.min(2, bj - j), j / 2, n, p);
+					}
+				}
+				if (i < hasta) {
+					for (int j = 0; j < bj; j += 2) {
+						nucleoUnaFila(a, panel, c, i, kk, bk, jj + j, Math.min(2, bj - j), j / 2, n, p);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copia un bloque de b en el panel, por parejas de columnas: para cada k quedan
+	 * seguidos los dos numeros de la pareja. Si la ultima pareja tiene una sola columna se completa con ceros.
+	 * @param b la segunda matriz
+	 * @param panel arreglo donde se empaqueta el bloque
+	 * @param kk primera fila del bloque
+	 * @param bk cantidad de filas del bloque
+	 * @param jj primera columna del bloque
+	 * @param bj cantidad de columnas del bloque
+	 * @param p columnas de b
+	 */
+	private static void empaquetar(double[] b, double[] panel, int kk, int bk, int jj, int bj, int p) {
+		int posicion = 0;
+		for (int j = 0; j < bj; j += 2) {
+			boolean pareja = j + 1 < bj;
+			for (int k = 0; k < bk; k++) {
+				int origen = 2 * ((kk + k) * p + jj + j);
+				panel[posicion] = b[origen];
+				panel[posicion + 1] = b[origen + 1];
+				panel[posicion + 2] = pareja ? b[origen + 2] : 0;
+				panel[posicion + 3] = pareja ? b[origen + 3] : 0;
+				posicion += 4;
+			}
+		}
+	}
+
+	/**
+	 * Acumula en c el aporte de un bloque para dos filas y una pareja de columnas
+	 * @param a la primera matriz
+	 * @param panel el bloque empaquetado de b
+	 * @param c la matriz resultado
+	 * @param i primera de las dos filas
+	 * @param kk primer termino del bloque
+	 * @param bk cantidad de terminos del bloque
+	 * @param j primera columna de la pareja
+	 * @param columnas columnas validas de la pareja (1 o 2)
+	 * @param pareja indice de la pareja dentro del panel
+	 * @param n columnas de a
+	 * @param p columnas de c
+	 */
+	private static void nucleoDosFilas(double[] a, double[] panel, double[] c, int i, int kk, int bk, int j, int columnas, int pareja, int n, int p) {
+		int c0 = 2 * (i * p + j);
+		int c1 = c0 + 2 * p;
+		double r00 = c[c0], i00 = c[c0 + 1];
+		double r10 = c[c1], i10 = c[c1 + 1];
+		double r01 = 0, i01 = 0, r11 = 0, i11 = 0;
+		if (columnas == 2) {
+			r01 = c[c0 + 2]; i01 = c[c0 + 3];
+			r11 = c[c1 + 2]; i11 = c[c1 + 3];
+		}
+		int pa0 = 2 * (i * n + kk);
+		int pa1 = pa0 + 2 * n;
+		int pb = 4 * bk * pareja;
+		for (int k = 0; k < bk; k++) {
+			double ar0 = a[pa0], ai0 = a[pa0 + 1];
+			double ar1 = a[pa1], ai1 = a[pa1 + 1];
+			double br0 = panel[pb], bi0 = panel[pb + 1];
+			double br1 = panel[pb + 2], bi1 = panel[pb + 3];
+			r00 = (ar0 * br0 - ai0 * bi0) + r00;
+			i00 = (ar0 * bi0 + ai0 * br0) + i00;
+			r01 = (ar0 * br1 - ai0 * bi1) + r01;
+			i01 = (ar0 * bi1 + ai0 * br1) + i01;
+			r10 = (ar1 * br0 - ai1 * bi0) + r10;
+			i10 = (ar1 * bi0 + ai1 * br0) + i10;
+			r11 = (ar1 * br1 - ai1 * bi1) + r11;
+			i11 = (ar1 * bi1 + ai1 * br1) + i11;
+			pa0 += 2;
+			pa1 += 2;
+			pb += 4;
+		}
+		c[c0] = r00; c[c0 + 1] = i00;
+		c[c1] = r10; c[c1 + 1] = i10;
+		if (columnas == 2) {
+			c[c0 + 2] = r01; c[c0 + 3] = i01;
+			c[c1 + 2] = r11; c[c1 + 3] = i11;
+		}
+	}
+
+	/**
+	 * Acumula en c el aporte de un bloque para una fila y una pareja de columnas
+	 * @param a la primera matriz
+	 * @param panel el bloque empaquetado de b
+	 * @param c la matriz resultado
+	 * @param i la fila
+	 * @param kk primer termino del bloque
+	 * @param bk cantidad de terminos del bloque
+	 * @param j primera columna de la pareja
+	 * @param columnas columnas validas de la pareja (1 o 2)
+	 * @param pareja indice de la pareja dentro del panel
+	 * @param n columnas de a
+	 * @param p columnas de c
+	 */
+	private static void nucleoUnaFila(double[] a, double[] panel, double[] c, int i, int kk, int bk, int j, int columnas, int pareja, int n, int p) {
+		int c0 = 2 * (i * p + j);
+		double r00 = c[c0], i00 = c[c0 + 1];
+		double r01 = 0, i01 = 0;
+		if (columnas == 2) {
+			r01 = c[c0 + 2]; i01 = c[c0 + 3];
+		}
+		int pa0 = 2 * (i * n + kk);
+		int pb = 4 * bk * pareja;
+		for (int k = 0; k < bk; k++) {
+			double ar0 = a[pa0], ai0 = a[pa0 + 1];
+			double br0 = panel[pb], bi0 = panel[pb + 1];
+			double br1 = panel[pb + 2], bi1 = panel[pb + 3];
+			r00 = (ar0 * br0 - ai0 * bi0) + r00;
+			i00 = (ar0 * bi0 + ai0 * br0) + i00;
+			r01 = (ar0 * br1 - ai0 * bi1) + r01;
+			i01 = (ar0 * bi1 + ai0 * br1) + i01;
+			pa0 += 2;
+			pb += 4;
+		}
+		c[c0] = r00; c[c0 + 1] = i00;
+		if (columnas == 2) {
+			c[c0 + 2] = r01; c[c0 + 3] = i01;
+		}
+	}
+}
@@ -0,0 +1,383 @@
+package calculadora;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Calcula amplitudes sueltas o probabilidades marginales de un circuito contrayendo su red de tensores,
+ * sin construir el vector de estado. Cada compuerta de k qubits es un tensor de 2k indices (sus salidas
+ * y sus entradas, en el orden de las filas y columnas de su matriz), el estado inicial y la salida pedida
+ * son tensores de un indice por qubit, y cada indice es una arista entre dos tensores. Un planificador
+ * voraz escoge en cada paso la arista cuya contraccion deja el tensor mas pequeno respecto a los dos que
+ * reemplaza; cada contraccion es un producto de matrices. El costo depende del ancho de la red y no de
+ * 2^n, asi se pueden consultar circuitos con mas qubits de los que caben en un VectorEstado.
+ */
+public class RedTensorial {
+
+	/**
+	 * Cantidad maxima de indices de un tensor intermedio
+	 */
+	public static final int MAXIMO_RANGO = 28;
+
+	private final Circuito circuito;
+	private int rangoMaximo;
+
+	/**
+	 * Crea la red de un circuito
+	 * @param circuito el circuito
+	 */
+	public RedTensorial(Circuito circuito) {
+		this.circuito = circuito;
+	}
+
+	/**
+	 * Da la cantidad de indices del tensor intermedio mas grande de la ultima contraccion
+	 * @return el rango maximo alcanzado
+	 */
+	public int getRangoMaximo() {
+		return rangoMaximo;
+	}
+
+	/**
+	 * Calcula la amplitud de un estado de la base al final del circuito, <salida|C|inicial>
+	 * @param salida el valor de cada qubit, el qubit 0 primero
+	 * @return la amplitud
+	 * @throws CalculadoraException cuando la salida no tiene un valor por qubit o la red es demasiado ancha
+	 */
+	public Complejo amplitud(boolean[] salida) throws CalculadoraException {
+		int n = circuito.getQubits();
+		if (salida.length != n) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+		}
+		List<Tensor> tensores = new ArrayList<Tensor>();
+		int[] aristas = new int[1];
+		int[] cables = agregarCircuito(tensores, aristas, false);
+		for (int q = 0; q < n; q++) {
+			tensores.add(Tensor.base(cables[q], salida[q]));
+		}
+		double[] escalar = contraer(tensores, aristas[0]);
+		return new Complejo(escalar[0], escalar[1]);
+	}
+
+	/**
+	 * Calcula la amplitud de un estado de la base dado por su indice
+	 * @param indice el estado de la base; el qubit 0 es el bit mas significativo
+	 * @return la amplitud
+	 * @throws CalculadoraException cuando el indice no es valido o la red es demasiado ancha
+	 */
+	public Complejo amplitud(long indice) throws CalculadoraException {
+		int n = circuito.getQubits();
+		if (n > 63 || indice < 0 || (n < 63 && indice >= 1L << n)) {
+			throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+		}
+		boolean[] salida = new boolean[n];
+		for (int q = 0; q < n; q++) {
+			salida[q] = (indice >>> (n - 1 - q) & 1) != 0;
+		}
+		return amplitud(salida);
+	}
+
+	/**
+	 * Calcula la probabilidad de obtener ciertos valores al medir algunos qubits al final del circuito,
+	 * contrayendo el circuito con su conjugado: los qubits medidos terminan en su valor y los demas se
+	 * unen con su copia conjugada, lo que suma sobre sus valores.
+	 * @param medidos los qubits que se miden
+	 * @param valores el valor esperado de cada qubit
+	 * @return la probabilidad de obtener esos valores
+	 * @throws CalculadoraException cuando los qubits no son validos o la red es demasiado ancha
+	 */
+	public double probabilidad(int[] medidos, boolean[] valores) throws CalculadoraException {
+		int n = circuito.getQubits();
+		if (medidos.length != valores.length) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+		}
+		int[] fijos = new int[n];
+		Arrays.fill(fijos, -1);
+		for (int i = 0; i < medidos.length; i++) {
+			if (medidos[i] < 0 || medidos[i] >= n) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+			int valor = valores[i] ? 1 : 0;
+			if (fijos[medidos[i]] >= 0 && fijos[medidos[i]] != valor) {
+				return 0;
+			}
+			fijos[medidos[i]] = valor;
+		}
+		List<Tensor> tensores = new ArrayList<Tensor>();
+		int[] aristas = new int[1];
+		int[] ket = agregarCircuito(tensores, aristas, false);
+		int[] bra = agregarCircuito(tensores, aristas, true);
+		for (int q = 0; q < n; q++) {
+			if (fijos[q] >= 0) {
+				tensores.add(Tensor.base(ket[q], fijos[q] == 1));
+				tensores.add(Tensor.base(bra[q], fijos[q] == 1));
+			} else {
+				tensores.add(Tensor.identidad(ket[q], bra[q]));
+			}
+		}
+		return contraer(tensores, aristas[0])[0];
+	}
+
+	/**
+	 * Agrega los tensores del estado inicial y de las compuertas del circuito
+	 * @param tensores la lista donde se agregan
+	 * @param aristas contador de aristas, que se actualiza
+	 * @param conjugado si se agrega el circuito conjugado
+	 * @return la arista abierta de cada qubit al final del circuito
+	 * @throws CalculadoraException cuando alguna compuerta es demasiado grande para construir su matriz
+	 */
+	private int[] agregarCircuito(List<Tensor> tensores, int[] aristas, boolean conjugado) throws CalculadoraException {
+		int n = circuito.getQubits();
+		int[] cables = new int[n];
+		for (int q = 0; q < n; q++) {
+			int bit = n - 1 - q;
+			cables[q] = aristas[0]++;
+			tensores.add(Tensor.base(cables[q], bit < 31 && (circuito.getInicial() >>> bit & 1) != 0));
+		}
+		for (Operacion operacion : circuito.getOperaciones()) {
+			int[] objetivos = operacion.objetivos();
+			int k = objetivos.length;
+			int[] indices = new int[2 * k];
+			for (int i = 0; i < k; i++) {
+				indices[k + i] = cables[objetivos[i]];
+				cables[objetivos[i]] = aristas[0]++;
+				indices[i] = cables[objetivos[i]];
+			}
+			double[] datos = operacion.getCompuerta().datos();
+			if (conjugado) {
+				datos = datos.clone();
+				for (int i = 1; i < datos.length; i += 2) {
+					datos[i] = -datos[i];
+				}
+			}
+			tensores.add(new Tensor(indices, datos));
+		}
+		return cables;
+	}
+
+	/**
+	 * Contrae la red siguiendo el plan voraz hasta dejar un escalar
+	 * @param tensores los tensores de la red
+	 * @param aristas cantidad de aristas de la red
+	 * @return el escalar en arreglo intercalado
+	 * @throws CalculadoraException cuando un tensor intermedio pasa de MAXIMO_RANGO indices
+	 */
+	private double[] contraer(List<Tensor> tensores, int aristas) throws CalculadoraException {
+		rangoMaximo = 0;
+		Tensor[] red = tensores.toArray(new Tensor[tensores.size()]);
+		// extremos[a] son las posiciones en la red de los dos tensores de la arista a, -1 si ya se contrajo
+		int[][] extremos = new int[aristas][2];
+		for (int[] e : extremos) {
+			e[0] = -1;
+			e[1] = -1;
+		}
+		for (int t = 0; t < red.length; t++) {
+			for (int a : red[t].indices) {
+				extremos[a][extremos[a][0] < 0 ? 0 : 1] = t;
+			}
+		}
+		double[] costos = new double[aristas];
+		for (int a = 0; a < aristas; a++) {
+			costos[a] = costo(red, extremos[a]);
+		}
+		while (true) {
+			int mejor = -1;
+			double mejorCosto = Double.POSITIVE_INFINITY;
+			for (int a = 0; a < aristas; a++) {
+				if (costos[a] < mejorCosto) {
+					mejorCosto = costos[a];
+					mejor = a;
+				}
+			}
+			if (mejor < 0) {
+				break;
+			}
+			// el resultado queda en la posicion menor; solo cambian las aristas de los dos tensores
+			int i = Math.min(extremos[mejor][0], extremos[mejor][1]);
+			int j = Math.max(extremos[mejor][0], extremos[mejor][1]);
+			Tensor c = red[i].contraer(red[j]);
+			rangoMaximo = Math.max(rangoMaximo, c.indices.length);
+			for (int a : red[j].indices) {
+				int[] e = extremos[a];
+				if (e[0] == i || e[1] == i) {
+					e[0] = -1;
+					e[1] = -1;
+					costos[a] = Double.POSITIVE_INFINITY;
+				} else {
+					e[e[0] == j ? 0 : 1] = i;
+				}
+			}
+			red[i] = c;
+			red[j] = null;
+			for (int a : c.indices) {
+				costos[a] = costo(red, extremos[a]);
+			}
+		}
+		double real = 1;
+		double imaginaria = 0;
+		for (Tensor t : red) {
+			if (t == null) {
+				continue;
+			}
+			double r = real * t.datos[0] - imaginaria * t.datos[1];
+			imaginaria = real * t.datos[1] + imaginaria * t.datos[0];
+			real = r;
+		}
+		return new double[] {real, imaginaria};
+	}
+
+	/**
+	 * Calcula el costo de contraer una arista: cuanto crece el tensor resultante respecto a los dos que reemplaza
+	 * @param red los tensores de la red por posicion
+	 * @param extremos las posiciones de los dos tensores de la arista
+	 * @return el costo, o infinito si la arista ya se contrajo
+	 */
+	private static double costo(Tensor[] red, int[] extremos) {
+		if (extremos[1] < 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		Tensor a = red[extremos[0]];
+		Tensor b = red[extremos[1]];
+		int rango = a.indices.length + b.indices.length - 2 * compartidos(a, b);
+		return Math.pow(2, rango) - Math.pow(2, a.indices.length) - Math.pow(2, b.indices.length);
+	}
+
+	/**
+	 * Cuenta los indices que comparten dos tensores
+	 * @param a el primer tensor
+	 * @param b el segundo tensor
+	 * @return la cantidad de aristas entre ellos
+	 */
+	private static int compartidos(Tensor a, Tensor b) {
+		int cuenta = 0;
+		for (int x : a.indices) {
+			for (int y : b.indices) {
+				if (x == y) {
+					cuenta++;
+				}
+			}
+		}
+		return cuenta;
+	}
+
+	/**
+	 * Tensor de numeros complejos con indices de dimension 2. El primer indice es el bit mas significativo
+	 * de la posicion en el arreglo intercalado de datos.
+	 */
+	private static final class Tensor {
+		private final int[] indices;
+		private final double[] datos;
+
+		Tensor(int[] indices, double[] datos) {
+			this.indices = indices;
+			this.datos = datos;
+		}
+
+		/**
+		 * Crea el vector de la base |valor> sobre una arista
+		 * @param arista la arista
+		 * @param valor el valor del qubit
+		 * @return el tensor de un indice
+		 */
+		static Tensor base(int arista, boolean valor) {
+			double[] datos = new double[4];
+			datos[valor ? 2 : 0] = 1;
+			return new Tensor(new int[] {arista}, datos);
+		}
+
+		/**
+		 * Crea la identidad entre dos aristas, que las une
+		 * @param a la primera arista
+		 * @param b la segunda arista
+		 * @return el tensor de dos indices
+		 */
+		static Tensor identidad(int a, int b) {
+			return new Tensor(new int[] {a, b}, new double[] {1, 0, 0, 0, 0, 0, 1, 0});
+		}
+
+		/**
+		 * Contrae este tensor con otro sobre sus indices comunes: los ordena como una matriz de
+		 * (libres x comunes) por otra de (comunes x libres) y las multiplica
+		 * @param otro el otro tensor
+		 * @return el tensor con los indices libres de este seguidos de los del otro
+		 * @throws CalculadoraException cuando el resultado pasa de MAXIMO_RANGO indices
+		 */
+		Tensor contraer(Tensor otro) throws CalculadoraException {
+			int comunes = compartidos(this, otro);
+			int[] comun = new int[comunes];
+			int[] libresA = new int[indices.length - comunes];
+			int[] libresB = new int[otro.indices.length - comunes];
+			int c = 0, la = 0, lb = 0;
+			for (int x : indices) {
+				if (contiene(otro.indices, x)) {
+					comun[c++] = x;
+				} else {
+					libresA[la++] = x;
+				}
+			}
+			for (int y : otro.indices) {
+				if (!contiene(indices, y)) {
+					libresB[lb++] = y;
+				}
+			}
+			if (la + lb > MAXIMO_RANGO) {
+				throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+			}
+			Matriz izquierda = new Matriz(1 << la, 1 << comunes, permutar(concatenar(libresA, comun)));
+			Matriz derecha = new Matriz(1 << comunes, 1 << lb, otro.permutar(concatenar(comun, libresB)));
+			Matriz producto = CalculadoraMatrices.matrizPorMatriz(izquierda, derecha);
+			return new Tensor(concatenar(libresA, libresB), producto.getDatos());
+		}
+
+		/**
+		 * Copia los datos con los indices en otro orden
+		 * @param orden los mismos indices en el orden nuevo
+		 * @return los datos reordenados
+		 */
+		private double[] permutar(int[] orden) {
+			int r = indices.length;
+			int[] origen = new int[r];
+			boolean igual = true;
+			for (int i = 0; i < r; i++) {
+				for (int j = 0; j < r; j++) {
+					if (indices[j] == orden[i]) {
+						origen[i] = j;
+					}
+				}
+				igual &= origen[i] == i;
+			}
+			if (igual) {
+				return datos;
+			}
+			double[] nuevos = new double[datos.length];
+			for (int p = 0; p < 1 << r; p++) {
+				int anterior = 0;
+				for (int i = 0; i < r; i++) {
+					if ((p >>> (r - 1 - i) & 1) != 0) {
+						anterior |= 1 << (r - 1 - origen[i]);
+					}
+				}
+				nuevos[2 * p] = datos[2 * anterior];
+				nuevos[2 * p + 1] = datos[2 * anterior + 1];
+			}
+			return nuevos;
+		}
+
+		private static boolean contiene(int[] arreglo, int valor) {
+			for (int x : arreglo) {
+				if (x == valor) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static int[] concatenar(int[] a, int[] b) {
+			int[] c = new int[a.length + b.length];
+			System.arraycopy(a, 0, c, 0, a.length);
+			System.arraycopy(b, 0, c, a.length, b.length);
+			return c;
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package calculadora;
+
+import java.util.Arrays;
+
+/**
+ * Un sistema dinamico determinista compilado a su funcion de sucesores: cada estado manda todas sus
+ * canicas a un unico estado, o las saca del sistema. Un click cuesta O(n) y el estado despues de k clicks
+ * se calcula en O(n) para cualquier k, descomponiendo la funcion en ciclos y en las colas que llegan a ellos.
+ */
+public class SistemaDeterminista {
+	private final int[] sucesores;
+
+	/**
+	 * Compila la matriz de un sistema determinista
+	 * @param m la matriz del sistema: en cada columna a lo sumo un 1 y el resto ceros
+	 * @throws CalculadoraException cuando la matriz no es cuadrada o no es de un sistema determinista
+	 */
+	public SistemaDeterminista(Matriz m) throws CalculadoraException {
+		if (m.getFilas() != m.getColumnas()) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_CUADRADA);
+		}
+		int n = m.getFilas();
+		double[] datos = m.getDatos();
+		sucesores = new int[n];
+		Arrays.fill(sucesores, -1);
+		for (int j = 0; j < n; j++) {
+			for (int i = 0; i < n; i++) {
+				double real = datos[2 * (j * n + i)];
+				double imaginaria = datos[2 * (j * n + i) + 1];
+				if (imaginaria != 0 || (real != 0 && real != 1) || (real == 1 && sucesores[i] != -1)) {
+					throw new CalculadoraException(CalculadoraException.MATRIZ_INVALIDA);
+				}
+				if (real == 1) {
+					sucesores[i] = j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Crea el sistema a partir de su funcion de sucesores
+	 * @param sucesores el estado al que van las canicas de cada estado, o -1 si salen del sistema
+	 * @throws CalculadoraException cuando algun sucesor no es un estado valido
+	 */
+	public SistemaDeterminista(int[] sucesores) throws CalculadoraException {
+		for (int i = 0; i < sucesores.length; i++) {
+			if (sucesores[i] < -1 || sucesores[i] >= sucesores.length) {
+				throw new CalculadoraException(CalculadoraException.MATRIZ_INVALIDA);
+			}
+		}
+		this.sucesores = sucesores.clone();
+	}
+
+	/**
+	 * Da la cantidad de estados del sistema
+	 * @return la cantidad de estados
+	 */
+	public int getEstados() {
+		return sucesores.length;
+	}
+
+	/**
+	 * Da la funcion de sucesores del sistema
+	 * @return una copia del estado al que van las canicas de cada estado, o -1 si salen del sistema
+	 */
+	public int[] getSucesores() {
+		return sucesores.clone();
+	}
+
+	/**
+	 * Avanza un click las canicas del sistema
+	 * @param canicas cantidad de canicas en cada estado
+	 * @return la cantidad de canicas en cada estado despues del click
+	 * @throws CalculadoraException cuando el arreglo no corresponde a los estados del sistema
+	 */
+	public long[] avanzar(long[] canicas) throws CalculadoraException {
+		validarTamano(canicas.length);
+		long[] respuesta = new long[canicas.length];
+		for (int i = 0; i < canicas.length; i++) {
+			if (sucesores[i] >= 0) {
+				respuesta[sucesores[i]] += canicas[i];
+			}
+		}
+		return respuesta;
+	}
+
+	/**
+	 * Avanza varios clicks las canicas del sistema sin recorrerlos uno por uno
+	 * @param canicas cantidad de canicas en cada estado
+	 * @param clicks cantidad de clicks a avanzar
+	 * @return la cantidad de canicas en cada estado despues de los clicks
+	 * @throws CalculadoraException cuando el arreglo no corresponde a los estados del sistema
+	 */
+	public long[] avanzar(long[] canicas, long clicks) throws CalculadoraException {
+		validarTamano(canicas.length);
+		int[] destinos = posiciones(clicks);
+		long[] respuesta = new long[canicas.length];
+		for (int i = 0; i < canicas.length; i++) {
+			if (destinos[i] >= 0) {
+				respuesta[destinos[i]] += canicas[i];
+			}
+		}
+		return respuesta;
+	}
+
+	/**
+	 * Avanza varios clicks un estado del sistema sin recorrerlos uno por uno
+	 * @param estado vector con el estado del sistema
+	 * @param clicks cantidad de clicks a avanzar
+	 * @return Una matriz con el estado final del sistema
+	 * @throws CalculadoraException cuando el estado no es un vector o no corresponde a los estados del sistema
+	 */
+	public Matriz avanzar(Matriz estado, long clicks) throws CalculadoraException {
+		if (estado.getColumnas() != 1) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
+		}
+		validarTamano(estado.getFilas());
+		int[] destinos = posiciones(clicks);
+		double[] datos = estado.getDatos();
+		Matriz respuesta = new Matriz(estado.getFilas(), 1);
+		double[] resultado = respuesta.getDatos();
+		for (int i = 0; i < destinos.length; i++) {
+			if (destinos[i] >= 0) {
+				resultado[2 * destinos[i]] += datos[2 * i];
+				resultado[2 * destinos[i] + 1] += datos[2 * i + 1];
+			}
+		}
+		return respuesta;
+	}
+
+	/**
+	 * Calcula a que estado llegan las canicas de cada estado despues de varios clicks.
+	 * Las canicas que salen del sistema se modelan con un estado extra que va a si mismo, de modo que
+	 * todo estado termina en un ciclo. Los estados de las colas se recorren desde su ciclo guardando
+	 * el camino, asi el estado k pasos adelante es el que esta k posiciones antes en el camino.
+	 * @param clicks cantidad de clicks
+	 * @return el estado al que llegan las canicas de cada estado, o -1 si salieron del sistema
+	 */
+	public int[] posiciones(long clicks) {
+		clicks = Math.max(0, clicks);
+		int n = sucesores.length;
+		int total = n + 1;
+		int[] siguiente = new int[total];
+		for (int i = 0; i < n; i++) {
+			siguiente[i] = sucesores[i] >= 0 ? sucesores[i] : n;
+		}
+		siguiente[n] = n;
+
+		// Encuentra los ciclos: posicion de cada estado en su ciclo, el inicio del ciclo y su longitud
+		int[] marca = new int[total];
+		int[] posicionCiclo = new int[total];
+		int[] inicioCiclo = new int[total];
+		int[] longitudCiclo = new int[total];
+		int[] orden = new int[total];
+		Arrays.fill(posicionCiclo, -1);
+		int[] ciclos = new int[total];
+		int usados = 0;
+		for (int i = 0; i < total; i++) {
+			if (marca[i] != 0) {
+				continue;
+			}
+			int actual = i;
+			int pasos = 0;
+			while (marca[actual] == 0) {
+				marca[actual] = i + 1;
+				orden[actual] = pasos++;
+				actual = siguiente[actual];
+			}
+			if (marca[actual] == i + 1) {
+				int longitud = pasos - orden[actual];
+				int inicio = usados;
+				int estado = actual;
+				for (int k = 0; k < longitud; k++) {
+					ciclos[usados++] = estado;
+					posicionCiclo[estado] = k;
+					inicioCiclo[estado] = inicio;
+					longitudCiclo[estado] = longitud;
+					estado = siguiente[estado];
+				}
+			}
+		}
+
+		// Predecesores por fuera de los ciclos, en formato comprimido
+		int[] inicioHijos = new int[total + 1];
+		for (int i = 0; i < total; i++) {
+			if (posicionCiclo[i] < 0) {
+				inicioHijos[siguiente[i] + 1]++;
+			}
+		}
+		for (int i = 0; i < total; i++) {
+			inicioHijos[i + 1] += inicioHijos[i];
+		}
+		int[] hijos = new int[inicioHijos[total]];
+		int[] llenos = inicioHijos.clone();
+		for (int i = 0; i < total; i++) {
+			if (posicionCiclo[i] < 0) {
+				hijos[llenos[siguiente[i]]++] = i;
+			}
+		}
+
+		// Recorre las colas desde cada estado de un ciclo guardando el camino
+		int[] destinos = new int[total];
+		int[] profundidad = new int[total];
+		int[] camino = new int[total];
+		int[] pila = new int[total];
+		for (int c = 0; c < usados; c++) {
+			int raiz = ciclos[c];
+			int tope = 0;
+			pila[tope++] = raiz;
+			profundidad[raiz] = 0;
+			while (tope > 0) {
+				int estado = pila[--tope];
+				int d = profundidad[estado];
+				camino[d] = estado;
+				if (clicks <= d) {
+					destinos[estado] = camino[d - (int) clicks];
+				} else {
+					long avance = (posicionCiclo[raiz] + (clicks - d)) % longitudCiclo[raiz];
+					destinos[estado] = ciclos[inicioCiclo[raiz] + (int) avance];
+				}
+				for (int h = inicioHijos[estado]; h < inicioHijos[estado + 1]; h++) {
+					profundidad[hijos[h]] = d + 1;
+					pila[tope++] = hijos[h];
+				}
+			}
+		}
+
+		int[] respuesta = new int[n];
+		for (int i = 0; i < n; i++) {
+			respuesta[i] = destinos[i] == n ? -1 : destinos[i];
+		}
+		return respuesta;
+	}
+
+	/**
+	 * Verifica que un estado tenga la cantidad de posiciones del sistema
+	 * @param tamano cantidad de posiciones del estado
+	 * @throws CalculadoraException cuando no corresponde a los estados del sistema
+	 */
+	private void validarTamano(int tamano) throws CalculadoraException {
+		if (tamano != sucesores.length) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR+"Estado inicial no corresponde al sistema.");
+		}
+	}
+}
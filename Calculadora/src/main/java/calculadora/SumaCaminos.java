@@ -0,0 +1,219 @@
+package calculadora;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Simula un circuito como suma de caminos de Feynman: la amplitud de un estado de la base despues de
+ * la operacion k es la suma, sobre los estados de sus qubits antes de la operacion, del numero de la
+ * compuerta por la amplitud de ese estado despues de la operacion k-1. El recorrido baja hasta el
+ * estado inicial y solo guarda un estado de n bits y un acumulador por nivel, asi la memoria es
+ * O(profundidad + n) aunque el tiempo crezca exponencialmente con la profundidad. Los numeros nulos de
+ * las compuertas no se recorren, por lo que las compuertas de permutacion y los oraculos no ramifican.
+ * Varias amplitudes se reparten entre los hilos del pool de Paralelismo.
+ */
+public class SumaCaminos {
+	private final int qubits;
+	private final int inicial;
+	private final Operacion[] operaciones;
+	private final double[][] numeros;
+
+	/**
+	 * Prepara la simulacion de un circuito
+	 * @param circuito el circuito
+	 * @throws CalculadoraException cuando alguna compuerta es demasiado grande para construir su matriz
+	 */
+	public SumaCaminos(Circuito circuito) throws CalculadoraException {
+		this.qubits = circuito.getQubits();
+		this.inicial = circuito.getInicial();
+		List<Operacion> lista = circuito.getOperaciones();
+		this.operaciones = lista.toArray(new Operacion[lista.size()]);
+		this.numeros = new double[operaciones.length][];
+		for (int k = 0; k < operaciones.length; k++) {
+			numeros[k] = operaciones[k].getCompuerta().datos();
+		}
+	}
+
+	/**
+	 * Calcula la amplitud de un estado de la base al final del circuito
+	 * @param salida el valor de cada qubit, el qubit 0 primero
+	 * @return la amplitud
+	 * @throws CalculadoraException cuando la salida no tiene un valor por qubit
+	 */
+	public Complejo amplitud(boolean[] salida) throws CalculadoraException {
+		if (salida.length != qubits) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+		}
+		return new Recorrido().amplitud(salida);
+	}
+
+	/**
+	 * Calcula la amplitud de un estado de la base dado por su indice
+	 * @param indice el estado de la base; el qubit 0 es el bit mas significativo
+	 * @return la amplitud
+	 * @throws CalculadoraException cuando el indice no es valido
+	 */
+	public Complejo amplitud(long indice) throws CalculadoraException {
+		return amplitud(bits(indice));
+	}
+
+	/**
+	 * Calcula varias amplitudes repartiendolas entre los hilos del pool de Paralelismo
+	 * @param indices los estados de la base; el qubit 0 es el bit mas significativo
+	 * @return la amplitud de cada estado, en el mismo orden
+	 * @throws CalculadoraException cuando algun indice no es valido
+	 */
+	public Complejo[] amplitudes(long[] indices) throws CalculadoraException {
+		final boolean[][] salidas = new boolean[indices.length][];
+		for (int i = 0; i < indices.length; i++) {
+			salidas[i] = bits(indices[i]);
+		}
+		final Complejo[] amplitudes = new Complejo[indices.length];
+		ForkJoinPool pool = Paralelismo.getPool();
+		Paralelismo.ejecutar(pool, 0, indices.length, Paralelismo.tamanoParte(pool, indices.length, 1), new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				Recorrido recorrido = new Recorrido();
+				for (int i = desde; i < hasta; i++) {
+					amplitudes[i] = recorrido.amplitud(salidas[i]);
+				}
+			}
+		});
+		return amplitudes;
+	}
+
+	/**
+	 * Da las probabilidades de todos los estados de la base, como CalculadoraMatrices.moduloAlCuadrado
+	 * del vector de estado. Calcula las 2^n amplitudes en paralelo, asi que solo sirve para pocos qubits.
+	 * @return un vector columna de 2^n x 1 con las probabilidades
+	 * @throws CalculadoraException cuando hay demasiados qubits para un vector de 2^n numeros
+	 */
+	public Matriz getProbabilidades() throws CalculadoraException {
+		if (qubits >= VectorEstado.MAXIMO_QUBITS) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		long[] indices = new long[1 << qubits];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+		}
+		Complejo[] amplitudes = amplitudes(indices);
+		Matriz probabilidades = new Matriz(indices.length, 1);
+		for (int i = 0; i < indices.length; i++) {
+			probabilidades.setNumero(i, 0, amplitudes[i].getReal() * amplitudes[i].getReal()
+					+ amplitudes[i].getImaginaria() * amplitudes[i].getImaginaria(), 0);
+		}
+		return probabilidades;
+	}
+
+	/**
+	 * Convierte un indice en el valor de cada qubit
+	 * @param indice el estado de la base
+	 * @return el valor de cada qubit, el qubit 0 primero
+	 * @throws CalculadoraException cuando el indice no cabe en los qubits del circuito
+	 */
+	private boolean[] bits(long indice) throws CalculadoraException {
+		if (qubits > 63 || indice < 0 || (qubits < 63 && indice >= 1L << qubits)) {
+			throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+		}
+		boolean[] salida = new boolean[qubits];
+		for (int q = 0; q < qubits; q++) {
+			salida[q] = (indice >>> (qubits - 1 - q) & 1) != 0;
+		}
+		return salida;
+	}
+
+	/**
+	 * Estado de trabajo de un hilo: el estado de la base que se recorre y un acumulador por nivel
+	 */
+	private final class Recorrido {
+		private final boolean[] estado = new boolean[qubits];
+		private final double[] reales = new double[operaciones.length + 1];
+		private final double[] imaginarias = new double[operaciones.length + 1];
+		private final int[] filas = new int[operaciones.length + 1];
+		private final int[] columnas = new int[operaciones.length + 1];
+
+		/**
+		 * Calcula la amplitud de un estado de la base al final del circuito
+		 * @param salida el valor de cada qubit
+		 * @return la amplitud
+		 */
+		Complejo amplitud(boolean[] salida) {
+			System.arraycopy(salida, 0, estado, 0, qubits);
+			sumar();
+			return new Complejo(reales[operaciones.length], imaginarias[operaciones.length]);
+		}
+
+		/**
+		 * Deja en reales[k], imaginarias[k] la amplitud del estado actual despues de las primeras k operaciones,
+		 * para k igual a la cantidad de operaciones. Recorre el arbol de caminos con una pila explicita: en cada
+		 * nivel guarda la fila de la compuerta (los bits originales de sus objetivos) y la columna que se esta
+		 * sumando, asi la profundidad del circuito no depende de la pila de llamadas.
+		 */
+		private void sumar() {
+			int n = operaciones.length;
+			int k = n;
+			boolean bajando = true;
+			while (true) {
+				if (bajando && k == 0) {
+					boolean igual = true;
+					for (int q = 0; q < qubits && igual; q++) {
+						int bit = qubits - 1 - q;
+						igual = estado[q] == (bit < 31 && (inicial >>> bit & 1) != 0);
+					}
+					reales[0] = igual ? 1 : 0;
+					imaginarias[0] = 0;
+					if (n == 0) {
+						return;
+					}
+					k = 1;
+					bajando = false;
+					continue;
+				}
+				Operacion operacion = operaciones[k - 1];
+				int[] objetivos = operacion.objetivos();
+				double[] g = numeros[k - 1];
+				int dimension = 1 << objetivos.length;
+				if (bajando) {
+					int fila = 0;
+					for (int q : objetivos) {
+						fila = (fila << 1) | (estado[q] ? 1 : 0);
+					}
+					filas[k] = fila;
+					columnas[k] = 0;
+					reales[k] = 0;
+					imaginarias[k] = 0;
+				} else {
+					int posicion = 2 * (filas[k] * dimension + columnas[k]);
+					double gr = g[posicion];
+					double gi = g[posicion + 1];
+					double ar = reales[k - 1];
+					double ai = imaginarias[k - 1];
+					reales[k] = (gr * ar - gi * ai) + reales[k];
+					imaginarias[k] = (gr * ai + gi * ar) + imaginarias[k];
+					columnas[k]++;
+				}
+				int columna = columnas[k];
+				while (columna < dimension && g[2 * (filas[k] * dimension + columna)] == 0 && g[2 * (filas[k] * dimension + columna) + 1] == 0) {
+					columna++;
+				}
+				columnas[k] = columna;
+				if (columna < dimension) {
+					for (int i = 0; i < objetivos.length; i++) {
+						estado[objetivos[i]] = (columna >> (objetivos.length - 1 - i) & 1) != 0;
+					}
+					k--;
+					bajando = true;
+				} else {
+					for (int i = 0; i < objetivos.length; i++) {
+						estado[objetivos[i]] = (filas[k] >> (objetivos.length - 1 - i) & 1) != 0;
+					}
+					if (k == n) {
+						return;
+					}
+					k++;
+					bajando = false;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package calculadora;
+
+import java.util.SplittableRandom;
+
+/**
+ * Tabla de alias de Walker con la construccion de Vose para muestrear una distribucion discreta en
+ * O(1) por muestra. Solo guarda los estados con probabilidad positiva: cada casilla j tiene un estado,
+ * la probabilidad de quedarse con el y el indice de su alias. Un numero uniforme en [0, k) elige la
+ * casilla con su parte entera y decide entre el estado y el alias con su parte fraccionaria.
+ */
+final class TablaAlias {
+	private final int[] estados;
+	private final double[] umbrales;
+	private final int[] alias;
+
+	/**
+	 * Construye la tabla en O(n)
+	 * @param probabilidades el peso de cada estado; no tienen que sumar 1
+	 * @throws CalculadoraException cuando algun peso es negativo o no es un numero, o todos son 0
+	 */
+	TablaAlias(double[] probabilidades) throws CalculadoraException {
+		double suma = 0;
+		int k = 0;
+		for (double p : validar(probabilidades)) {
+			if (p > 0) {
+				suma += p;
+				k++;
+			}
+		}
+		if (k == 0 || Double.isInfinite(suma)) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		estados = new int[k];
+		umbrales = new double[k];
+		alias = new int[k];
+		int j = 0;
+		for (int i = 0; i < probabilidades.length; i++) {
+			if (probabilidades[i] > 0) {
+				estados[j] = i;
+				umbrales[j] = probabilidades[i] * k / suma;
+				j++;
+			}
+		}
+		int[] pequenos = new int[k];
+		int[] grandes = new int[k];
+		int cantidadPequenos = 0;
+		int cantidadGrandes = 0;
+		for (j = 0; j < k; j++) {
+			if (umbrales[j] < 1) {
+				pequenos[cantidadPequenos++] = j;
+			} else {
+				grandes[cantidadGrandes++] = j;
+			}
+		}
+		while (cantidadPequenos > 0 && cantidadGrandes > 0) {
+			int pequeno = pequenos[--cantidadPequenos];
+			int grande = grandes[cantidadGrandes - 1];
+			alias[pequeno] = grande;
+			umbrales[grande] = (umbrales[grande] + umbrales[pequeno]) - 1;
+			if (umbrales[grande] < 1) {
+				cantidadGrandes--;
+				pequenos[cantidadPequenos++] = grande;
+			}
+		}
+		// Lo que queda en cualquiera de las listas vale 1 salvo por redondeo
+		while (cantidadGrandes > 0) {
+			umbrales[grandes[--cantidadGrandes]] = 1;
+		}
+		while (cantidadPequenos > 0) {
+			umbrales[pequenos[--cantidadPequenos]] = 1;
+		}
+	}
+
+	/**
+	 * Revisa que los pesos sean validos
+	 * @param probabilidades los pesos
+	 * @return los mismos pesos
+	 * @throws CalculadoraException cuando alguno es negativo o no es un numero
+	 */
+	private static double[] validar(double[] probabilidades) throws CalculadoraException {
+		for (double p : probabilidades) {
+			if (!(p >= 0)) {
+				throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+			}
+		}
+		return probabilidades;
+	}
+
+	/**
+	 * Da la cantidad de estados con probabilidad positiva
+	 * @return la cantidad de casillas de la tabla
+	 */
+	int getCasillas() {
+		return estados.length;
+	}
+
+	/**
+	 * Da el estado de una casilla; las casillas estan en el orden de los estados
+	 * @param casilla la casilla
+	 * @return el estado de la base
+	 */
+	int getEstado(int casilla) {
+		return estados[casilla];
+	}
+
+	/**
+	 * Saca una muestra
+	 * @param aleatorio el generador
+	 * @return la casilla del estado medido
+	 */
+	int muestrear(SplittableRandom aleatorio) {
+		double u = aleatorio.nextDouble() * estados.length;
+		int j = Math.min((int) u, estados.length - 1);
+		return u - j < umbrales[j] ? j : alias[j];
+	}
+}
@@ -0,0 +1,402 @@
+package calculadora;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Estado de un circuito de Clifford (H, S, X, Y, Z, CNOT y sus combinaciones) representado por su tabla
+ * de estabilizadores, segun Aaronson y Gottesman. Guarda 2n generadores de Pauli con los bits x y z
+ * empaquetados de a 64 qubits: aplicar una compuerta cuesta O(n) y medir un qubit O(n^2), asi se
+ * simulan cientos de qubits sin el vector de 2^n amplitudes. Las filas 0..n-1 son los desestabilizadores,
+ * las filas n..2n-1 los estabilizadores y la fila 2n es de trabajo.
+ */
+public class TablaEstabilizadores {
+	private static final int H = 0;
+	private static final int S = 1;
+	private static final int X = 2;
+	private static final int Y = 3;
+	private static final int Z = 4;
+	private static final int CNOT = 5;
+
+	/**
+	 * Compuertas de la biblioteca que se reconocen y su descomposicion en operaciones de la tabla:
+	 * cada operacion es {tipo, qubit local} o {CNOT, control local, objetivo local}
+	 */
+	private static final Compuerta[] CLIFFORD = {
+			Compuertas.I, Compuertas.H, Compuertas.X, Compuertas.Y, Compuertas.Z, Compuertas.S,
+			Compuertas.CNOT, Compuertas.CZ, Compuertas.SWAP,
+			Compuertas.ORACULO_CERO, Compuertas.ORACULO_UNO, Compuertas.ORACULO_IDENTIDAD, Compuertas.ORACULO_NEGACION};
+	private static final int[][][] RECETAS = {
+			{}, {{H, 0}}, {{X, 0}}, {{Y, 0}}, {{Z, 0}}, {{S, 0}},
+			{{CNOT, 0, 1}}, {{H, 1}, {CNOT, 0, 1}, {H, 1}}, {{CNOT, 0, 1}, {CNOT, 1, 0}, {CNOT, 0, 1}},
+			{}, {{X, 1}}, {{CNOT, 0, 1}}, {{CNOT, 0, 1}, {X, 1}}};
+
+	private final int qubits;
+	private final int palabras;
+	private final long[][] x;
+	private final long[][] z;
+	private final boolean[] r;
+
+	/**
+	 * Crea la tabla del estado |0...0>
+	 * @param qubits cantidad de qubits
+	 * @throws CalculadoraException cuando la cantidad de qubits no es valida
+	 */
+	public TablaEstabilizadores(int qubits) throws CalculadoraException {
+		if (qubits < 1) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		this.qubits = qubits;
+		this.palabras = (qubits + 63) >>> 6;
+		this.x = new long[2 * qubits + 1][palabras];
+		this.z = new long[2 * qubits + 1][palabras];
+		this.r = new boolean[2 * qubits + 1];
+		for (int i = 0; i < qubits; i++) {
+			x[i][i >>> 6] |= 1L << i;
+			z[i + qubits][i >>> 6] |= 1L << i;
+		}
+	}
+
+	/**
+	 * Crea una copia de otra tabla
+	 * @param otra la tabla a copiar
+	 */
+	public TablaEstabilizadores(TablaEstabilizadores otra) {
+		this.qubits = otra.qubits;
+		this.palabras = otra.palabras;
+		this.x = new long[otra.x.length][];
+		this.z = new long[otra.z.length][];
+		for (int i = 0; i < x.length; i++) {
+			x[i] = otra.x[i].clone();
+			z[i] = otra.z[i].clone();
+		}
+		this.r = otra.r.clone();
+	}
+
+	/**
+	 * Da la cantidad de qubits
+	 * @return la cantidad de qubits
+	 */
+	public int getQubits() {
+		return qubits;
+	}
+
+	/**
+	 * Dice si todas las compuertas de un circuito se pueden simular con la tabla
+	 * @param circuito el circuito
+	 * @return si el circuito solo usa compuertas de Clifford reconocidas
+	 */
+	public static boolean esClifford(Circuito circuito) {
+		for (Operacion operacion : circuito.getOperaciones()) {
+			if (receta(operacion.getCompuerta()) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Ejecuta un circuito de Clifford sobre la tabla
+	 * @param circuito el circuito
+	 * @return la tabla del estado final
+	 * @throws CalculadoraException cuando el circuito tiene compuertas que no son de Clifford
+	 */
+	public static TablaEstabilizadores ejecutar(Circuito circuito) throws CalculadoraException {
+		TablaEstabilizadores tabla = new TablaEstabilizadores(circuito.getQubits());
+		int inicial = circuito.getInicial();
+		for (int q = 0; q < circuito.getQubits(); q++) {
+			int bit = circuito.getQubits() - 1 - q;
+			if (bit < 31 && (inicial >>> bit & 1) != 0) {
+				tabla.pauliX(q);
+			}
+		}
+		List<Operacion> operaciones = circuito.getOperaciones();
+		for (Operacion operacion : operaciones) {
+			int[][] receta = receta(operacion.getCompuerta());
+			if (receta == null) {
+				throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+			}
+			int[] objetivos = operacion.objetivos();
+			for (int[] paso : receta) {
+				switch (paso[0]) {
+					case H: tabla.hadamard(objetivos[paso[1]]); break;
+					case S: tabla.fase(objetivos[paso[1]]); break;
+					case X: tabla.pauliX(objetivos[paso[1]]); break;
+					case Y: tabla.pauliY(objetivos[paso[1]]); break;
+					case Z: tabla.pauliZ(objetivos[paso[1]]); break;
+					default: tabla.cnot(objetivos[paso[1]], objetivos[paso[2]]); break;
+				}
+			}
+		}
+		return tabla;
+	}
+
+	/**
+	 * Busca la descomposicion de una compuerta en operaciones de la tabla
+	 * @param compuerta la compuerta
+	 * @return la descomposicion, o null si no es una compuerta de Clifford reconocida
+	 */
+	private static int[][] receta(Compuerta compuerta) {
+		for (int i = 0; i < CLIFFORD.length; i++) {
+			if (CLIFFORD[i].mismosNumeros(compuerta)) {
+				return RECETAS[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Aplica Hadamard a un qubit
+	 * @param a el qubit
+	 */
+	public void hadamard(int a) {
+		int w = a >>> 6;
+		long m = 1L << a;
+		for (int i = 0; i < 2 * qubits; i++) {
+			long xi = x[i][w] & m;
+			long zi = z[i][w] & m;
+			if (xi != 0 && zi != 0) {
+				r[i] = !r[i];
+			}
+			x[i][w] = (x[i][w] & ~m) | zi;
+			z[i][w] = (z[i][w] & ~m) | xi;
+		}
+	}
+
+	/**
+	 * Aplica la fase S a un qubit
+	 * @param a el qubit
+	 */
+	public void fase(int a) {
+		int w = a >>> 6;
+		long m = 1L << a;
+		for (int i = 0; i < 2 * qubits; i++) {
+			long xi = x[i][w] & m;
+			if (xi != 0 && (z[i][w] & m) != 0) {
+				r[i] = !r[i];
+			}
+			z[i][w] ^= xi;
+		}
+	}
+
+	/**
+	 * Aplica X controlada
+	 * @param c el qubit de control
+	 * @param t el qubit objetivo
+	 */
+	public void cnot(int c, int t) {
+		int wc = c >>> 6;
+		int wt = t >>> 6;
+		long mc = 1L << c;
+		long mt = 1L << t;
+		for (int i = 0; i < 2 * qubits; i++) {
+			boolean xc = (x[i][wc] & mc) != 0;
+			boolean zc = (z[i][wc] & mc) != 0;
+			boolean xt = (x[i][wt] & mt) != 0;
+			boolean zt = (z[i][wt] & mt) != 0;
+			if (xc && zt && (xt == zc)) {
+				r[i] = !r[i];
+			}
+			if (xc) {
+				x[i][wt] ^= mt;
+			}
+			if (zt) {
+				z[i][wc] ^= mc;
+			}
+		}
+	}
+
+	/**
+	 * Aplica Pauli X a un qubit
+	 * @param a el qubit
+	 */
+	public void pauliX(int a) {
+		for (int i = 0; i < 2 * qubits; i++) {
+			if ((z[i][a >>> 6] & 1L << a) != 0) {
+				r[i] = !r[i];
+			}
+		}
+	}
+
+	/**
+	 * Aplica Pauli Y a un qubit
+	 * @param a el qubit
+	 */
+	public void pauliY(int a) {
+		for (int i = 0; i < 2 * qubits; i++) {
+			if (((x[i][a >>> 6] ^ z[i][a >>> 6]) & 1L << a) != 0) {
+				r[i] = !r[i];
+			}
+		}
+	}
+
+	/**
+	 * Aplica Pauli Z a un qubit
+	 * @param a el qubit
+	 */
+	public void pauliZ(int a) {
+		for (int i = 0; i < 2 * qubits; i++) {
+			if ((x[i][a >>> 6] & 1L << a) != 0) {
+				r[i] = !r[i];
+			}
+		}
+	}
+
+	/**
+	 * Dice si medir un qubit da siempre el mismo resultado
+	 * @param a el qubit
+	 * @return si el resultado de la medicion esta determinado
+	 */
+	public boolean esDeterminista(int a) {
+		return estabilizadorAleatorio(a) < 0;
+	}
+
+	/**
+	 * Calcula la probabilidad de obtener ciertos valores al medir algunos qubits
+	 * @param medidos los qubits que se miden
+	 * @param valores el valor esperado de cada qubit
+	 * @return la probabilidad de obtener esos valores
+	 * @throws CalculadoraException cuando los arreglos no corresponden o algun qubit no existe
+	 */
+	public double probabilidad(int[] medidos, boolean[] valores) throws CalculadoraException {
+		if (medidos.length != valores.length) {
+			throw new CalculadoraException(CalculadoraException.FALTAN_NUMEROS);
+		}
+		for (int q : medidos) {
+			if (q < 0 || q >= qubits) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+		}
+		TablaEstabilizadores copia = new TablaEstabilizadores(this);
+		double probabilidad = 1;
+		for (int i = 0; i < medidos.length && probabilidad > 0; i++) {
+			int p = copia.estabilizadorAleatorio(medidos[i]);
+			if (p >= 0) {
+				copia.fijar(medidos[i], p, valores[i]);
+				probabilidad *= 0.5;
+			} else if (copia.resultadoDeterminista(medidos[i]) != valores[i]) {
+				probabilidad = 0;
+			}
+		}
+		return probabilidad;
+	}
+
+	/**
+	 * Da las probabilidades de medir cada estado de la base, como CalculadoraMatrices.moduloAlCuadrado del
+	 * vector de estado. Solo recorre los estados con probabilidad distinta de cero, que son 2^k para algun k.
+	 * @return un vector columna de 2^n x 1 con las probabilidades
+	 * @throws CalculadoraException cuando hay demasiados qubits para un vector de 2^n numeros
+	 */
+	public Matriz getProbabilidades() throws CalculadoraException {
+		if (qubits >= VectorEstado.MAXIMO_QUBITS) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		Matriz probabilidades = new Matriz(1 << qubits, 1);
+		ramificar(new TablaEstabilizadores(this), 0, 0, 1, probabilidades.getDatos());
+		return probabilidades;
+	}
+
+	/**
+	 * Mide los qubits desde el dado en adelante, siguiendo ambos resultados cuando son aleatorios
+	 * @param tabla la tabla despues de medir los qubits anteriores
+	 * @param q el qubit a medir
+	 * @param indice los bits medidos hasta ahora
+	 * @param probabilidad la probabilidad de los resultados medidos hasta ahora
+	 * @param datos el vector de probabilidades en arreglo intercalado
+	 */
+	private void ramificar(TablaEstabilizadores tabla, int q, int indice, double probabilidad, double[] datos) {
+		if (q == qubits) {
+			datos[2 * indice] = probabilidad;
+			return;
+		}
+		int p = tabla.estabilizadorAleatorio(q);
+		if (p < 0) {
+			boolean valor = tabla.resultadoDeterminista(q);
+			ramificar(tabla, q + 1, indice << 1 | (valor ? 1 : 0), probabilidad, datos);
+		} else {
+			TablaEstabilizadores uno = new TablaEstabilizadores(tabla);
+			tabla.fijar(q, p, false);
+			ramificar(tabla, q + 1, indice << 1, probabilidad / 2, datos);
+			uno.fijar(q, p, true);
+			ramificar(uno, q + 1, indice << 1 | 1, probabilidad / 2, datos);
+		}
+	}
+
+	/**
+	 * Busca un estabilizador que no conmute con Z en el qubit
+	 * @param a el qubit
+	 * @return la fila del estabilizador, o -1 si la medicion es determinista
+	 */
+	private int estabilizadorAleatorio(int a) {
+		int w = a >>> 6;
+		long m = 1L << a;
+		for (int p = qubits; p < 2 * qubits; p++) {
+			if ((x[p][w] & m) != 0) {
+				return p;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Fija el resultado de una medicion aleatoria de un qubit
+	 * @param a el qubit
+	 * @param p la fila del estabilizador que no conmuta con Z en el qubit
+	 * @param valor el resultado de la medicion
+	 */
+	private void fijar(int a, int p, boolean valor) {
+		int w = a >>> 6;
+		long m = 1L << a;
+		for (int i = 0; i < 2 * qubits; i++) {
+			if (i != p && (x[i][w] & m) != 0) {
+				sumarFila(i, p);
+			}
+		}
+		System.arraycopy(x[p], 0, x[p - qubits], 0, palabras);
+		System.arraycopy(z[p], 0, z[p - qubits], 0, palabras);
+		r[p - qubits] = r[p];
+		Arrays.fill(x[p], 0);
+		Arrays.fill(z[p], 0);
+		z[p][w] = m;
+		r[p] = valor;
+	}
+
+	/**
+	 * Calcula el resultado de una medicion determinista de un qubit usando la fila de trabajo
+	 * @param a el qubit
+	 * @return el resultado de la medicion
+	 */
+	private boolean resultadoDeterminista(int a) {
+		int w = a >>> 6;
+		long m = 1L << a;
+		int trabajo = 2 * qubits;
+		Arrays.fill(x[trabajo], 0);
+		Arrays.fill(z[trabajo], 0);
+		r[trabajo] = false;
+		for (int i = 0; i < qubits; i++) {
+			if ((x[i][w] & m) != 0) {
+				sumarFila(trabajo, i + qubits);
+			}
+		}
+		return r[trabajo];
+	}
+
+	/**
+	 * Multiplica la fila h por la fila i llevando la fase, de a 64 qubits
+	 * @param h la fila que cambia
+	 * @param i la otra fila
+	 */
+	private void sumarFila(int h, int i) {
+		int suma = (r[h] ? 2 : 0) + (r[i] ? 2 : 0);
+		for (int w = 0; w < palabras; w++) {
+			long x1 = x[i][w], z1 = z[i][w];
+			long x2 = x[h][w], z2 = z[h][w];
+			long positivos = (x1 & z1 & z2 & ~x2) | (x1 & ~z1 & z2 & x2) | (~x1 & z1 & x2 & ~z2);
+			long negativos = (x1 & z1 & ~z2 & x2) | (x1 & ~z1 & z2 & ~x2) | (~x1 & z1 & x2 & z2);
+			suma += Long.bitCount(positivos) - Long.bitCount(negativos);
+			x[h][w] = x2 ^ x1;
+			z[h][w] = z2 ^ z1;
+		}
+		r[h] = Math.floorMod(suma, 4) == 2;
+	}
+}
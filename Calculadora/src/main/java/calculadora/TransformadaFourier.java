@@ -0,0 +1,292 @@
+package calculadora;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Transformada cuantica de Fourier sobre k qubits, |x> -> 1/sqrt(N) sum_y e^(2 pi i x y / N) |y> con
+ * N = 2^k, o su inversa. Es una compuerta que no guarda su matriz: se aplica con una FFT iterativa de
+ * base 2 en su lugar, en O(k * 2^k) por grupo en lugar de O(4^k). Sobre todo el registro, en orden, la
+ * FFT se hace directamente sobre el vector de estado repartiendo las mariposas de cada etapa entre los
+ * hilos; sobre una parte de los qubits cada grupo se copia a un arreglo auxiliar y los grupos se
+ * reparten entre los hilos. Tambien es un Operador de N x N, asi se puede usar con matrizPorVector.
+ * Su matriz solo se construye si algun otro nucleo la pide, como el de una compuerta cualquiera, y solo
+ * hasta MAXIMO_QUBITS_MATRIZ qubits; los nucleos que la necesitan rechazan las transformadas mas grandes.
+ */
+public final class TransformadaFourier extends Compuerta implements Operador {
+
+	/**
+	 * Cantidad maxima de qubits para construir la matriz densa, que ocupa 2 * 4^k numeros
+	 */
+	public static final int MAXIMO_QUBITS_MATRIZ = 10;
+
+	private final boolean inversa;
+	private volatile double[] coseno;
+	private volatile double[] seno;
+	private volatile double[] matriz;
+
+	/**
+	 * Crea la transformada
+	 * @param qubits cantidad de qubits sobre los que actua
+	 * @param inversa si es la transformada inversa
+	 * @throws CalculadoraException cuando la cantidad de qubits no es valida
+	 */
+	public TransformadaFourier(int qubits, boolean inversa) throws CalculadoraException {
+		super(inversa ? "QFT^-1" : "QFT", validar(qubits), null);
+		this.inversa = inversa;
+	}
+
+	/**
+	 * Revisa la cantidad de qubits antes de crear la compuerta
+	 * @param qubits cantidad de qubits
+	 * @return la misma cantidad
+	 * @throws CalculadoraException cuando no esta entre 1 y VectorEstado.MAXIMO_QUBITS
+	 */
+	private static int validar(int qubits) throws CalculadoraException {
+		if (qubits < 1 || qubits > VectorEstado.MAXIMO_QUBITS) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		return qubits;
+	}
+
+	/**
+	 * Dice si es la transformada inversa
+	 * @return si es la inversa
+	 */
+	public boolean esInversa() {
+		return inversa;
+	}
+
+	@Override
+	public int getFilas() {
+		return getDimension();
+	}
+
+	@Override
+	public int getColumnas() {
+		return getDimension();
+	}
+
+	/**
+	 * Aplica la transformada a cada columna de b y deja el resultado en c
+	 */
+	@Override
+	public void aplicar(double[] b, double[] c, int columnas, ForkJoinPool pool) {
+		int n = getDimension();
+		double[] re = new double[n];
+		double[] im = new double[n];
+		for (int j = 0; j < columnas; j++) {
+			for (int i = 0; i < n; i++) {
+				re[i] = b[2 * (i * columnas + j)];
+				im[i] = b[2 * (i * columnas + j) + 1];
+			}
+			transformar(re, im, Paralelismo.enParalelo(pool, (long) n * getQubits()) ? pool : null);
+			for (int i = 0; i < n; i++) {
+				c[2 * (i * columnas + j)] = re[i];
+				c[2 * (i * columnas + j) + 1] = im[i];
+			}
+		}
+	}
+
+	/**
+	 * Aplica la transformada sobre el vector de estado con la FFT, sin construir su matriz
+	 */
+	@Override
+	void aplicar(VectorEstado estado, int[] mascaras) {
+		aplicar(estado.reales(), estado.imaginarias(), mascaras);
+	}
+
+	/**
+	 * Aplica la transformada sobre los grupos de amplitudes de un vector de estado
+	 * @param reales las partes reales del vector
+	 * @param imaginarias las partes imaginarias del vector
+	 * @param mascaras mascaras de los qubits, la primera es el bit mas significativo de la transformada
+	 */
+	void aplicar(final double[] reales, final double[] imaginarias, int[] mascaras) {
+		final int n = getDimension();
+		ForkJoinPool pool = Paralelismo.getPool();
+		if (!Paralelismo.enParalelo(pool, (long) reales.length * getQubits())) {
+			pool = null;
+		}
+		boolean enOrden = n == reales.length;
+		for (int i = 0; i < mascaras.length && enOrden; i++) {
+			enOrden = mascaras[i] == n >>> (i + 1);
+		}
+		if (enOrden) {
+			transformar(reales, imaginarias, pool);
+			return;
+		}
+		final int[] desplazamientos = new int[n];
+		for (int j = 0; j < n; j++) {
+			for (int t = 0; t < mascaras.length; t++) {
+				if ((j >> (mascaras.length - 1 - t) & 1) != 0) {
+					desplazamientos[j] |= mascaras[t];
+				}
+			}
+		}
+		final int[] ordenadas = mascaras.clone();
+		Arrays.sort(ordenadas);
+		int grupos = reales.length / n;
+		final ForkJoinPool poolGrupos = grupos > 1 ? pool : null;
+		final ForkJoinPool poolMariposas = grupos > 1 ? null : pool;
+		Paralelismo.ejecutar(poolGrupos, 0, grupos, Paralelismo.tamanoParte(poolGrupos, grupos, 1), new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				double[] re = new double[n];
+				double[] im = new double[n];
+				for (int grupo = desde; grupo < hasta; grupo++) {
+					int base = grupo;
+					for (int m : ordenadas) {
+						base = VectorEstado.insertarCero(base, m);
+					}
+					for (int j = 0; j < n; j++) {
+						re[j] = reales[base | desplazamientos[j]];
+						im[j] = imaginarias[base | desplazamientos[j]];
+					}
+					transformar(re, im, poolMariposas);
+					for (int j = 0; j < n; j++) {
+						reales[base | desplazamientos[j]] = re[j];
+						imaginarias[base | desplazamientos[j]] = im[j];
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * FFT iterativa de base 2 en su lugar: reordena por inversion de bits, normalizando por 1/sqrt(N), y
+	 * luego combina mariposas etapa por etapa. Las mariposas de una etapa son independientes.
+	 * @param re las partes reales, de N posiciones
+	 * @param im las partes imaginarias, de N posiciones
+	 * @param pool el pool que reparte cada etapa, o null para hacerla en este hilo
+	 */
+	private void transformar(final double[] re, final double[] im, ForkJoinPool pool) {
+		final int n = re.length;
+		final int bits = getQubits();
+		final double escala = 1 / Math.sqrt(n);
+		final double[] cos = coseno();
+		final double[] sin = seno();
+		Paralelismo.ejecutar(pool, 0, n, Paralelismo.tamanoParte(pool, n, 1 << 12), new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				for (int i = desde; i < hasta; i++) {
+					int j = Integer.reverse(i) >>> (32 - bits);
+					if (i < j) {
+						double r = re[i], m = im[i];
+						re[i] = re[j] * escala;
+						im[i] = im[j] * escala;
+						re[j] = r * escala;
+						im[j] = m * escala;
+					} else if (i == j) {
+						re[i] *= escala;
+						im[i] *= escala;
+					}
+				}
+			}
+		});
+		final int signo = inversa ? -1 : 1;
+		for (int longitud = 2; longitud <= n; longitud <<= 1) {
+			final int mitad = longitud >>> 1;
+			final int paso = n / longitud;
+			Paralelismo.ejecutar(pool, 0, n / 2, Paralelismo.tamanoParte(pool, n / 2, 1 << 12), new Paralelismo.Rango() {
+				@Override
+				public void calcular(int desde, int hasta) {
+					for (int b = desde; b < hasta; b++) {
+						int j = b & (mitad - 1);
+						int i = ((b - j) << 1) + j;
+						int k = i + mitad;
+						double wr = cos[j * paso];
+						double wi = signo * sin[j * paso];
+						double vr = re[k] * wr - im[k] * wi;
+						double vi = re[k] * wi + im[k] * wr;
+						re[k] = re[i] - vr;
+						im[k] = im[i] - vi;
+						re[i] += vr;
+						im[i] += vi;
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Da la tabla de cos(2 pi j / N) para j menor que N/2, calculada una sola vez
+	 * @return la tabla de cosenos
+	 */
+	private double[] coseno() {
+		if (coseno == null) {
+			calcularTablas();
+		}
+		return coseno;
+	}
+
+	/**
+	 * Da la tabla de sin(2 pi j / N) para j menor que N/2, calculada una sola vez
+	 * @return la tabla de senos
+	 */
+	private double[] seno() {
+		if (seno == null) {
+			calcularTablas();
+		}
+		return seno;
+	}
+
+	private synchronized void calcularTablas() {
+		if (seno != null) {
+			return;
+		}
+		int n = getDimension();
+		double[] cos = new double[Math.max(1, n / 2)];
+		double[] sin = new double[cos.length];
+		for (int j = 0; j < n / 2; j++) {
+			cos[j] = Math.cos(2 * Math.PI * j / n);
+			sin[j] = Math.sin(2 * Math.PI * j / n);
+		}
+		coseno = cos;
+		seno = sin;
+	}
+
+	/**
+	 * Construye la matriz de la transformada la primera vez que se pide. Ocupa 2 * 4^k numeros.
+	 * @throws CalculadoraException cuando la transformada es de mas de MAXIMO_QUBITS_MATRIZ qubits
+	 */
+	@Override
+	double[] datos() throws CalculadoraException {
+		double[] datos = matriz;
+		if (datos == null) {
+			long tamano = 2L << (2 * getQubits());
+			if (getQubits() > MAXIMO_QUBITS_MATRIZ || tamano > Integer.MAX_VALUE) {
+				throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+			}
+			int n = getDimension();
+			double escala = 1 / Math.sqrt(n);
+			int signo = inversa ? -1 : 1;
+			datos = new double[(int) tamano];
+			for (int y = 0; y < n; y++) {
+				for (int x = 0; x < n; x++) {
+					double angulo = 2 * Math.PI * (((long) x * y) % n) / n;
+					datos[2 * (y * n + x)] = escala * Math.cos(angulo);
+					datos[2 * (y * n + x) + 1] = signo * escala * Math.sin(angulo);
+				}
+			}
+			matriz = datos;
+		}
+		return datos;
+	}
+
+	@Override
+	int huella() {
+		return 31 * getQubits() + (inversa ? 1 : 0) + 0x51F7;
+	}
+
+	@Override
+	boolean mismosNumeros(Compuerta otra) {
+		return otra instanceof TransformadaFourier && otra.getQubits() == getQubits()
+				&& ((TransformadaFourier) otra).inversa == inversa;
+	}
+
+	@Override
+	public String toString() {
+		return getNombre() + " de " + getQubits() + " qubits";
+	}
+}
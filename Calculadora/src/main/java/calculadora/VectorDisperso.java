@@ -0,0 +1,484 @@
+package calculadora;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Vector de amplitudes que guarda solo las distintas de cero en una tabla hash de direccionamiento
+ * abierto de long a complejo (arreglos primitivos, sondeo lineal), para estados que se quedan en pocos
+ * estados de la base: vectores unitarios, oraculos de permutacion o el sistema de canicas. Aplicar una
+ * compuerta o una matriz dispersa solo recorre las amplitudes no nulas. Cuando la fraccion de amplitudes
+ * no nulas pasa de DENSIDAD_MAXIMA el vector se convierte solo a un arreglo denso intercalado.
+ * Sobre vectores de 2^n posiciones el qubit 0 es el bit mas significativo del indice, igual que en
+ * VectorEstado; en forma dispersa caben hasta 62 qubits.
+ */
+public class VectorDisperso {
+
+	/**
+	 * Fraccion de amplitudes no nulas desde la cual el vector pasa a la forma densa
+	 */
+	public static final double DENSIDAD_MAXIMA = 0.25;
+
+	/**
+	 * Probabilidad debajo de la cual una amplitud se descarta como cero despues de una operacion
+	 */
+	public static final double CERO = 1e-30;
+
+	/**
+	 * Dimension maxima de la forma densa, cuyo arreglo intercalado tiene 2 * dimension posiciones
+	 */
+	public static final long DIMENSION_DENSA_MAXIMA = 1L << VectorEstado.MAXIMO_QUBITS_MATRIZ;
+
+	private static final long VACIA = -1;
+
+	private final long dimension;
+	private Tabla tabla;
+	private double[] densos;
+
+	/**
+	 * Crea el vector unitario de la base con el indice dado
+	 * @param dimension cantidad de posiciones del vector
+	 * @param indice la posicion del uno
+	 * @throws CalculadoraException cuando la dimension o el indice no son validos
+	 */
+	public VectorDisperso(long dimension, long indice) throws CalculadoraException {
+		if (dimension < 1) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		if (indice < 0 || indice >= dimension) {
+			throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+		}
+		this.dimension = dimension;
+		this.tabla = new Tabla(1);
+		tabla.sumar(indice, 1, 0);
+	}
+
+	/**
+	 * Crea el vector con las amplitudes no nulas de un vector columna
+	 * @param vector el vector columna
+	 * @throws CalculadoraException cuando no es un vector columna
+	 */
+	public VectorDisperso(Matriz vector) throws CalculadoraException {
+		if (vector.getColumnas() != 1) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
+		}
+		this.dimension = vector.getFilas();
+		double[] datos = vector.getDatos();
+		this.tabla = new Tabla(MatrizDispersa.contarNoCeros(vector));
+		for (int i = 0; i < vector.getFilas(); i++) {
+			if (datos[2 * i] != 0 || datos[2 * i + 1] != 0) {
+				tabla.sumar(i, datos[2 * i], datos[2 * i + 1]);
+			}
+		}
+		revisarDensidad();
+	}
+
+	/**
+	 * Crea una copia de otro vector
+	 * @param otro el vector a copiar
+	 */
+	public VectorDisperso(VectorDisperso otro) {
+		this.dimension = otro.dimension;
+		this.tabla = otro.tabla == null ? null : new Tabla(otro.tabla);
+		this.densos = otro.densos == null ? null : otro.densos.clone();
+	}
+
+	/**
+	 * Crea un vector en ceros en forma dispersa
+	 * @param dimension cantidad de posiciones
+	 */
+	private VectorDisperso(long dimension) {
+		this.dimension = dimension;
+		this.tabla = new Tabla(1);
+	}
+
+	/**
+	 * Da la cantidad de posiciones del vector
+	 * @return la dimension
+	 */
+	public long getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * Da la cantidad de amplitudes guardadas. En forma densa son todas las posiciones.
+	 * @return la cantidad de amplitudes no nulas, o la dimension si el vector es denso
+	 */
+	public long getNoCeros() {
+		return densos == null ? tabla.tamano : dimension;
+	}
+
+	/**
+	 * Dice si el vector ya se convirtio a la forma densa
+	 * @return si las amplitudes estan en un arreglo denso
+	 */
+	public boolean esDenso() {
+		return densos != null;
+	}
+
+	/**
+	 * Da la parte real de una amplitud
+	 * @param indice la posicion
+	 * @return la parte real, cero si no esta guardada
+	 */
+	public double getReal(long indice) {
+		if (densos != null) {
+			return densos[(int) (2 * indice)];
+		}
+		int p = tabla.buscar(indice);
+		return p < 0 ? 0 : tabla.valores[2 * p];
+	}
+
+	/**
+	 * Da la parte imaginaria de una amplitud
+	 * @param indice la posicion
+	 * @return la parte imaginaria, cero si no esta guardada
+	 */
+	public double getImaginaria(long indice) {
+		if (densos != null) {
+			return densos[(int) (2 * indice + 1)];
+		}
+		int p = tabla.buscar(indice);
+		return p < 0 ? 0 : tabla.valores[2 * p + 1];
+	}
+
+	/**
+	 * Aplica una compuerta en su lugar. Cada amplitud no nula reparte su valor entre las posiciones de
+	 * su grupo segun la columna que le corresponde en la compuerta, asi una compuerta de permutacion no
+	 * agrega amplitudes.
+	 * @param compuerta la compuerta
+	 * @param objetivos los qubits sobre los que actua, el primero es el bit mas significativo de la compuerta
+	 * @throws CalculadoraException cuando la dimension no es una potencia de 2 o los qubits no son validos
+	 */
+	public void aplicar(Compuerta compuerta, int... objetivos) throws CalculadoraException {
+		if (Long.bitCount(dimension) != 1 || dimension == 1) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		int qubits = Long.numberOfTrailingZeros(dimension);
+		if (objetivos.length != compuerta.getQubits()) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		long mascara = 0;
+		long[] desplazamientos = new long[1 << objetivos.length];
+		for (int i = 0; i < objetivos.length; i++) {
+			if (objetivos[i] < 0 || objetivos[i] >= qubits) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+			long bit = 1L << (qubits - 1 - objetivos[i]);
+			if ((mascara & bit) != 0) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+			mascara |= bit;
+			for (int t = 0; t < desplazamientos.length; t++) {
+				if ((t >> (objetivos.length - 1 - i) & 1) != 0) {
+					desplazamientos[t] |= bit;
+				}
+			}
+		}
+		double[] g = compuerta.datos();
+		int d = desplazamientos.length;
+		if (densos != null) {
+			aplicarDenso(g, mascara, desplazamientos);
+			return;
+		}
+		Tabla nueva = new Tabla(tabla.tamano * 2);
+		for (int p = 0; p < tabla.claves.length; p++) {
+			long clave = tabla.claves[p];
+			if (clave == VACIA) {
+				continue;
+			}
+			double ar = tabla.valores[2 * p], ai = tabla.valores[2 * p + 1];
+			long base = clave & ~mascara;
+			int s = 0;
+			while (desplazamientos[s] != (clave & mascara)) {
+				s++;
+			}
+			for (int t = 0; t < d; t++) {
+				double gr = g[2 * (t * d + s)], gi = g[2 * (t * d + s) + 1];
+				if (gr != 0 || gi != 0) {
+					nueva.sumar(base | desplazamientos[t], gr * ar - gi * ai, gr * ai + gi * ar);
+				}
+			}
+		}
+		tabla = nueva.compactar();
+		revisarDensidad();
+	}
+
+	/**
+	 * Aplica una compuerta sobre la forma densa recorriendo los grupos de posiciones
+	 * @param g la compuerta en arreglo intercalado
+	 * @param mascara los bits de los qubits de la compuerta
+	 * @param desplazamientos la posicion de cada fila de la compuerta dentro del grupo
+	 */
+	private void aplicarDenso(double[] g, long mascara, long[] desplazamientos) {
+		int d = desplazamientos.length;
+		double[] xr = new double[d];
+		double[] xi = new double[d];
+		for (long base = 0; base < dimension; base++) {
+			if ((base & mascara) != 0) {
+				continue;
+			}
+			for (int s = 0; s < d; s++) {
+				int p = (int) (2 * (base | desplazamientos[s]));
+				xr[s] = densos[p];
+				xi[s] = densos[p + 1];
+			}
+			for (int t = 0; t < d; t++) {
+				double sumaR = 0, sumaI = 0;
+				for (int s = 0; s < d; s++) {
+					double gr = g[2 * (t * d + s)], gi = g[2 * (t * d + s) + 1];
+					sumaR += gr * xr[s] - gi * xi[s];
+					sumaI += gr * xi[s] + gi * xr[s];
+				}
+				int p = (int) (2 * (base | desplazamientos[t]));
+				densos[p] = sumaR;
+				densos[p + 1] = sumaI;
+			}
+		}
+	}
+
+	/**
+	 * Multiplica el vector por una matriz, A*v. Con una matriz dispersa cada amplitud guardada recorre
+	 * solo los numeros no nulos de su columna, tomados de la traspuesta que la matriz guarda, asi el
+	 * costo depende de las amplitudes no nulas y no de toda la matriz. Cualquier otro operador se
+	 * aplica sobre la forma densa.
+	 * @param m la matriz
+	 * @param pool el pool que hace los calculos en la forma densa, o null para hacerlos en un solo hilo
+	 * @return el producto, que puede tener otra dimension
+	 * @throws CalculadoraException cuando las dimensiones no corresponden
+	 */
+	public VectorDisperso multiplicar(Operador m, ForkJoinPool pool) throws CalculadoraException {
+		if (m.getColumnas() != dimension) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		VectorDisperso producto = new VectorDisperso(m.getFilas());
+		if (densos == null && m instanceof MatrizDispersa) {
+			MatrizDispersa porColumnas = ((MatrizDispersa) m).porColumnas();
+			int[] inicio = porColumnas.inicioFilas();
+			int[] filas = porColumnas.indiceColumnas();
+			double[] valores = porColumnas.valores();
+			Tabla nueva = new Tabla(tabla.tamano);
+			for (int p = 0; p < tabla.claves.length; p++) {
+				if (tabla.claves[p] == VACIA) {
+					continue;
+				}
+				int j = (int) tabla.claves[p];
+				double br = tabla.valores[2 * p], bi = tabla.valores[2 * p + 1];
+				for (int k = inicio[j]; k < inicio[j + 1]; k++) {
+					double ar = valores[2 * k], ai = valores[2 * k + 1];
+					nueva.sumar(filas[k], ar * br - ai * bi, ar * bi + ai * br);
+				}
+			}
+			producto.tabla = nueva.compactar();
+		} else {
+			if (dimension > DIMENSION_DENSA_MAXIMA || m.getFilas() > DIMENSION_DENSA_MAXIMA) {
+				throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+			}
+			double[] b = aDensos();
+			double[] c = new double[2 * m.getFilas()];
+			m.aplicar(b, c, 1, pool);
+			producto.tabla = null;
+			producto.densos = c;
+		}
+		producto.revisarDensidad();
+		return producto;
+	}
+
+	/**
+	 * Multiplica el vector por una matriz en un solo hilo
+	 * @param m la matriz
+	 * @return el producto
+	 * @throws CalculadoraException cuando las dimensiones no corresponden
+	 */
+	public VectorDisperso multiplicar(Operador m) throws CalculadoraException {
+		return multiplicar(m, null);
+	}
+
+	/**
+	 * Pasa a la forma densa si hay demasiadas amplitudes no nulas y la dimension lo permite
+	 */
+	private void revisarDensidad() {
+		if (densos == null && dimension <= DIMENSION_DENSA_MAXIMA && tabla.tamano > DENSIDAD_MAXIMA * dimension) {
+			densos = aDensos();
+			tabla = null;
+		}
+	}
+
+	/**
+	 * Copia las amplitudes en un arreglo denso intercalado
+	 * @return el arreglo de 2 * dimension numeros; la dimension debe ser a lo sumo DIMENSION_DENSA_MAXIMA
+	 */
+	private double[] aDensos() {
+		if (densos != null) {
+			return densos;
+		}
+		double[] datos = new double[(int) (2 * dimension)];
+		for (int p = 0; p < tabla.claves.length; p++) {
+			if (tabla.claves[p] != VACIA) {
+				datos[(int) (2 * tabla.claves[p])] = tabla.valores[2 * p];
+				datos[(int) (2 * tabla.claves[p] + 1)] = tabla.valores[2 * p + 1];
+			}
+		}
+		return datos;
+	}
+
+	/**
+	 * Da las probabilidades de medir cada posicion, como CalculadoraMatrices.moduloAlCuadrado
+	 * @return un vector columna con el modulo al cuadrado de cada amplitud
+	 * @throws CalculadoraException cuando la dimension no cabe en una Matriz
+	 */
+	public Matriz getProbabilidades() throws CalculadoraException {
+		Matriz vector = aMatriz();
+		double[] datos = vector.getDatos();
+		for (int i = 0; i < datos.length; i += 2) {
+			datos[i] = datos[i] * datos[i] + datos[i + 1] * datos[i + 1];
+			datos[i + 1] = 0;
+		}
+		return vector;
+	}
+
+	/**
+	 * Copia el vector en un vector columna
+	 * @return una matriz de dimension x 1 con las amplitudes
+	 * @throws CalculadoraException cuando la dimension no cabe en una Matriz
+	 */
+	public Matriz aMatriz() throws CalculadoraException {
+		if (dimension > DIMENSION_DENSA_MAXIMA) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		Matriz vector = new Matriz((int) dimension, 1);
+		double[] datos = aDensos();
+		System.arraycopy(datos, 0, vector.getDatos(), 0, datos.length);
+		return vector;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder texto = new StringBuilder();
+		if (densos != null) {
+			return texto.append("denso de ").append(dimension).toString();
+		}
+		texto.append("{");
+		for (int p = 0; p < tabla.claves.length; p++) {
+			if (tabla.claves[p] != VACIA) {
+				if (texto.length() > 1) {
+					texto.append(", ");
+				}
+				texto.append(tabla.claves[p]).append("=").append(tabla.valores[2 * p]).append(" + ").append(tabla.valores[2 * p + 1]).append("i");
+			}
+		}
+		return texto.append("}").toString();
+	}
+
+	/**
+	 * Tabla hash de direccionamiento abierto con claves long y valores complejos intercalados. La
+	 * capacidad es una potencia de 2 y se mantiene al menos al doble de la cantidad de claves.
+	 */
+	private static final class Tabla {
+		private long[] claves;
+		private double[] valores;
+		private int tamano;
+
+		Tabla(int esperado) {
+			int capacidad = Integer.highestOneBit(Math.max(2, 2 * esperado) - 1) << 1;
+			this.claves = new long[capacidad];
+			this.valores = new double[2 * capacidad];
+			Arrays.fill(claves, VACIA);
+		}
+
+		Tabla(Tabla otra) {
+			this.claves = otra.claves.clone();
+			this.valores = otra.valores.clone();
+			this.tamano = otra.tamano;
+		}
+
+		/**
+		 * Calcula la primera posicion donde buscar una clave (hash de Fibonacci)
+		 * @param clave la clave
+		 * @return la posicion
+		 */
+		private int posicion(long clave) {
+			return (int) ((clave * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(claves.length)));
+		}
+
+		/**
+		 * Busca una clave
+		 * @param clave la clave
+		 * @return su posicion en la tabla, o -1 si no esta
+		 */
+		int buscar(long clave) {
+			int mascara = claves.length - 1;
+			for (int p = posicion(clave); ; p = (p + 1) & mascara) {
+				if (claves[p] == clave) {
+					return p;
+				}
+				if (claves[p] == VACIA) {
+					return -1;
+				}
+			}
+		}
+
+		/**
+		 * Suma un numero al valor de una clave, agregandola si no esta
+		 * @param clave la clave
+		 * @param real la parte real
+		 * @param imaginaria la parte imaginaria
+		 */
+		void sumar(long clave, double real, double imaginaria) {
+			if (2 * (tamano + 1) > claves.length) {
+				crecer();
+			}
+			int mascara = claves.length - 1;
+			int p = posicion(clave);
+			while (claves[p] != VACIA && claves[p] != clave) {
+				p = (p + 1) & mascara;
+			}
+			if (claves[p] == VACIA) {
+				claves[p] = clave;
+				tamano++;
+			}
+			valores[2 * p] += real;
+			valores[2 * p + 1] += imaginaria;
+		}
+
+		/**
+		 * Duplica la capacidad y vuelve a ubicar las claves
+		 */
+		private void crecer() {
+			long[] clavesAnteriores = claves;
+			double[] valoresAnteriores = valores;
+			claves = new long[2 * clavesAnteriores.length];
+			valores = new double[2 * claves.length];
+			Arrays.fill(claves, VACIA);
+			tamano = 0;
+			for (int p = 0; p < clavesAnteriores.length; p++) {
+				if (clavesAnteriores[p] != VACIA) {
+					sumar(clavesAnteriores[p], valoresAnteriores[2 * p], valoresAnteriores[2 * p + 1]);
+				}
+			}
+		}
+
+		/**
+		 * Descarta los valores que quedaron en cero por cancelacion
+		 * @return una tabla solo con los valores no nulos
+		 */
+		Tabla compactar() {
+			int noCeros = 0;
+			for (int p = 0; p < claves.length; p++) {
+				if (claves[p] != VACIA && valores[2 * p] * valores[2 * p] + valores[2 * p + 1] * valores[2 * p + 1] > CERO) {
+					noCeros++;
+				}
+			}
+			if (noCeros == tamano) {
+				return this;
+			}
+			Tabla compacta = new Tabla(noCeros);
+			for (int p = 0; p < claves.length; p++) {
+				if (claves[p] != VACIA && valores[2 * p] * valores[2 * p] + valores[2 * p + 1] * valores[2 * p + 1] > CERO) {
+					compacta.sumar(claves[p], valores[2 * p], valores[2 * p + 1]);
+				}
+			}
+			return compacta;
+		}
+	}
+}
@@ -0,0 +1,444 @@
+package calculadora;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+
+/**
+ * Vector de estado de un sistema de qubits sobre el que se aplican compuertas en su lugar.
+ * Las amplitudes se guardan en dos arreglos primitivos (partes reales e imaginarias), asi caben
+ * hasta 2^30 amplitudes. El qubit 0 es el bit mas significativo del indice, igual que en
+ * productoTensorial(q0, q1, ...). Aplicar una compuerta de k qubits cuesta O(2^n * 2^k), recorriendo
+ * los grupos de indices que solo difieren en los bits de esos qubits. Los grupos se reparten entre los
+ * hilos del pool de Paralelismo cuando la compuerta pasa del umbral.
+ */
+public class VectorEstado {
+
+	/**
+	 * Cantidad maxima de qubits del sistema
+	 */
+	public static final int MAXIMO_QUBITS = 30;
+
+	/**
+	 * Cantidad maxima de qubits para copiar el estado en una Matriz, cuyo arreglo intercalado tiene
+	 * 2 * 2^n posiciones
+	 */
+	public static final int MAXIMO_QUBITS_MATRIZ = 29;
+
+	/**
+	 * Cantidad de grupos seguidos que ocupan 64 bytes, el tamano de una linea de cache, en cada arreglo
+	 */
+	static final int GRUPOS_POR_LINEA = 8;
+
+	private final int qubits;
+	private final double[] reales;
+	private final double[] imaginarias;
+
+	/**
+	 * Crea el estado de la base computacional con el indice dado
+	 * @param qubits cantidad de qubits del sistema
+	 * @param indice el estado de la base; el qubit 0 es el bit mas significativo
+	 * @throws CalculadoraException cuando la cantidad de qubits o el indice no son validos
+	 */
+	public VectorEstado(int qubits, int indice) throws CalculadoraException {
+		if (qubits < 1 || qubits > MAXIMO_QUBITS) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		if (indice < 0 || indice >= 1 << qubits) {
+			throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+		}
+		this.qubits = qubits;
+		this.reales = new double[1 << qubits];
+		this.imaginarias = new double[1 << qubits];
+		reales[indice] = 1;
+	}
+
+	/**
+	 * Crea el estado |0...0>
+	 * @param qubits cantidad de qubits del sistema
+	 * @throws CalculadoraException cuando la cantidad de qubits no es valida
+	 */
+	public VectorEstado(int qubits) throws CalculadoraException {
+		this(qubits, 0);
+	}
+
+	/**
+	 * Crea el estado a partir de un vector columna
+	 * @param estado el vector, con 2^n filas
+	 * @throws CalculadoraException cuando no es un vector columna o su tamano no es una potencia de 2
+	 */
+	public VectorEstado(Matriz estado) throws CalculadoraException {
+		int filas = estado.getFilas();
+		if (estado.getColumnas() != 1) {
+			throw new CalculadoraException(CalculadoraException.NO_ES_VECTOR);
+		}
+		if (filas < 2 || Integer.bitCount(filas) != 1) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		this.qubits = Integer.numberOfTrailingZeros(filas);
+		this.reales = new double[filas];
+		this.imaginarias = new double[filas];
+		double[] datos = estado.getDatos();
+		for (int i = 0; i < filas; i++) {
+			reales[i] = datos[2 * i];
+			imaginarias[i] = datos[2 * i + 1];
+		}
+	}
+
+	/**
+	 * Crea una copia de otro estado
+	 * @param otro el estado a copiar
+	 */
+	public VectorEstado(VectorEstado otro) {
+		this.qubits = otro.qubits;
+		this.reales = otro.reales.clone();
+		this.imaginarias = otro.imaginarias.clone();
+	}
+
+	/**
+	 * Da la cantidad de qubits del sistema
+	 * @return la cantidad de qubits
+	 */
+	public int getQubits() {
+		return qubits;
+	}
+
+	/**
+	 * Da la cantidad de amplitudes del estado
+	 * @return 2 a la cantidad de qubits
+	 */
+	public int getDimension() {
+		return reales.length;
+	}
+
+	/**
+	 * Da la parte real de una amplitud
+	 * @param indice el estado de la base
+	 * @return la parte real de su amplitud
+	 */
+	public double getReal(int indice) {
+		return reales[indice];
+	}
+
+	/**
+	 * Da la parte imaginaria de una amplitud
+	 * @param indice el estado de la base
+	 * @return la parte imaginaria de su amplitud
+	 */
+	public double getImaginaria(int indice) {
+		return imaginarias[indice];
+	}
+
+	/**
+	 * Da las partes reales para los nucleos que trabajan sobre el vector. No es una copia.
+	 * @return el arreglo de partes reales
+	 */
+	double[] reales() {
+		return reales;
+	}
+
+	/**
+	 * Da las partes imaginarias para los nucleos que trabajan sobre el vector. No es una copia.
+	 * @return el arreglo de partes imaginarias
+	 */
+	double[] imaginarias() {
+		return imaginarias;
+	}
+
+	/**
+	 * Aplica una compuerta sobre algunos qubits del sistema
+	 * @param compuerta matriz de 2^k x 2^k; el primer qubit dado es el bit mas significativo de sus indices
+	 * @param objetivos los k qubits sobre los que actua la compuerta
+	 * @throws CalculadoraException cuando la compuerta no corresponde a los qubits o algun qubit no es valido
+	 */
+	public void aplicar(Matriz compuerta, int... objetivos) throws CalculadoraException {
+		int k = objetivos.length;
+		if (k == 0 || compuerta.getFilas() != 1 << k || compuerta.getColumnas() != 1 << k) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		aplicar(compuerta.getDatos(), mascaras(objetivos));
+	}
+
+	/**
+	 * Aplica una compuerta de la biblioteca sobre algunos qubits del sistema, leyendo sus numeros sin copiarlos
+	 * @param compuerta la compuerta; el primer qubit dado es el bit mas significativo de sus indices
+	 * @param objetivos los qubits sobre los que actua la compuerta, tantos como los de la compuerta
+	 * @throws CalculadoraException cuando la cantidad de qubits no corresponde o algun qubit no es valido
+	 */
+	public void aplicar(Compuerta compuerta, int... objetivos) throws CalculadoraException {
+		if (objetivos.length != compuerta.getQubits()) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+		compuerta.aplicar(this, mascaras(objetivos));
+	}
+
+	/**
+	 * Aplica una compuerta escogiendo el nucleo segun la cantidad de qubits
+	 * @param g la compuerta en arreglo intercalado
+	 * @param mascaras mascaras de los qubits, la primera es el bit mas significativo de la compuerta
+	 */
+	void aplicar(double[] g, int[] mascaras) {
+		int k = mascaras.length;
+		if (k == 1) {
+			aplicarUno(g, mascaras[0]);
+		} else if (k == 2) {
+			aplicarDos(g, mascaras[0], mascaras[1]);
+		} else {
+			aplicarVarios(g, mascaras);
+		}
+	}
+
+	/**
+	 * Cambia el signo de la amplitud de los estados de la base que cumplen una condicion. Es la forma
+	 * de un oraculo de fase, que cuesta O(2^n) sin construir su matriz.
+	 * @param marcados la condicion sobre el indice de cada estado de la base
+	 */
+	public void aplicarFase(IntPredicate marcados) {
+		for (int i = 0; i < reales.length; i++) {
+			if (marcados.test(i)) {
+				reales[i] = -reales[i];
+				imaginarias[i] = -imaginarias[i];
+			}
+		}
+	}
+
+	/**
+	 * Aplica una compuerta de un qubit a cada pareja de indices que difieren solo en el bit del qubit.
+	 * Las parejas se reparten entre los hilos en partes de 64 bytes completos.
+	 * @param g la compuerta de 2x2 en arreglo intercalado
+	 * @param m mascara del qubit
+	 */
+	private void aplicarUno(double[] g, final int m) {
+		final double g00r = g[0], g00i = g[1], g01r = g[2], g01i = g[3];
+		final double g10r = g[4], g10i = g[5], g11r = g[6], g11i = g[7];
+		final int bajos = m - 1;
+		repartir(reales.length >>> 1, 2, new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				for (int p = desde; p < hasta; p++) {
+					int i = ((p & ~bajos) << 1) | (p & bajos);
+					int j = i + m;
+					double ar = reales[i], ai = imaginarias[i];
+					double br = reales[j], bi = imaginarias[j];
+					reales[i] = (g01r * br - g01i * bi) + (g00r * ar - g00i * ai);
+					imaginarias[i] = (g01r * bi + g01i * br) + (g00r * ai + g00i * ar);
+					reales[j] = (g11r * br - g11i * bi) + (g10r * ar - g10i * ai);
+					imaginarias[j] = (g11r * bi + g11i * br) + (g10r * ai + g10i * ar);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Aplica una compuerta de dos qubits a cada grupo de cuatro indices que difieren solo en los bits de los qubits
+	 * @param g la compuerta de 4x4 en arreglo intercalado
+	 * @param alta mascara del qubit mas significativo de la compuerta
+	 * @param baja mascara del otro qubit
+	 */
+	private void aplicarDos(final double[] g, final int alta, final int baja) {
+		final int menor = Math.min(alta, baja);
+		final int mayor = Math.max(alta, baja);
+		repartir(reales.length >>> 2, 4, new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				int[] indices = new int[4];
+				double[] entrada = new double[8];
+				for (int k = desde; k < hasta; k++) {
+					int i = insertarCero(insertarCero(k, menor), mayor);
+					indices[0] = i;
+					indices[1] = i | baja;
+					indices[2] = i | alta;
+					indices[3] = i | alta | baja;
+					multiplicarGrupo(g, indices, entrada, 4);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Aplica una compuerta de k qubits a cada grupo de 2^k indices que difieren solo en los bits de los qubits
+	 * @param g la compuerta de 2^k x 2^k en arreglo intercalado
+	 * @param mascaras mascaras de los qubits, la primera es el bit mas significativo de la compuerta
+	 */
+	private void aplicarVarios(final double[] g, final int[] mascaras) {
+		final int k = mascaras.length;
+		final int tamano = 1 << k;
+		final int[] ordenadas = mascaras.clone();
+		Arrays.sort(ordenadas);
+		repartir(reales.length >>> k, tamano, new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				int[] indices = new int[tamano];
+				double[] entrada = new double[2 * tamano];
+				for (int grupo = desde; grupo < hasta; grupo++) {
+					int base = grupo;
+					for (int m : ordenadas) {
+						base = insertarCero(base, m);
+					}
+					for (int s = 0; s < tamano; s++) {
+						int indice = base;
+						for (int b = 0; b < k; b++) {
+							if ((s & (1 << (k - 1 - b))) != 0) {
+								indice |= mascaras[b];
+							}
+						}
+						indices[s] = indice;
+					}
+					multiplicarGrupo(g, indices, entrada, tamano);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reparte los grupos de una compuerta entre los hilos del pool de Paralelismo. Cada parte tiene un
+	 * multiplo de GRUPOS_POR_LINEA grupos consecutivos, es decir tramos de 64 bytes contados desde el
+	 * primer elemento. Java no alinea ese elemento a una linea de cache (el arreglo empieza despues de su
+	 * cabecera), asi que dos partes vecinas todavia pueden compartir una linea en cada frontera de sus
+	 * tramos. Cada grupo se calcula igual en cualquier hilo, por lo que el resultado no depende de la
+	 * cantidad de hilos.
+	 * @param grupos cantidad de grupos
+	 * @param tamano cantidad de amplitudes de cada grupo
+	 * @param rango el calculo sobre un rango de grupos
+	 */
+	private static void repartir(final int grupos, int tamano, final Paralelismo.Rango rango) {
+		ForkJoinPool pool = Paralelismo.getPool();
+		if (!Paralelismo.enParalelo(pool, (long) grupos * tamano * tamano)) {
+			rango.calcular(0, grupos);
+			return;
+		}
+		int parte = Paralelismo.tamanoParte(pool, grupos, GRUPOS_POR_LINEA);
+		final int alineada = (parte + GRUPOS_POR_LINEA - 1) / GRUPOS_POR_LINEA * GRUPOS_POR_LINEA;
+		int partes = (grupos + alineada - 1) / alineada;
+		Paralelismo.ejecutar(pool, 0, partes, 1, new Paralelismo.Rango() {
+			@Override
+			public void calcular(int desde, int hasta) {
+				rango.calcular(desde * alineada, (int) Math.min((long) hasta * alineada, grupos));
+			}
+		});
+	}
+
+	/**
+	 * Multiplica la compuerta por las amplitudes de un grupo de indices y las reemplaza
+	 * @param g la compuerta en arreglo intercalado
+	 * @param indices los indices del grupo, en el orden de la base de la compuerta
+	 * @param entrada arreglo de trabajo de 2*tamano posiciones
+	 * @param tamano cantidad de indices del grupo
+	 */
+	private void multiplicarGrupo(double[] g, int[] indices, double[] entrada, int tamano) {
+		for (int s = 0; s < tamano; s++) {
+			entrada[2 * s] = reales[indices[s]];
+			entrada[2 * s + 1] = imaginarias[indices[s]];
+		}
+		for (int r = 0; r < tamano; r++) {
+			double real = 0;
+			double imaginaria = 0;
+			int posicion = 2 * r * tamano;
+			for (int s = 0; s < tamano; s++) {
+				double gr = g[posicion + 2 * s];
+				double gi = g[posicion + 2 * s + 1];
+				double xr = entrada[2 * s];
+				double xi = entrada[2 * s + 1];
+				real = (gr * xr - gi * xi) + real;
+				imaginaria = (gr * xi + gi * xr) + imaginaria;
+			}
+			reales[indices[r]] = real;
+			imaginarias[indices[r]] = imaginaria;
+		}
+	}
+
+	/**
+	 * Convierte los qubits en mascaras de bits y verifica que sean validos y distintos
+	 * @param objetivos los qubits
+	 * @return la mascara de cada qubit
+	 * @throws CalculadoraException cuando algun qubit no existe o esta repetido
+	 */
+	private int[] mascaras(int[] objetivos) throws CalculadoraException {
+		int[] mascaras = new int[objetivos.length];
+		int usados = 0;
+		for (int i = 0; i < objetivos.length; i++) {
+			if (objetivos[i] < 0 || objetivos[i] >= qubits) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+			mascaras[i] = 1 << (qubits - 1 - objetivos[i]);
+			if ((usados & mascaras[i]) != 0) {
+				throw new CalculadoraException(CalculadoraException.QUBIT_INVALIDO);
+			}
+			usados |= mascaras[i];
+		}
+		return mascaras;
+	}
+
+	/**
+	 * Inserta un bit en cero en la posicion de la mascara, corriendo los bits superiores
+	 * @param valor el numero
+	 * @param mascara la posicion del bit a insertar
+	 * @return el numero con el bit insertado
+	 */
+	static int insertarCero(int valor, int mascara) {
+		int bajos = valor & (mascara - 1);
+		return ((valor ^ bajos) << 1) | bajos;
+	}
+
+	/**
+	 * Da las probabilidades de medir cada estado de la base
+	 * @return el modulo al cuadrado de cada amplitud
+	 */
+	public double[] probabilidades() {
+		double[] probabilidades = new double[reales.length];
+		for (int i = 0; i < reales.length; i++) {
+			probabilidades[i] = reales[i] * reales[i] + imaginarias[i] * imaginarias[i];
+		}
+		return probabilidades;
+	}
+
+	/**
+	 * Da las probabilidades de medir cada estado de la base como un vector columna, igual que
+	 * CalculadoraMatrices.moduloAlCuadrado
+	 * @return un vector columna con el modulo al cuadrado de cada amplitud
+	 * @throws CalculadoraException cuando hay mas de MAXIMO_QUBITS_MATRIZ qubits
+	 */
+	public Matriz getProbabilidades() throws CalculadoraException {
+		validarMatriz(qubits);
+		Matriz probabilidades = new Matriz(reales.length, 1);
+		double[] datos = probabilidades.getDatos();
+		for (int i = 0; i < reales.length; i++) {
+			datos[2 * i] = reales[i] * reales[i] + imaginarias[i] * imaginarias[i];
+		}
+		return probabilidades;
+	}
+
+	/**
+	 * Copia el estado en un vector columna
+	 * @return una matriz de 2^n x 1 con las amplitudes
+	 * @throws CalculadoraException cuando hay mas de MAXIMO_QUBITS_MATRIZ qubits
+	 */
+	public Matriz aMatriz() throws CalculadoraException {
+		validarMatriz(qubits);
+		Matriz estado = new Matriz(reales.length, 1);
+		for (int i = 0; i < reales.length; i++) {
+			estado.setNumero(i, 0, reales[i], imaginarias[i]);
+		}
+		return estado;
+	}
+
+	/**
+	 * Revisa que un vector de 2^n amplitudes quepa en una Matriz
+	 * @param qubits cantidad de qubits
+	 * @throws CalculadoraException cuando hay mas de MAXIMO_QUBITS_MATRIZ qubits
+	 */
+	static void validarMatriz(int qubits) throws CalculadoraException {
+		if (qubits > MAXIMO_QUBITS_MATRIZ) {
+			throw new CalculadoraException(CalculadoraException.IMPOSIBLE_CALCULAR);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < reales.length; i++) {
+			s.append(new Complejo(reales[i], imaginarias[i]).toString()).append(" \n");
+		}
+		return s.toString();
+	}
+}
@@ -38,8 +38,8 @@ public class Clasica {
 	private static void graficar(Matriz estadoFinal) {
 		DefaultCategoryDataset data = new DefaultCategoryDataset();
 		String sitio1 = "Probabilidad";
-		for (int i = 0; i < estadoFinal.getNumeros().length; i++) {
-			data.setValue(estadoFinal.getNumeros()[i][0].getReal(),sitio1,Integer.toString(i));			
+		for (int i = 0; i < estadoFinal.getFilas(); i++) {
+			data.setValue(estadoFinal.getReal(i, 0),sitio1,Integer.toString(i));			
 		}
 		JFreeChart chart = ChartFactory.createBarChart("Cl�sica","Estados","Probabilidad",data);
 		ChartFrame frame = new ChartFrame("Cl�sica",chart);
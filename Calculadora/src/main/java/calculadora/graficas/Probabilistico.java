@@ -34,8 +34,8 @@ public class Probabilistico {
 	private static void graficar(Matriz estadoFinal) {
 		DefaultCategoryDataset data = new DefaultCategoryDataset();
 		String sitio1 = "Probabilidad";
-		for (int i = 0; i < estadoFinal.getNumeros().length; i++) {
-			data.setValue(estadoFinal.getNumeros()[i][0].getReal(),sitio1,Integer.toString(i));			
+		for (int i = 0; i < estadoFinal.getFilas(); i++) {
+			data.setValue(estadoFinal.getReal(i, 0),sitio1,Integer.toString(i));			
 		}
 		JFreeChart chart = ChartFactory.createBarChart("Probabilistico","Estados","Probabilidad",data,PlotOrientation.VERTICAL,true,false,false);
 		ChartFrame frame = new ChartFrame("Probabilistico",chart);
@@ -33,8 +33,8 @@ public class Rendijas {
 	private static void graficar(Matriz estadoFinal) {
 		DefaultCategoryDataset data = new DefaultCategoryDataset();
 		String sitio1 = "Probabilidad";
-		for (int i = 0; i < estadoFinal.getNumeros().length; i++) {
-			data.setValue(estadoFinal.getNumeros()[i][0].getReal(),sitio1,Integer.toString(i));			
+		for (int i = 0; i < estadoFinal.getFilas(); i++) {
+			data.setValue(estadoFinal.getReal(i, 0),sitio1,Integer.toString(i));			
 		}
 		JFreeChart chart = ChartFactory.createBarChart("Rendijas","Estados","Probabilidad",data);
 		ChartFrame frame = new ChartFrame("Rendijas",chart);
@@ -20,8 +20,8 @@ public class SimulacionDeutsch {
 		DefaultCategoryDataset data = new DefaultCategoryDataset();
 		String sitio1 = "Probabilidad";
 		String[] nombres = {"00","01","10","11"};
-		for (int i = 0; i < estadoFinal.getNumeros().length; i++) {
-			data.setValue(estadoFinal.getNumeros()[i][0].getReal(),sitio1,nombres[i]);			
+		for (int i = 0; i < estadoFinal.getFilas(); i++) {
+			data.setValue(estadoFinal.getReal(i, 0),sitio1,nombres[i]);			
 		}
 		JFreeChart chart = ChartFactory.createBarChart("Simulacion Algoritmo Deutsch","Estados","Probabilidad",data);
 		ChartFrame frame = new ChartFrame("Simulacion Deutsch",chart);
@@ -20,8 +20,8 @@ public class SimulacionDeutschJozsa {
         DefaultCategoryDataset data = new DefaultCategoryDataset();
         String sitio1 = "Probabilidad";
         String[] nombres = {"000","001","010","011","100","101","110","111"};
-        for (int i = 0; i < estadoFinal.getNumeros().length; i++) {
-            data.setValue(estadoFinal.getNumeros()[i][0].getReal(),sitio1,nombres[i]);
+        for (int i = 0; i < estadoFinal.getFilas(); i++) {
+            data.setValue(estadoFinal.getReal(i, 0),sitio1,nombres[i]);
         }
         JFreeChart chart = ChartFactory.createBarChart("Simulacion Deutsch-Jozsa","Estados","Probabilidad",data);
         ChartFrame frame = new ChartFrame("Simulacion Deutsch-Jozsa",chart);
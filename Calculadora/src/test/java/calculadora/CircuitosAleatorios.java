@@ -0,0 +1,42 @@
+package calculadora;
+
+import java.util.Random;
+
+/**
+ * Crea circuitos aleatorios para comparar los simuladores entre si en las pruebas
+ */
+final class CircuitosAleatorios {
+
+	private CircuitosAleatorios() {
+	}
+
+	/**
+	 * Crea un circuito con compuertas escogidas al azar, cada una sobre qubits distintos escogidos al azar
+	 * @param aleatorio el generador, que fija el circuito
+	 * @param compuertas las compuertas posibles
+	 * @param qubits cantidad de qubits del circuito
+	 * @param inicial el estado de la base de donde parte
+	 * @param operaciones cantidad de operaciones
+	 * @return el circuito
+	 * @throws CalculadoraException cuando alguna compuerta tiene mas qubits que el circuito
+	 */
+	static Circuito crear(Random aleatorio, Compuerta[] compuertas, int qubits, int inicial, int operaciones) throws CalculadoraException {
+		Circuito circuito = new Circuito(qubits, inicial);
+		for (int k = 0; k < operaciones; k++) {
+			Compuerta compuerta = compuertas[aleatorio.nextInt(compuertas.length)];
+			int[] objetivos = new int[compuerta.getQubits()];
+			for (int i = 0; i < objetivos.length; i++) {
+				boolean repetido = true;
+				while (repetido) {
+					objetivos[i] = aleatorio.nextInt(qubits);
+					repetido = false;
+					for (int j = 0; j < i; j++) {
+						repetido |= objetivos[j] == objetivos[i];
+					}
+				}
+			}
+			circuito.agregar(compuerta, objetivos);
+		}
+		return circuito;
+	}
+}
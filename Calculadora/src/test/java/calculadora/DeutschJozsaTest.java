@@ -1,5 +1,11 @@
 package calculadora;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.function.IntPredicate;
+
 import org.junit.Test;
 
 
@@ -16,4 +22,103 @@ public class DeutschJozsaTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void deberiaClasificarFuncionesDeVariosBits() throws CalculadoraException {
+        IntPredicate constante = new IntPredicate() {
+            @Override
+            public boolean test(int x) {
+                return true;
+            }
+        };
+        IntPredicate paridad = new IntPredicate() {
+            @Override
+            public boolean test(int x) {
+                return Integer.bitCount(x) % 2 == 1;
+            }
+        };
+        assertEquals(1, DeutschJozsa.simular(10, constante).probabilidades()[0], 1e-9);
+        assertEquals(0, DeutschJozsa.simular(10, paridad).probabilidades()[0], 1e-9);
+        assertTrue(DeutschJozsa.esConstante(20, constante));
+        assertFalse(DeutschJozsa.esConstante(20, paridad));
+        long[] tabla = {0x0FL};
+        assertFalse(DeutschJozsa.esConstante(3, tabla));
+        assertEquals(0, DeutschJozsa.simular(3, tabla).probabilidades()[0], 1e-9);
+        long[] unos = {-1L, -1L, -1L, -1L};
+        assertTrue(DeutschJozsa.esConstante(8, unos));
+        assertEquals(1, DeutschJozsa.simular(8, unos).probabilidades()[0], 1e-9);
+    }
+
+    @Test
+    public void deberiaSimularCircuitosDeCliffordConEstabilizadores() throws CalculadoraException {
+        Compuerta[] compuertas = {Compuertas.H, Compuertas.S, Compuertas.X, Compuertas.Y, Compuertas.Z, Compuertas.CNOT, Compuertas.CZ, Compuertas.SWAP};
+        Random aleatorio = new Random(15);
+        for (int prueba = 0; prueba < 20; prueba++) {
+            Circuito circuito = CircuitosAleatorios.crear(aleatorio, compuertas, 5, aleatorio.nextInt(32), 40);
+            assertTrue(TablaEstabilizadores.esClifford(circuito));
+            double[] esperadas = circuito.ejecutar().probabilidades();
+            double[] obtenidas = TablaEstabilizadores.ejecutar(circuito).getProbabilidades().getDatos();
+            for (int i = 0; i < esperadas.length; i++) {
+                assertEquals(esperadas[i], obtenidas[2 * i], 1e-12);
+            }
+        }
+        assertFalse(TablaEstabilizadores.esClifford(new Circuito(1).agregar(Compuertas.T, 0)));
+
+        int n = 200;
+        boolean[] ceros = new boolean[n];
+        boolean[] a = new boolean[n];
+        a[7] = true;
+        a[150] = true;
+        int[] entradas = new int[n];
+        for (int q = 0; q < n; q++) {
+            entradas[q] = q;
+        }
+        EjecutorCircuitos ejecutor = new EjecutorCircuitos(1L << 20);
+        assertEquals(1, ejecutor.probabilidad(DeutschJozsa.circuitoAfin(ceros, true), entradas, ceros), 1e-12);
+        assertEquals(0, ejecutor.probabilidad(DeutschJozsa.circuitoAfin(a, false), entradas, ceros), 1e-12);
+        assertEquals(0, ejecutor.getTamano());
+    }
+
+    @Test
+    public void deberiaCalcularAmplitudesConRedesDeTensores() throws CalculadoraException {
+        Random aleatorio = new Random(20);
+        Compuerta[] compuertas = {Compuertas.H, Compuertas.T, Compuertas.Y, Compuertas.CNOT, Compuertas.controlada(Compuertas.S), new Compuerta("F3", Compuertas.fourier(3).aMatriz())};
+        Circuito circuito = CircuitosAleatorios.crear(aleatorio, compuertas, 7, 37, 40);
+        VectorEstado estado = circuito.ejecutar();
+        RedTensorial red = new RedTensorial(circuito);
+        for (int i = 0; i < estado.getDimension(); i += 9) {
+            Complejo amplitud = red.amplitud(i);
+            assertEquals(estado.getReal(i), amplitud.getReal(), 1e-12);
+            assertEquals(estado.getImaginaria(i), amplitud.getImaginaria(), 1e-12);
+        }
+        double marginal = 0;
+        double[] probabilidades = estado.probabilidades();
+        for (int i = 0; i < probabilidades.length; i++) {
+            if ((i & 0x50) == 0x40) {
+                marginal += probabilidades[i];
+            }
+        }
+        assertEquals(marginal, red.probabilidad(new int[] {0, 2}, new boolean[] {true, false}), 1e-12);
+
+        double[] deutsch = Deutsch.simulacionU0().getDatos();
+        RedTensorial oraculo = new RedTensorial(Deutsch.circuito(Compuertas.ORACULO_CERO));
+        for (int i = 0; i < 4; i++) {
+            Complejo amplitud = oraculo.amplitud(i);
+            assertEquals(deutsch[2 * i], amplitud.getReal() * amplitud.getReal() + amplitud.getImaginaria() * amplitud.getImaginaria(), 1e-15);
+        }
+
+        int n = 200;
+        boolean[] a = new boolean[n];
+        a[3] = true;
+        a[199] = true;
+        int[] entradas = new int[n];
+        for (int q = 0; q < n; q++) {
+            entradas[q] = q;
+        }
+        RedTensorial balanceada = new RedTensorial(DeutschJozsa.circuitoAfin(a, true));
+        assertEquals(0, balanceada.probabilidad(entradas, new boolean[n]), 1e-12);
+        RedTensorial constante = new RedTensorial(DeutschJozsa.circuitoAfin(new boolean[n], false));
+        assertEquals(1, constante.probabilidad(entradas, new boolean[n]), 1e-12);
+        assertTrue(constante.getRangoMaximo() <= 4);
+    }
 }
@@ -1,11 +1,21 @@
 package calculadora;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
 import org.junit.Test;
 
 
 public class DeutschTest {
+
+	@Rule
+	public PoolDePrueba hilos = new PoolDePrueba();
 	
 	@Test
 	public void simulacionU0() {
@@ -49,4 +59,305 @@ public class DeutschTest {
 			e.printStackTrace();
 		}
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void deberiaAplicarCompuertasSobreElVector() throws CalculadoraException {
+		double[][] estado = {{1,0},{2,-1},{0,3},{-1,0},{4,1},{0,0},{2,2},{-3,1}};
+		double[][] uno = {{1,1},{2,0},{0,-1},{3,0}};
+		double[][] dos = {{1,0},{0,0},{2,0},{0,1},
+						  {0,0},{1,0},{0,0},{1,-1},
+						  {0,2},{0,0},{1,0},{0,0},
+						  {1,0},{0,0},{0,0},{2,0}};
+		Matriz psi = new Matriz(8,1,estado);
+		Matriz u = new Matriz(2,2,uno);
+		Matriz v = new Matriz(4,4,dos);
+		Matriz identidad = CalculadoraMatrices.identidad(u);
+		VectorEstado vector = new VectorEstado(psi);
+		vector.aplicar(u, 1);
+		vector.aplicar(v, 2, 0);
+		Matriz esperado = CalculadoraMatrices.matrizPorVector(new OperadorKronecker(identidad, u, identidad), psi);
+		Matriz dosQubits = new Matriz(8,8);
+		for (int i = 0; i < 8; i++) {
+			for (int j = 0; j < 8; j++) {
+				if ((i & 2) == (j & 2)) {
+					Complejo c = v.getNumero(((i & 1) << 1) | (i >> 2), ((j & 1) << 1) | (j >> 2));
+					dosQubits.setNumero(i, j, c.getReal(), c.getImaginaria());
+				}
+			}
+		}
+		esperado = CalculadoraMatrices.matrizPorVector(dosQubits, esperado);
+		assertEquals(esperado, vector.aMatriz());
+		assertEquals(3, vector.getQubits());
+	}
+	
+	@Test
+	public void deberiaUsarCompuertasInmutables() throws CalculadoraException {
+		Compuerta[] compuertas = {Compuertas.I, Compuertas.H, Compuertas.X, Compuertas.Y, Compuertas.Z, Compuertas.S, Compuertas.T,
+				Compuertas.CNOT, Compuertas.CZ, Compuertas.SWAP, Compuertas.ORACULO_CERO, Compuertas.ORACULO_UNO,
+				Compuertas.ORACULO_IDENTIDAD, Compuertas.ORACULO_NEGACION, Compuertas.fase(0.3)};
+		for (Compuerta c : compuertas) {
+			assertTrue(CalculadoraMatrices.esUnitaria(c.aMatriz()));
+		}
+		assertEquals(Compuertas.CZ.aMatriz(), Compuertas.controlada(Compuertas.Z).aMatriz());
+		assertEquals(Compuertas.CNOT.aMatriz(), Compuertas.controlada(Compuertas.X).aMatriz());
+		Matriz copia = Compuertas.H.aMatriz();
+		copia.setNumero(0, 0, 5, 0);
+		assertTrue(Compuertas.H.aMatriz().getReal(0, 0) != 5);
+	}
+	
+	@Test
+	public void deberiaRetomarDesdeUnPrefijoGuardado() throws CalculadoraException {
+		EjecutorCircuitos ejecutor = new EjecutorCircuitos(3 * 16 * 4);
+		VectorEstado primero = ejecutor.ejecutar(Deutsch.circuito(Compuertas.ORACULO_UNO));
+		assertEquals(0, ejecutor.getAciertos());
+		assertEquals(3, ejecutor.getTamano());
+		assertEquals(3 * 16 * 4, ejecutor.getBytes());
+		VectorEstado segundo = ejecutor.ejecutar(Deutsch.circuito(Compuertas.ORACULO_IDENTIDAD));
+		assertEquals(1, ejecutor.getAciertos());
+		assertEquals(2, ejecutor.getOperacionesAhorradas());
+		assertEquals(3, ejecutor.getTamano());
+		assertEquals(Deutsch.circuito(Compuertas.ORACULO_UNO).ejecutar().aMatriz(), primero.aMatriz());
+		assertEquals(Deutsch.circuito(Compuertas.ORACULO_IDENTIDAD).ejecutar().aMatriz(), segundo.aMatriz());
+		segundo.aplicar(Compuertas.X, 0);
+		assertEquals(Deutsch.circuito(Compuertas.ORACULO_IDENTIDAD).ejecutar().aMatriz(), ejecutor.ejecutar(Deutsch.circuito(Compuertas.ORACULO_IDENTIDAD)).aMatriz());
+		assertEquals(2, ejecutor.getAciertos());
+
+		EjecutorCircuitos grande = new EjecutorCircuitos(1L << 20);
+		Circuito largo = new Circuito(3);
+		for (int k = 0; k < 100; k++) {
+			largo.agregar(k % 2 == 0 ? Compuertas.H : Compuertas.T, k % 3);
+		}
+		grande.ejecutar(largo);
+		assertEquals(EjecutorCircuitos.PUNTOS_CONTROL + 1, grande.getTamano());
+		assertEquals(largo.ejecutar().aMatriz(), grande.ejecutar(largo).aMatriz());
+		assertEquals(100, grande.getOperacionesAhorradas());
+		EjecutorCircuitos diminuto = new EjecutorCircuitos(8);
+		diminuto.ejecutar(largo);
+		assertEquals(0, diminuto.getTamano());
+	}
+	
+	@Test
+	public void deberiaFundirCompuertas() throws CalculadoraException {
+		Circuito deutsch = Deutsch.circuito(Compuertas.ORACULO_NEGACION);
+		Circuito optimizado = OptimizadorCircuitos.optimizar(deutsch);
+		assertEquals(1, optimizado.getOperaciones().size());
+		double[] esperado = deutsch.ejecutar().probabilidades();
+		double[] obtenido = optimizado.ejecutar().probabilidades();
+		for (int i = 0; i < esperado.length; i++) {
+			assertEquals(esperado[i], obtenido[i], 1e-12);
+		}
+		Circuito inversas = new Circuito(3)
+				.agregar(Compuertas.H, 1)
+				.agregar(Compuertas.H, 1)
+				.agregar(Compuertas.CNOT, 0, 2)
+				.agregar(Compuertas.CNOT, 0, 2)
+				.agregar(Compuertas.X, 1);
+		assertEquals(1, OptimizadorCircuitos.optimizar(inversas).getOperaciones().size());
+		Circuito capas = new Circuito(4);
+		for (int q = 0; q < 4; q++) {
+			capas.agregar(Compuertas.H, q);
+			capas.agregar(Compuertas.T, q);
+		}
+		capas.agregar(Compuertas.CNOT, 1, 2);
+		capas.agregar(Compuertas.S, 3);
+		Circuito capasOptimizado = OptimizadorCircuitos.optimizar(capas);
+		assertEquals(3, capasOptimizado.getOperaciones().size());
+		VectorEstado a = capas.ejecutar();
+		VectorEstado b = capasOptimizado.ejecutar();
+		VectorEstado c = OptimizadorCircuitos.optimizar(capas, OptimizadorCircuitos.MAXIMO_QUBITS_BLOQUE).ejecutar();
+		for (int i = 0; i < a.getDimension(); i++) {
+			assertEquals(a.getReal(i), b.getReal(i), 1e-12);
+			assertEquals(a.getImaginaria(i), b.getImaginaria(i), 1e-12);
+			assertEquals(a.getReal(i), c.getReal(i), 1e-12);
+			assertEquals(a.getImaginaria(i), c.getImaginaria(i), 1e-12);
+		}
+		int[] invalidos = {0, -1, OptimizadorCircuitos.MAXIMO_QUBITS_BLOQUE + 1, 16};
+		for (int maximo : invalidos) {
+			try {
+				OptimizadorCircuitos.optimizar(capas, maximo);
+				fail();
+			} catch (CalculadoraException e) {
+				assertEquals(CalculadoraException.IMPOSIBLE_CALCULAR, e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void deberiaSimularConProductoDeMatrices() throws CalculadoraException {
+		Random aleatorio = new Random(16);
+		Compuerta[] compuertas = {Compuertas.H, Compuertas.T, Compuertas.Y, Compuertas.CNOT, Compuertas.CZ, Compuertas.controlada(Compuertas.T)};
+		for (int prueba = 0; prueba < 10; prueba++) {
+			Circuito circuito = CircuitosAleatorios.crear(aleatorio, compuertas, 6, aleatorio.nextInt(64), 30);
+			double[] esperadas = circuito.ejecutar().probabilidades();
+			EstadoProductoMatrices mps = EstadoProductoMatrices.ejecutar(circuito, EstadoProductoMatrices.ENLACE_MAXIMO);
+			double[] obtenidas = mps.getProbabilidades().getDatos();
+			for (int i = 0; i < esperadas.length; i++) {
+				assertEquals(esperadas[i], obtenidas[2 * i], 1e-10);
+			}
+			assertEquals(0, mps.getErrorTruncamiento(), 1e-10);
+		}
+
+		int n = 80;
+		Circuito ghz = new Circuito(n).agregar(Compuertas.H, 0).agregar(Compuertas.T, 0);
+		for (int q = 0; q + 1 < n; q++) {
+			ghz.agregar(Compuertas.CNOT, q, q + 1);
+		}
+		EstadoProductoMatrices mps = EstadoProductoMatrices.ejecutar(ghz, 2);
+		for (int q = 0; q + 1 < n; q++) {
+			assertTrue(mps.getEnlace(q) <= 2);
+		}
+		assertEquals(0.5, mps.probabilidad(new int[] {n - 1}, new boolean[] {true}), 1e-12);
+		assertEquals(0, mps.probabilidad(new int[] {0, n - 1}, new boolean[] {false, true}), 1e-12);
+		EjecutorCircuitos ejecutor = new EjecutorCircuitos(1L << 20);
+		assertEquals(0.5, ejecutor.probabilidad(ghz, new int[] {0, 40}, new boolean[] {true, true}), 1e-12);
+
+		EstadoProductoMatrices truncado = EstadoProductoMatrices.ejecutar(ghz, 1);
+		assertTrue(truncado.getErrorTruncamiento() > 0.4);
+
+		Circuito entrelazado = new Circuito(32).agregar(Compuertas.T, 0);
+		for (int q = 9; q < 16; q++) {
+			entrelazado.agregar(Compuertas.H, q).agregar(Compuertas.CNOT, q, q + 7);
+		}
+		assertTrue(EstadoProductoMatrices.ejecutar(entrelazado, EstadoProductoMatrices.ENLACE_MAXIMO).getErrorTruncamiento() > 0);
+		try {
+			ejecutor.probabilidad(entrelazado, new int[] {0}, new boolean[] {true});
+			fail();
+		} catch (CalculadoraException e) {
+			assertEquals(CalculadoraException.IMPOSIBLE_CALCULAR, e.getMessage());
+		}
+	}
+
+	@Test
+	public void deberiaAplicarLaTransformadaDeFourierConFFT() throws CalculadoraException {
+		TransformadaFourier qft = Compuertas.fourier(4);
+		Compuerta densa = new Compuerta("F", qft.aMatriz());
+		Random aleatorio = new Random(18);
+		Matriz inicial = new Matriz(64, 1);
+		for (int i = 0; i < 64; i++) {
+			inicial.setNumero(i, 0, aleatorio.nextDouble(), aleatorio.nextDouble());
+		}
+		int[][] objetivos = {{0, 1, 2, 3}, {5, 1, 3, 2}, {2, 3, 4, 5}};
+		for (int[] q : objetivos) {
+			VectorEstado rapido = new VectorEstado(inicial);
+			VectorEstado lento = new VectorEstado(inicial);
+			rapido.aplicar(qft, q);
+			lento.aplicar(densa, q);
+			for (int i = 0; i < 64; i++) {
+				assertEquals(lento.getReal(i), rapido.getReal(i), 1e-12);
+				assertEquals(lento.getImaginaria(i), rapido.getImaginaria(i), 1e-12);
+			}
+		}
+
+		Matriz vector = new Matriz(16, 1);
+		vector.setNumero(3, 0, 1, 0);
+		Matriz transformado = CalculadoraMatrices.matrizPorVector(qft, vector);
+		assertEquals(CalculadoraMatrices.matrizPorVector(densa.aMatriz(), vector).getDatos()[6], transformado.getDatos()[6], 1e-12);
+
+		int n = 20;
+		Circuito circuito = new Circuito(n, 12345)
+				.agregar(Compuertas.fourier(n), crearObjetivos(n))
+				.agregar(Compuertas.fourierInversa(n), crearObjetivos(n));
+		VectorEstado estado = new EjecutorCircuitos(1L << 20).ejecutar(circuito);
+		assertEquals(1, estado.getReal(12345), 1e-9);
+		Circuito uniforme = new Circuito(n).agregar(Compuertas.fourier(n), crearObjetivos(n));
+		assertEquals(1.0 / (1 << n), uniforme.ejecutar().probabilidades()[777], 1e-15);
+		try {
+			new SumaCaminos(circuito);
+			fail();
+		} catch (CalculadoraException e) {
+			assertEquals(CalculadoraException.IMPOSIBLE_CALCULAR, e.getMessage());
+		}
+		try {
+			new RedTensorial(circuito).amplitud(12345L);
+			fail();
+		} catch (CalculadoraException e) {
+			assertEquals(CalculadoraException.IMPOSIBLE_CALCULAR, e.getMessage());
+		}
+		assertTrue(Compuertas.fourier(3).equals(new TransformadaFourier(3, false)));
+		assertTrue(!Compuertas.fourier(3).equals(Compuertas.fourierInversa(3)));
+	}
+
+	@Test
+	public void deberiaAplicarCompuertasEnParalelo() throws CalculadoraException {
+		Random aleatorio = new Random(19);
+		Compuerta[] compuertas = {Compuertas.H, Compuertas.T, Compuertas.Y, Compuertas.CNOT, Compuertas.SWAP, new Compuerta("F3", Compuertas.fourier(3).aMatriz())};
+		int n = 12;
+		Circuito circuito = CircuitosAleatorios.crear(aleatorio, compuertas, n, 5, 60);
+		VectorEstado secuencial = new VectorEstado(n, 5);
+		VectorEstado paralelo = new VectorEstado(n, 5);
+		for (Operacion operacion : circuito.getOperaciones()) {
+			hilos.secuencial();
+			operacion.aplicar(secuencial);
+			hilos.paralelo();
+			operacion.aplicar(paralelo);
+		}
+		for (int i = 0; i < secuencial.getDimension(); i++) {
+			assertEquals(secuencial.getReal(i), paralelo.getReal(i), 0);
+			assertEquals(secuencial.getImaginaria(i), paralelo.getImaginaria(i), 0);
+		}
+	}
+
+	@Test
+	public void deberiaSumarCaminosDeFeynman() throws CalculadoraException {
+		Random aleatorio = new Random(21);
+		Compuerta[] oraculos = {Compuertas.ORACULO_CERO, Compuertas.ORACULO_UNO, Compuertas.ORACULO_IDENTIDAD, Compuertas.ORACULO_NEGACION};
+		List<Circuito> circuitos = new ArrayList<Circuito>();
+		for (Compuerta oraculo : oraculos) {
+			circuitos.add(Deutsch.circuito(oraculo));
+		}
+		circuitos.add(DeutschJozsa.circuitoAfin(new boolean[] {true, false, true}, true));
+		Compuerta[] compuertas = {Compuertas.H, Compuertas.T, Compuertas.Y, Compuertas.CNOT, Compuertas.SWAP, Compuertas.controlada(Compuertas.T)};
+		Circuito aleatorioCircuito = CircuitosAleatorios.crear(aleatorio, compuertas, 5, 9, 14);
+		circuitos.add(aleatorioCircuito);
+		for (Circuito circuito : circuitos) {
+			double[] esperadas = CalculadoraMatrices.moduloAlCuadrado(circuito.ejecutar().aMatriz()).getDatos();
+			double[] obtenidas = new SumaCaminos(circuito).getProbabilidades().getDatos();
+			assertEquals(esperadas.length, obtenidas.length);
+			for (int i = 0; i < esperadas.length; i++) {
+				assertEquals(esperadas[i], obtenidas[i], 1e-12);
+			}
+		}
+
+		VectorEstado estado = aleatorioCircuito.ejecutar();
+		Complejo amplitud = new SumaCaminos(aleatorioCircuito).amplitud(new boolean[] {true, false, false, true, true});
+		assertEquals(estado.getReal(19), amplitud.getReal(), 1e-12);
+		assertEquals(estado.getImaginaria(19), amplitud.getImaginaria(), 1e-12);
+
+		int n = 40;
+		Circuito ghz = new Circuito(n).agregar(Compuertas.H, 0);
+		for (int q = 0; q + 1 < n; q++) {
+			ghz.agregar(Compuertas.CNOT, q, q + 1);
+		}
+		Complejo[] amplitudes = new SumaCaminos(ghz).amplitudes(new long[] {0, (1L << n) - 1, 1});
+		assertEquals(Math.sqrt(0.5), amplitudes[0].getReal(), 1e-12);
+		assertEquals(Math.sqrt(0.5), amplitudes[1].getReal(), 1e-12);
+		assertEquals(0, amplitudes[2].getReal(), 0);
+
+		Circuito profundo = new Circuito(1).agregar(Compuertas.H, 0);
+		for (int k = 0; k < 9999; k++) {
+			profundo.agregar(Compuertas.X, 0);
+		}
+		profundo.agregar(Compuertas.H, 0);
+		SumaCaminos caminos = new SumaCaminos(profundo);
+		assertEquals(1, caminos.amplitud(0L).getReal(), 1e-12);
+		assertEquals(0, caminos.amplitud(1L).getReal(), 1e-12);
+	}
+
+	@Test
+	public void noDeberiaCopiarEnUnaMatrizMasDeVeintinueveQubits() {
+		try {
+			new EjecutorCircuitos(1).probabilidades(new Circuito(30).agregar(Compuertas.T, 0));
+			fail();
+		} catch (CalculadoraException e) {
+			assertEquals(CalculadoraException.IMPOSIBLE_CALCULAR, e.getMessage());
+		}
+	}
+
+	private static int[] crearObjetivos(int n) {
+		int[] objetivos = new int[n];
+		for (int q = 0; q < n; q++) {
+			objetivos[q] = q;
+		}
+		return objetivos;
+	}
+}
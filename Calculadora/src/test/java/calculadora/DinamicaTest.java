@@ -1,5 +1,9 @@
 package calculadora;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 
@@ -83,4 +87,141 @@ public class DinamicaTest {
 			e.printStackTrace();
 		}
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void deberiaCalcularEstadoConPotencia() throws CalculadoraException {
+		double[][] numeros = {{0,0},{1,0},{1,0},{0,0}};
+		double[][] numeros2 = {{3,0},{8,0}};
+		double[][] respuesta = {{8,0},{3,0}};
+		Matriz m = new Matriz(2,2,numeros);
+		Matriz m2 = new Matriz(2,1,numeros2);
+		assertTrue(CalculadoraDinamica.convienePotencia(m, 1000000001L));
+		assertEquals(new Matriz(2,1,respuesta), CalculadoraDinamica.calcularEstadoFinal(m, m2, 1000000001L));
+		assertEquals(m, CalculadoraDinamica.calcularEstado(0, m, m2, 1000000001L).getPotencia());
+	}
+	
+	@Test
+	public void deberiaCalcularEstadoDisperso() throws CalculadoraException {
+		double[][] numeros = {{0,0},{0,0},{0,0},{0,0},{0,0},{0,0},
+							  {0,0},{0,0},{0,0},{1,0},{0,0},{0,0},
+							  {0,0},{1,0},{0,0},{0,0},{0,0},{1,0},
+							  {0,0},{0,0},{1,0},{0,0},{0,0},{0,0},
+							  {0,0},{0,0},{0,0},{0,0},{1,0},{0,0},
+							  {1,0},{0,0},{0,0},{0,0},{0,0},{0,0}};
+		double[][] numeros2 = {{6,0},{5,0},{4,0},{3,0},{2,0},{1,0}};
+		MatrizDispersa m = new MatrizDispersa(new Matriz(6,6,numeros));
+		Matriz m2 = new Matriz(6,1,numeros2);
+		double[][] respuesta = {{0,0},{6,0},{4,0},{9,0},{2,0},{0,0}};
+		assertEquals(6, m.getNoCeros());
+		assertEquals(CalculadoraDinamica.calcularEstadoFinal(m, m2, 3000),new Matriz(6,1,respuesta) );
+	}
+
+	@Test
+	public void noDeberiaCrearMatricesDispersasInvalidas() throws CalculadoraException {
+		double[][] numeros = {{0,0},{2,0},{1,-1},{0,0}};
+		MatrizDispersa m = new MatrizDispersa(2, 2, new int[] {0, 1, 2}, new int[] {1, 0}, new double[] {2, 0, 1, -1});
+		assertEquals(new MatrizDispersa(new Matriz(2,2,numeros)), m);
+		assertEquals(new MatrizDispersa(new Matriz(2,2,numeros)).hashCode(), m.hashCode());
+		int[][] inicios = {{0, 1, 2}, {0, 3, 2}, {0, 1, 2}, {0, 2, 2}};
+		int[][] columnas = {{2, 0}, {1, 0}, {1, 0}, {1, 1}};
+		double[][] valores = {{2, 0, 1, -1}, {2, 0, 1, -1}, {0, 0, 1, -1}, {2, 0, 1, -1}};
+		for (int caso = 0; caso < inicios.length; caso++) {
+			try {
+				new MatrizDispersa(2, 2, inicios[caso], columnas[caso], valores[caso]);
+				fail();
+			} catch (CalculadoraException e) {
+				assertEquals(CalculadoraException.IMPOSIBLE_CALCULAR, e.getMessage());
+			}
+		}
+	}
+	
+	@Test
+	public void deberiaCalcularConVectorDisperso() throws CalculadoraException {
+		double[][] numeros = {{0,0},{0,0},{0,0},{0,0},{0,0},{0,0},
+							  {0,0},{0,0},{0,0},{1,0},{0,0},{0,0},
+							  {0,0},{1,0},{0,0},{0,0},{0,0},{1,0},
+							  {0,0},{0,0},{1,0},{0,0},{0,0},{0,0},
+							  {0,0},{0,0},{0,0},{0,0},{1,0},{0,0},
+							  {1,0},{0,0},{0,0},{0,0},{0,0},{0,0}};
+		MatrizDispersa m = new MatrizDispersa(new Matriz(6,6,numeros));
+		VectorDisperso canica = new VectorDisperso(6, 5);
+		VectorDisperso estado = CalculadoraDinamica.calcularEstadoFinal(m, canica, 7);
+		assertEquals(1, estado.getNoCeros());
+		assertEquals(CalculadoraDinamica.calcularEstadoFinal(m, canica.aMatriz(), 7), estado.aMatriz());
+
+		VectorDisperso grande = new VectorDisperso(1L << 40, 1L << 39);
+		for (int q = 0; q < 39; q++) {
+			grande.aplicar(Compuertas.CNOT, q, q + 1);
+		}
+		grande.aplicar(Compuertas.H, 0);
+		assertFalse(grande.esDenso());
+		assertEquals(2, grande.getNoCeros());
+		assertEquals(-Math.sqrt(0.5), grande.getReal((1L << 40) - 1), 1e-12);
+		assertEquals(Math.sqrt(0.5), grande.getReal((1L << 40) - 1 - (1L << 39)), 1e-12);
+
+		VectorDisperso superposicion = new VectorDisperso(16, 0);
+		for (int q = 0; q < 3; q++) {
+			superposicion.aplicar(Compuertas.H, q);
+		}
+		assertTrue(superposicion.esDenso());
+		superposicion.aplicar(Compuertas.CNOT, 2, 3);
+		VectorEstado denso = new VectorEstado(4);
+		for (int q = 0; q < 3; q++) {
+			denso.aplicar(Compuertas.H, q);
+		}
+		denso.aplicar(Compuertas.CNOT, 2, 3);
+		assertEquals(denso.getProbabilidades(), superposicion.getProbabilidades());
+
+		int n = 1 << 20;
+		int[] inicio = new int[n + 1];
+		int[] columnas = new int[n];
+		double[] valores = new double[2 * n];
+		for (int i = 0; i < n; i++) {
+			inicio[i + 1] = i + 1;
+			columnas[i] = (i + n - 1) % n;
+			valores[2 * i] = 1;
+		}
+		MatrizDispersa corrimiento = new MatrizDispersa(n, n, inicio, columnas, valores);
+		VectorDisperso bola = new VectorDisperso(n, n - 3);
+		for (int paso = 0; paso < 1000; paso++) {
+			bola = bola.multiplicar(corrimiento);
+		}
+		assertEquals(1, bola.getNoCeros());
+		assertEquals(1, bola.getReal(997), 0);
+	}
+	
+	@Test
+	public void deberiaCalcularEnsambleDisperso() throws CalculadoraException {
+		double[][] numeros = {{0,0},{0.2,0},{0.3,0},{0.5,0},
+		                      {0.3,0},{0.2,0},{0.1,0},{0.4,0},
+		                      {0.4,0},{0.3,0},{0.2,0},{0.1,0},
+		                      {0.3,0},{0.3,0},{0.4,0},{0,0}};
+		double[][] numeros2 = {{0,0},{(double)1/6,0},{(double)5/6,0},
+							   {(double)1/3,0},{(double)1/2,0},{(double)1/6,0},
+							   {(double)2/3,0},{(double)1/3,0},{0,0}}; 
+		double[][] numeros3 = {{0.2,0},{0.1,0},{0.6,0},{0.1,0}};
+		double[][] numeros4 = {{0.7,0},{0.15,0},{0.15,0}};
+		Matriz m = new Matriz(4,4,numeros);
+		Matriz m2 = new Matriz(3,3,numeros2);
+		Matriz m3 = new Matriz(4,1,numeros3);
+		Matriz m4 = new Matriz(3,1,numeros4);
+		Matriz densa = CalculadoraDinamica.sistemaDinamicoconEnsamble(m, m2, m3, m4, 5);
+		Matriz dispersa = CalculadoraDinamica.sistemaDinamicoconEnsamble(new MatrizDispersa(m), new MatrizDispersa(m2), m3, m4, 5);
+		assertEquals(densa, dispersa);
+	}
+	
+	@Test
+	public void deberiaSaltarClicksDeterminista() throws CalculadoraException {
+		int[] sucesores = {1,2,0,4,0,-1,5};
+		long[] canicas = {3,0,7,1,2,5,4};
+		SistemaDeterminista sistema = new SistemaDeterminista(sucesores);
+		long clicks = 1000000000000L;
+		long[] esperado = canicas;
+		for (long i = 0; i < clicks % 3 + 3; i++) {
+			esperado = sistema.avanzar(esperado);
+		}
+		assertArrayEquals(esperado, sistema.avanzar(canicas, clicks));
+		assertArrayEquals(sistema.avanzar(sistema.avanzar(canicas)), sistema.avanzar(canicas, 2));
+		assertEquals(0, sistema.avanzar(canicas, clicks)[5]);
+	}
+}
@@ -1,6 +1,12 @@
 package calculadora;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
 import org.junit.Test;
 
 import calculadora.CalculadoraException;
@@ -8,6 +14,9 @@ import calculadora.CalculadoraMatrices;
 import calculadora.Matriz;
 
 public class MatricesTest {
+
+	@Rule
+	public PoolDePrueba hilos = new PoolDePrueba();
 	
 	@Test
 	public void deberiaSumarMatriz() {
@@ -349,4 +358,69 @@ public class MatricesTest {
 			e.printStackTrace();
 		}
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void deberiaMultiplicarPorBloques() {
+		int m = 131, n = 197, p = 67;
+		Random random = new Random(7);
+		double[] a = new double[2 * m * n];
+		double[] b = new double[2 * n * p];
+		for (int i = 0; i < a.length; i++) a[i] = random.nextDouble() - 0.5;
+		for (int i = 0; i < b.length; i++) b[i] = random.nextDouble() - 0.5;
+		double[] directo = new double[2 * m * p];
+		double[] bloques = new double[2 * m * p];
+		ProductoMatricial.multiplicarDirecto(a, b, directo, 0, m, n, p);
+		ProductoMatricial.multiplicarBloques(a, b, bloques, 0, m, n, p);
+		assertTrue(Arrays.equals(directo, bloques));
+	}
+	
+	@Test
+	public void deberiaMultiplicarEnParalelo() throws CalculadoraException {
+		int m = 150, n = 70, p = 90;
+		Random random = new Random(11);
+		double[] a = new double[2 * m * n];
+		double[] b = new double[2 * n * p];
+		double[] x = new double[2 * n];
+		for (int i = 0; i < a.length; i++) a[i] = random.nextDouble() - 0.5;
+		for (int i = 0; i < b.length; i++) b[i] = random.nextDouble() - 0.5;
+		for (int i = 0; i < x.length; i++) x[i] = random.nextDouble() - 0.5;
+		ForkJoinPool pool = hilos.paralelo();
+		Matriz m1 = new Matriz(m, n, a);
+		Matriz m2 = new Matriz(n, p, b);
+		Matriz v = new Matriz(n, 1, x);
+		assertEquals(CalculadoraMatrices.matrizPorMatriz(m1, m2, null), CalculadoraMatrices.matrizPorMatriz(m1, m2, pool));
+		assertEquals(CalculadoraMatrices.matrizPorVector(m1, v, null), CalculadoraMatrices.matrizPorVector(m1, v, pool));
+	}
+	
+	@Test
+	public void deberiaCalcularPotencia() throws CalculadoraException {
+		double[][] numeros = {{1,0},{1,0},{1,0},{0,0}};
+		double[][] numeros2 = {{1346269,0},{832040,0},{832040,0},{514229,0}};
+		Matriz m = new Matriz(2,2,numeros);
+		assertEquals(new Matriz(2,2,numeros2), CalculadoraMatrices.potencia(m, 30));
+		assertEquals(CalculadoraMatrices.identidad(m), CalculadoraMatrices.potencia(m, 0));
+		assertEquals(m, CalculadoraMatrices.potencia(m, 1));
+	}
+	
+	@Test
+	public void deberiaAplicarProductoTensorialSinConstruirlo() throws CalculadoraException {
+		double[][] numeros = {{1,2},{0,-1},{3,0},{2,1},{-1,0},{0,4}};
+		double[][] numeros2 = {{2,0},{1,1},{0,3},{-2,0},{1,-1},{5,0}};
+		double[][] numeros3 = {{0,1},{1,0},{1,0},{-1,0}};
+		Random random = new Random(3);
+		double[] x = new double[2 * 12 * 3];
+		for (int i = 0; i < x.length; i++) x[i] = random.nextInt(9) - 4;
+		Matriz a = new Matriz(2,3,numeros);
+		Matriz b = new Matriz(3,2,numeros2);
+		Matriz c = new Matriz(2,2,numeros3);
+		OperadorKronecker k = new OperadorKronecker(a, b, c);
+		Matriz densa = CalculadoraMatrices.productoTensorial(CalculadoraMatrices.productoTensorial(a, b), c);
+		Matriz v = new Matriz(12, 3, x);
+		assertEquals(12, k.getFilas());
+		assertEquals(12, k.getColumnas());
+		assertEquals(densa, k.aDensa());
+		assertEquals(CalculadoraMatrices.matrizPorMatriz(densa, v), CalculadoraMatrices.matrizPorMatriz(k, v));
+		Matriz columna = new Matriz(12, 1, Arrays.copyOf(x, 2 * 12));
+		assertEquals(CalculadoraMatrices.matrizPorVector(densa, columna), CalculadoraMatrices.matrizPorVector(k, columna));
+	}
+}
@@ -176,6 +176,33 @@ public class NumerosComplejosTest {
 		assertTrue(respuesta == correcta);
 	}
 	
+	@Test
+	public void deberiaMultiplicarYSumar() {
+		double[] a = {3,-2};
+		double[] b = {6,8};
+		double[] acumulador = {1,1};
+		Calculadora.multiplicacionSuma(a, 0, b, 0, acumulador, 0);
+		assertEquals(new Complejo(acumulador[0],acumulador[1]),new Complejo(35,13));
+	}
+	
+	@Test
+	public void deberiaCalcularProductoPunto() {
+		double[] a = {3,-2,-3,-1};
+		double[] b = {6,8,1,-2};
+		double[] resultado = new double[2];
+		Calculadora.productoPunto(a, 0, 2, b, 0, 2, 2, resultado, 0);
+		assertEquals(new Complejo(resultado[0],resultado[1]),new Complejo(29,17));
+	}
+	
+	@Test
+	public void deberiaCalcularAxpy() {
+		double[] x = {1,0,0,1};
+		double[] y = {1,1,2,2};
+		Calculadora.axpy(0, 2, x, 0, 2, y, 0, 2, 2);
+		assertEquals(new Complejo(y[0],y[1]),new Complejo(1,3));
+		assertEquals(new Complejo(y[2],y[3]),new Complejo(0,2));
+	}
+
 
 	private double convertirAngulo(double real,double imaginaria) {
 		double fase;
@@ -0,0 +1,51 @@
+package calculadora;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.rules.ExternalResource;
+
+/**
+ * Regla para las pruebas que comparan los nucleos en un hilo y en varios: cambia el pool y el umbral de
+ * Paralelismo cuando la prueba lo pide y los deja como estaban al terminar, aunque la prueba falle.
+ */
+final class PoolDePrueba extends ExternalResource {
+	private ForkJoinPool original;
+	private long umbral;
+	private ForkJoinPool pool;
+
+	@Override
+	protected void before() {
+		original = Paralelismo.getPool();
+		umbral = Paralelismo.getUmbral();
+	}
+
+	/**
+	 * Hace que los calculos siguientes se hagan en este hilo
+	 */
+	void secuencial() {
+		Paralelismo.setPool(null);
+	}
+
+	/**
+	 * Hace que los calculos siguientes se repartan entre cuatro hilos, por pequenos que sean
+	 * @return el pool de cuatro hilos
+	 */
+	ForkJoinPool paralelo() {
+		if (pool == null) {
+			pool = new ForkJoinPool(4);
+		}
+		Paralelismo.setPool(pool);
+		Paralelismo.setUmbral(0);
+		return pool;
+	}
+
+	@Override
+	protected void after() {
+		Paralelismo.setPool(original);
+		Paralelismo.setUmbral(umbral);
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+}
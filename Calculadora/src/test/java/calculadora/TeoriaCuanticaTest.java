@@ -3,6 +3,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -73,13 +74,43 @@ public class TeoriaCuanticaTest {
 		try {
 			Matriz psiM = new Matriz(2,1,psi);
 			Matriz omegaM = new Matriz(2,2,omega);
-			assertEquals(CalculadoraCuantica.calcularVarianza(omegaM, psiM),new Complejo(1.25,0));
+			Complejo varianza = CalculadoraCuantica.calcularVarianza(omegaM, psiM);
+			assertEquals(1.25, varianza.getReal(), 1e-12);
+			assertEquals(0, varianza.getImaginaria(), 0);
 		} catch (CalculadoraException e) {
 			assertEquals(e.getMessage(), CalculadoraException.MATRIZ_INVALIDA);
 		}
 	}
 	
 	
+	@Test
+	public void deberiaCalcularValorEsperadoYVarianzaJuntos() throws CalculadoraException {
+		Random aleatorio = new Random(25);
+		int n = 8;
+		Matriz omegaM = new Matriz(n, n);
+		Matriz psiM = new Matriz(n, 1);
+		for (int i = 0; i < n; i++) {
+			omegaM.setNumero(i, i, aleatorio.nextGaussian(), 0);
+			for (int j = i + 1; j < n; j++) {
+				double real = aleatorio.nextGaussian();
+				double imaginaria = aleatorio.nextGaussian();
+				omegaM.setNumero(i, j, real, imaginaria);
+				omegaM.setNumero(j, i, real, -imaginaria);
+			}
+			psiM.setNumero(i, 0, aleatorio.nextGaussian(), aleatorio.nextGaussian());
+		}
+		Complejo[] momentos = CalculadoraCuantica.calcularValorEsperadoYVarianza(omegaM, psiM);
+		assertEquals(momentos[1], CalculadoraCuantica.calcularVarianza(omegaM, psiM));
+		Complejo valorEsperado = CalculadoraCuantica.calcularValorEsperado(omegaM, psiM);
+		assertEquals(valorEsperado.getReal(), momentos[0].getReal(), 1e-12);
+		assertEquals(0, momentos[0].getImaginaria(), 1e-12);
+		double[] menosValor = {-valorEsperado.getReal(), 0};
+		Matriz delta = CalculadoraMatrices.sumaMatriz(omegaM, CalculadoraMatrices.multiplicacionEscalarMatriz(menosValor, CalculadoraMatrices.identidad(omegaM)));
+		Complejo varianza = CalculadoraCuantica.calcular(CalculadoraMatrices.matrizPorMatriz(delta, delta), psiM);
+		assertEquals(varianza.getReal(), momentos[1].getReal(), 1e-12);
+		assertTrue(momentos[1].getReal() >= 0);
+	}
+	
 	@Test
 	public void quiz6ValorEsperado() {
 		double[][] omega = {{0,0},{0,-1},{0,1},{0,0}};
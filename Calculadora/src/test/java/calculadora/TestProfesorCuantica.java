@@ -3,11 +3,17 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
 import org.junit.Test;
 
 
 public class TestProfesorCuantica {
 
+	@Rule
+	public PoolDePrueba hilos = new PoolDePrueba();
+
 	@Test
 	public void  deberiaCalcularProbabiliadad() {
 		double[][] numeros1 = {{2,-1},{-1.5,2.5},{-3.5,5},{-4,6},{-3.5,2.5},{0,0},{-3.5,2.5},{6,-4},{0,2.5},{-1,1}};
@@ -90,4 +96,84 @@ public class TestProfesorCuantica {
 	}
 	
 	
+	@Test
+	public void deberiaCalcularProbabilidadesEnUnaPasada() throws CalculadoraException {
+		Random aleatorio = new Random(22);
+		int n = 1 << 14;
+		Matriz estado = new Matriz(n, 1);
+		for (int i = 0; i < n; i++) {
+			estado.setNumero(i, 0, aleatorio.nextGaussian(), aleatorio.nextGaussian());
+		}
+		hilos.secuencial();
+		double[] secuencial = CalculadoraCuantica.calcularProbabilidad(estado);
+		hilos.paralelo();
+		double[] paralelo = new double[n];
+		assertTrue(CalculadoraCuantica.calcularProbabilidad(estado, paralelo) == paralelo);
+		assertTrue(Arrays.equals(secuencial, paralelo));
+		double[] acumulada = CalculadoraCuantica.calcularDistribucionAcumulada(estado);
+		assertEquals(secuencial[0], acumulada[0], 0);
+		assertEquals(secuencial[0] + secuencial[1], acumulada[1], 0);
+		assertEquals(1, acumulada[n - 1], 1e-12);
+		for (int i = 1; i < n; i++) {
+			assertTrue(acumulada[i - 1] <= acumulada[i]);
+		}
+	}
+
+	@Test
+	public void deberiaMedirConTablaDeAlias() throws CalculadoraException {
+		double[][] numeros = {{1, 0}, {0, 0}, {0, 2}, {1, -1}, {0, 0}, {0, 0}, {2, 0}, {0, 0}};
+		Matriz estado = new Matriz(8, 1, numeros);
+		double[] probabilidades = CalculadoraCuantica.calcularProbabilidad(estado);
+		long mediciones = 2000000;
+		hilos.secuencial();
+		Histograma secuencial = CalculadoraCuantica.medir(estado, mediciones, 23);
+		hilos.paralelo();
+		Histograma paralelo = CalculadoraCuantica.medir(estado, mediciones, 23);
+		assertEquals(secuencial, paralelo);
+		assertEquals(4, paralelo.getCantidad());
+		long total = 0;
+		for (int i = 0; i < paralelo.getCantidad(); i++) {
+			total += paralelo.getCuenta(i);
+			assertEquals(probabilidades[paralelo.getEstado(i)], (double) paralelo.getCuenta(i) / mediciones, 2e-3);
+		}
+		assertEquals(mediciones, total);
+		assertEquals(0, paralelo.cuenta(1));
+		assertTrue(paralelo.cuenta(6) > paralelo.cuenta(0));
+		assertTrue(!paralelo.equals(CalculadoraCuantica.medir(estado, mediciones, 24)));
+		assertEquals(7, CalculadoraCuantica.medir(new double[] {0, 0, 0, 0, 0, 0, 0, 3}, 1000, 1).getEstado(0));
+	}
+
+	@Test
+	public void deberiaDarLosEstadosMasProbables() throws CalculadoraException {
+		Random aleatorio = new Random(24);
+		int n = 1 << 16;
+		double[] probabilidades = new double[n];
+		for (int i = 0; i < n; i++) {
+			probabilidades[i] = aleatorio.nextInt(1000) / 1000.0;
+		}
+		double[] ordenadas = probabilidades.clone();
+		Arrays.sort(ordenadas);
+		hilos.paralelo();
+		EstadosProbables paralelo = CalculadoraCuantica.masProbables(probabilidades, 40);
+		hilos.secuencial();
+		EstadosProbables secuencial = CalculadoraCuantica.masProbables(probabilidades, 40);
+		assertEquals(40, paralelo.getCantidad());
+		for (int i = 0; i < 40; i++) {
+			assertEquals(ordenadas[n - 1 - i], paralelo.getProbabilidad(i), 0);
+			assertEquals(probabilidades[paralelo.getEstado(i)], paralelo.getProbabilidad(i), 0);
+			assertEquals(secuencial.getEstado(i), paralelo.getEstado(i));
+			if (i > 0 && paralelo.getProbabilidad(i) == paralelo.getProbabilidad(i - 1)) {
+				assertTrue(paralelo.getEstado(i - 1) < paralelo.getEstado(i));
+			}
+		}
+
+		double[][] numeros = {{1, 0}, {0, 0}, {0, 2}, {1, -1}};
+		EstadosProbables todos = CalculadoraCuantica.masProbables(new Matriz(4, 1, numeros), 10);
+		assertEquals(4, todos.getCantidad());
+		assertEquals(2, todos.getEstado(0));
+		assertEquals(4.0 / 7, todos.getProbabilidad(0), 1e-15);
+		assertEquals(3, todos.getEstado(1));
+		assertEquals(1, todos.getEstado(3));
+		assertEquals(0, CalculadoraCuantica.masProbables(probabilidades, 0).getCantidad());
+	}
 }